@@ -0,0 +1,3 @@
+#!/bin/bash
+# Run by the postgres image on first start, lets the replica of docker-compose.replica.yml stream WAL
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
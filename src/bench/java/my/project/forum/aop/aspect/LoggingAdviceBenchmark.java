@@ -0,0 +1,102 @@
+package my.project.forum.aop.aspect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.forum.aop.annotation.Loggable;
+import my.project.forum.data.builder.entity.UserBuilder;
+import my.project.forum.data.mongodb.repository.LogRepository;
+import my.project.forum.data.postgres.entity.User;
+import my.project.forum.service.AuditLogWriter;
+import my.project.forum.service.Properties;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the @Loggable advices around a handler which does nothing. The audit writer
+ * is real, its repository is a mock.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingAdviceBenchmark {
+
+    public static class Endpoint {
+
+        @Loggable(method = "get", controller = "benchmark")
+        public Object handle()
+        {
+            return this;
+        }
+    }
+
+    private AuditLogWriter auditLogWriter;
+    private Endpoint plain;
+    private Endpoint logged;
+    private Endpoint loggedAndMeasured;
+
+    @Setup
+    public void setUp()
+    {
+        Properties props = new Properties();
+        props.setAuditQueueCapacity(10000);
+        props.setAuditBatchSize(500);
+        props.setAuditFlushInterval(100);
+        props.setAuditOverflowPolicy(AuditLogWriter.OverflowPolicy.DROP);
+        props.setAuditShutdownTimeout(1000);
+
+        auditLogWriter = new AuditLogWriter(Mockito.mock(LogRepository.class), props, new SimpleMeterRegistry());
+        auditLogWriter.start();
+
+        LoggingHandler loggingHandler = new LoggingHandler(auditLogWriter);
+        MetricsHandler metricsHandler = new MetricsHandler(new SimpleMeterRegistry());
+
+        plain = new Endpoint();
+        logged = proxy(loggingHandler);
+        loggedAndMeasured = proxy(loggingHandler, metricsHandler);
+
+        User user = new UserBuilder().id(1L).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static Endpoint proxy(Object... aspects)
+    {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Endpoint());
+        factory.setProxyTargetClass(true);
+        for (Object aspect : aspects)
+            factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        auditLogWriter.flushOnShutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Object withoutAdvice()
+    {
+        return plain.handle();
+    }
+
+    @Benchmark
+    public Object loggingHandler()
+    {
+        return logged.handle();
+    }
+
+    @Benchmark
+    public Object loggingAndMetricsHandlers()
+    {
+        return loggedAndMeasured.handle();
+    }
+}
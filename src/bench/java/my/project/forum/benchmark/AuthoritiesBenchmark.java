@@ -0,0 +1,52 @@
+package my.project.forum.benchmark;
+
+import my.project.forum.data.builder.entity.RoleBuilder;
+import my.project.forum.data.builder.entity.UserBuilder;
+import my.project.forum.data.postgres.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User.getAuthorities() and the admin check the controllers do on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthoritiesBenchmark {
+
+    private User admin;
+    private User user;
+
+    @Setup
+    public void setUp()
+    {
+        admin = new UserBuilder().id(1L).role(new RoleBuilder().name("ROLE_ADMIN").build()).build();
+        user = new UserBuilder().id(2L).role(new RoleBuilder().name("ROLE_USER").build()).build();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities()
+    {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public boolean hasAdminRole_Admin()
+    {
+        return admin.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    @Benchmark
+    public boolean hasAdminRole_User()
+    {
+        return user.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+}
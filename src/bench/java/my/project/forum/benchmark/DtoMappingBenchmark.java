@@ -0,0 +1,139 @@
+package my.project.forum.benchmark;
+
+import my.project.forum.data.builder.dto.*;
+import my.project.forum.data.postgres.dto.*;
+import my.project.forum.data.postgres.entity.*;
+import my.project.forum.service.DtoMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO to entity mapping of POST handlers. The perCall* benchmarks build a new ModelMapper
+ * on every call like the handlers used to, the others go through the shared DtoMapper.
+ * Setup checks that both produce equal entities.
+ * Run with -Djmh.args="DtoMapping -prof gc" to compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private DtoMapper dtoMapper;
+
+    private TopicDto topicDto;
+    private CommentDto commentDto;
+    private UserDto userDto;
+    private LikeDto likeDto;
+    private ReputationDto repDto;
+    private SectionDto sectionDto;
+
+    @Setup
+    public void setUp()
+    {
+        dtoMapper = new DtoMapper();
+
+        topicDto = new TopicDtoBuilder().id(null).build();
+        commentDto = new CommentDtoBuilder().id(null)
+                .parentComment(new CommentDtoBuilder().id(1L).build())
+                .build();
+        userDto = new UserDtoBuilder().id(null).build();
+        likeDto = new LikeDtoBuilder().id(null).build();
+        repDto = new ReputationDto(null, "Thanks", new UserDtoBuilder().build());
+        sectionDto = new SectionDtoBuilder().id(null).build();
+
+        check("topic", perCallTopic(), sharedTopic());
+        check("comment", perCallComment(), sharedComment());
+        check("user", perCallUser(), sharedUser());
+        check("like", perCallLike(), sharedLike());
+        check("reputation", perCallReputation(), sharedReputation());
+        check("section", perCallSection(), sharedSection());
+    }
+
+    @Benchmark
+    public Topic perCallTopic()
+    {
+        return new ModelMapper().map(topicDto, Topic.class);
+    }
+
+    @Benchmark
+    public Topic sharedTopic()
+    {
+        return dtoMapper.toTopic(topicDto);
+    }
+
+    @Benchmark
+    public Comment perCallComment()
+    {
+        return new ModelMapper().map(commentDto, Comment.class);
+    }
+
+    @Benchmark
+    public Comment sharedComment()
+    {
+        return dtoMapper.toComment(commentDto);
+    }
+
+    @Benchmark
+    public User perCallUser()
+    {
+        return new ModelMapper().map(userDto, User.class);
+    }
+
+    @Benchmark
+    public User sharedUser()
+    {
+        return dtoMapper.toUser(userDto);
+    }
+
+    @Benchmark
+    public Like perCallLike()
+    {
+        return new ModelMapper().map(likeDto, Like.class);
+    }
+
+    @Benchmark
+    public Like sharedLike()
+    {
+        return dtoMapper.toLike(likeDto);
+    }
+
+    //A bare ModelMapper matches ReputationDto.target to Reputation.target.reputation and fails on every DTO,
+    //the old handler did too. The nested map makes it map target as a user, as DtoMapper does
+    @Benchmark
+    public Reputation perCallReputation()
+    {
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.createTypeMap(UserDto.class, User.class);
+
+        return modelMapper.map(repDto, Reputation.class);
+    }
+
+    @Benchmark
+    public Reputation sharedReputation()
+    {
+        return dtoMapper.toReputation(repDto);
+    }
+
+    @Benchmark
+    public Section perCallSection()
+    {
+        return new ModelMapper().map(sectionDto, Section.class);
+    }
+
+    @Benchmark
+    public Section sharedSection()
+    {
+        return dtoMapper.toSection(sectionDto);
+    }
+
+    private static void check(String type, Object perCall, Object shared)
+    {
+        if (!perCall.equals(shared))
+            throw new IllegalStateException("Per-call and shared " + type + " mappings differ: " + perCall + " / " + shared);
+    }
+}
@@ -0,0 +1,108 @@
+package my.project.forum.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import my.project.forum.data.builder.entity.*;
+import my.project.forum.data.builder.projection.CommentSummaryBuilder;
+import my.project.forum.data.builder.projection.TopicSummaryBuilder;
+import my.project.forum.data.postgres.entity.*;
+import my.project.forum.data.postgres.projection.AuthorSummary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON of list pages: entity graphs as they were served before and the summaries served now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"4", "50"})
+    private int pageSize;
+
+    //Every reply chain of the comment page is this deep
+    private static final int REPLY_DEPTH = 3;
+
+    private ObjectMapper mapper;
+    private Page<Topic> topics;
+    private Page<Comment> comments;
+    private Page<?> topicSummaries;
+    private Page<?> commentSummaries;
+
+    @Setup
+    public void setUp()
+    {
+        //Same defaults as the ObjectMapper of Spring Boot
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Role role = new RoleBuilder().id(1L).name("ROLE_USER").color(0x00FF00).build();
+        Section section = new SectionBuilder().id(1L).build();
+        Set<Tag> tags = Set.of(new TagBuilder().id(1L).name("Java").build(),
+                new TagBuilder().id(2L).name("Spring").build());
+        LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+
+        List<Topic> topicList = new ArrayList<>();
+        List<Comment> commentList = new ArrayList<>();
+        List<Object> topicSummaryList = new ArrayList<>();
+        List<Object> commentSummaryList = new ArrayList<>();
+
+        for (long i = 0; i < pageSize; i++)
+        {
+            User user = new UserBuilder().id(i).username("user " + i).role(role).build();
+            Topic topic = new TopicBuilder().id(i).name("Topic " + i).user(user).section(section).tags(tags).build();
+            topicList.add(topic);
+            topicSummaryList.add(new TopicSummaryBuilder().id(i).name("Topic " + i).sectionId(1L)
+                    .author(new AuthorSummary(i, "user " + i, 0x00FF00, 0L)).build());
+
+            Comment parent = i % REPLY_DEPTH == 0 || commentList.isEmpty() ? null : commentList.get(commentList.size() - 1);
+            commentList.add(new CommentBuilder().id(i).text("Comment text number " + i)
+                    .placedAt(placedAt.plusMinutes(i)).user(user).topic(topic).parentComment(parent).build());
+            commentSummaryList.add(new CommentSummaryBuilder().id(i).text("Comment text number " + i)
+                    .placedAt(placedAt.plusMinutes(i)).topicId(i)
+                    .parentId(parent == null ? null : parent.getId())
+                    .author(new AuthorSummary(i, "user " + i, 0x00FF00, 0L)).build());
+        }
+
+        PageRequest pageable = PageRequest.of(0, pageSize);
+        topics = new PageImpl<>(topicList, pageable, pageSize * 10L);
+        comments = new PageImpl<>(commentList, pageable, pageSize * 10L);
+        topicSummaries = new PageImpl<>(topicSummaryList, pageable, pageSize * 10L);
+        commentSummaries = new PageImpl<>(commentSummaryList, pageable, pageSize * 10L);
+    }
+
+    @Benchmark
+    public byte[] topicEntities() throws Exception
+    {
+        return mapper.writeValueAsBytes(topics);
+    }
+
+    @Benchmark
+    public byte[] commentEntities() throws Exception
+    {
+        return mapper.writeValueAsBytes(comments);
+    }
+
+    @Benchmark
+    public byte[] topicSummaries() throws Exception
+    {
+        return mapper.writeValueAsBytes(topicSummaries);
+    }
+
+    @Benchmark
+    public byte[] commentSummaries() throws Exception
+    {
+        return mapper.writeValueAsBytes(commentSummaries);
+    }
+}
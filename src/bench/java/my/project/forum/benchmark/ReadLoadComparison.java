@@ -0,0 +1,176 @@
+package my.project.forum.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load on one read endpoint at a fixed request rate, for comparing ForumApplication
+ * with ReactiveReadApplication at equal throughput. Latency is measured from the time a request
+ * was due, so a server falling behind isn't hidden by the client waiting for it. While the load
+ * runs, pg_stat_activity is sampled for the connections of the server.
+ *
+ * Run once per server with the same rate:
+ *   mvn -P benchmarks -DskipTests test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=my.project.forum.benchmark.ReadLoadComparison
+ *       -Dexec.args="http://localhost:8080/topics/2/comments?cursor= 500 30 'PostgreSQL JDBC Driver'"
+ * and with http://localhost:8081/... and forum-reactive as the application name for the reactive one.
+ * Optional further arguments: warmup seconds, JDBC url, user, password.
+ */
+public class ReadLoadComparison {
+
+    public static void main(String[] args) throws Exception
+    {
+        URI uri = URI.create(args[0]);
+        int rate = Integer.parseInt(args[1]);
+        int seconds = Integer.parseInt(args[2]);
+        String applicationName = args[3];
+        int warmupSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+        String jdbcUrl = args.length > 5 ? args[5] : "jdbc:postgresql://localhost:5432/SpringForum?ApplicationName=load-probe";
+        String user = args.length > 6 ? args[6] : "postgres";
+        String password = args.length > 7 ? args[7] : "123456";
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(4))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        run(client, request, rate, warmupSeconds, null);
+
+        ConnectionSampler sampler = new ConnectionSampler(jdbcUrl, user, password, applicationName);
+        Thread sampling = new Thread(sampler, "connection-sampler");
+        sampling.start();
+
+        long[] latencies = new long[rate * seconds];
+        AtomicInteger errors = new AtomicInteger();
+        long started = System.nanoTime();
+        run(client, request, rate, seconds, (i, latency, ok) -> {
+            latencies[i] = latency;
+            if (!ok)
+                errors.incrementAndGet();
+        });
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        sampler.stop();
+        sampling.join();
+
+        Arrays.sort(latencies);
+        System.out.printf("%s%n", uri);
+        System.out.printf("  requests %d in %.1f s (%.0f/s), errors %d%n",
+                latencies.length, elapsed, latencies.length / elapsed, errors.get());
+        System.out.printf("  latency ms  p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                latencies[latencies.length - 1] / 1e6);
+        System.out.printf("  connections of %s  open max %d  busy mean %.2f  busy max %d%n",
+                applicationName, sampler.maxOpen, sampler.busyTotal / (double) Math.max(1, sampler.samples),
+                sampler.maxBusy);
+
+        System.exit(0);
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int rate, int seconds, Recorder recorder)
+            throws InterruptedException
+    {
+        int total = rate * seconds;
+        long interval = 1_000_000_000L / rate;
+        CountDownLatch done = new CountDownLatch(total);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < total; i++)
+        {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+
+            int index = i;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (recorder != null)
+                            recorder.record(index, System.nanoTime() - due, error == null && response.statusCode() == 200);
+                        done.countDown();
+                    });
+        }
+
+        done.await();
+    }
+
+    private static double percentile(long[] sorted, int percentile)
+    {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private interface Recorder {
+        void record(int index, long latencyNanos, boolean ok);
+    }
+
+    //Busy connections are the ones running a query or holding a transaction open
+    private static class ConnectionSampler implements Runnable {
+
+        private static final String QUERY = "SELECT count(*), count(*) FILTER (WHERE state <> 'idle') " +
+                                            "FROM pg_stat_activity WHERE application_name = ?";
+
+        private final String jdbcUrl;
+        private final String user;
+        private final String password;
+        private final String applicationName;
+        private volatile boolean running = true;
+
+        private int maxOpen;
+        private int maxBusy;
+        private long busyTotal;
+        private long samples;
+
+        ConnectionSampler(String jdbcUrl, String user, String password, String applicationName)
+        {
+            this.jdbcUrl = jdbcUrl;
+            this.user = user;
+            this.password = password;
+            this.applicationName = applicationName;
+        }
+
+        void stop()
+        {
+            running = false;
+        }
+
+        @Override
+        public void run()
+        {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, user, password);
+                 PreparedStatement statement = connection.prepareStatement(QUERY))
+            {
+                statement.setString(1, applicationName);
+                while (running)
+                {
+                    try (ResultSet rs = statement.executeQuery())
+                    {
+                        rs.next();
+                        maxOpen = Math.max(maxOpen, rs.getInt(1));
+                        maxBusy = Math.max(maxBusy, rs.getInt(2));
+                        busyTotal += rs.getInt(2);
+                        samples++;
+                    }
+                    Thread.sleep(10);
+                }
+            }
+            catch (Exception e)
+            {
+                throw new IllegalStateException("Sampling pg_stat_activity failed", e);
+            }
+        }
+    }
+}
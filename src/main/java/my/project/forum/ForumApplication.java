@@ -2,10 +2,12 @@ package my.project.forum;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.TreeMap;
 
 @SpringBootApplication
+@EnableScheduling
 public class ForumApplication {
 
     public static void main(String[] args) {
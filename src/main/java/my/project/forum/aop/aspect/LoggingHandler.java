@@ -3,8 +3,8 @@ package my.project.forum.aop.aspect;
 import my.project.forum.aop.annotation.Loggable;
 import my.project.forum.data.builder.entity.LogBuilder;
 import my.project.forum.data.mongodb.entity.Log;
-import my.project.forum.data.mongodb.repository.LogRepository;
 import my.project.forum.data.postgres.entity.User;
+import my.project.forum.service.AuditLogWriter;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
@@ -18,12 +18,12 @@ import org.springframework.stereotype.Component;
 @Component
 public class LoggingHandler {
 
-    private LogRepository logRepo;
+    private AuditLogWriter auditLogWriter;
 
     @Autowired
-    LoggingHandler(LogRepository logRepo)
+    LoggingHandler(AuditLogWriter auditLogWriter)
     {
-        this.logRepo = logRepo;
+        this.auditLogWriter = auditLogWriter;
     }
 
     @Pointcut("@annotation(my.project.forum.aop.annotation.Loggable)")
@@ -43,6 +43,6 @@ public class LoggingHandler {
 
         String content = method + " method was activated in " + controller + " controller";
         Log log = new LogBuilder().id(null).username(username).desc(content).build();
-        logRepo.save(log);
+        auditLogWriter.submit(log);
     }
 }
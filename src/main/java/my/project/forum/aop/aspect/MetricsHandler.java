@@ -0,0 +1,118 @@
+package my.project.forum.aop.aspect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import my.project.forum.aop.annotation.Loggable;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency, call and in-flight metrics of every @Loggable endpoint, tagged with the
+ * controller and method of the annotation, the name of the handler method and the params
+ * of its mapping, which tell overloaded handlers apart.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricsHandler {
+
+    private MeterRegistry registry;
+    private Map<Method, EndpointMeters> meters = new ConcurrentHashMap<>();
+    //Meters are registered once per tag set, the registry would return the first gauge for the same tags
+    private Map<Tags, EndpointMeters> metersByTags = new ConcurrentHashMap<>();
+
+    @Autowired
+    MetricsHandler(MeterRegistry registry)
+    {
+        this.registry = registry;
+    }
+
+    //The annotation isn't bound as an argument, binding doesn't work in an aspect of the highest precedence
+    @Around("my.project.forum.aop.aspect.LoggingHandler.loggableMethod()")
+    public Object measure(ProceedingJoinPoint jp) throws Throwable
+    {
+        Method method = ((MethodSignature) jp.getSignature()).getMethod();
+        EndpointMeters endpoint = meters.computeIfAbsent(method,
+                m -> metersByTags.computeIfAbsent(tagsOf(m), EndpointMeters::new));
+
+        endpoint.inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Object result = jp.proceed();
+            endpoint.success.increment();
+            return result;
+        } catch (Throwable e) {
+            //Tagged by the exception type, CustomGlobalExceptionHandler maps each to a status
+            Counter.builder("forum.endpoint.calls")
+                    .description("Calls of @Loggable endpoints by outcome")
+                    .tags(endpoint.tags)
+                    .tag("outcome", "error")
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+            throw e;
+        } finally {
+            endpoint.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            endpoint.inFlight.decrementAndGet();
+        }
+    }
+
+    private static Tags tagsOf(Method method)
+    {
+        Loggable loggable = method.getAnnotation(Loggable.class);
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        String params = mapping == null || mapping.params().length == 0 ? "none" : String.join(",", mapping.params());
+
+        return Tags.of("controller", loggable.controller(),
+                "method", loggable.method(),
+                "handler", method.getName(),
+                "params", params);
+    }
+
+    private class EndpointMeters {
+
+        private final Tags tags;
+        private final Timer latency;
+        private final Counter success;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        EndpointMeters(Tags tags)
+        {
+            this.tags = tags;
+
+            latency = Timer.builder("forum.endpoint.latency")
+                    .description("Time spent in @Loggable endpoints")
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            success = Counter.builder("forum.endpoint.calls")
+                    .description("Calls of @Loggable endpoints by outcome")
+                    .tags(tags)
+                    .tag("outcome", "success")
+                    .tag("exception", "none")
+                    .register(registry);
+            Gauge.builder("forum.endpoint.in.flight", inFlight, AtomicInteger::get)
+                    .description("@Loggable endpoint calls in progress")
+                    .tags(tags)
+                    .register(registry);
+        }
+    }
+}
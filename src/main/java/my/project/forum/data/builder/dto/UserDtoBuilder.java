@@ -11,7 +11,6 @@ public class UserDtoBuilder {
     private String password = "tT1#1111";
     private String information = "user info";
     private String email = "test@test.com";
-    private byte[] avatar = {1, 2, 3};
     private Role role = new RoleBuilder().id(0L).name("ROLE_USER").color(0xFFFFFF).build();
 
     public UserDtoBuilder id(Long id)
@@ -44,12 +43,6 @@ public class UserDtoBuilder {
         return this;
     }
 
-    public UserDtoBuilder avatar(byte[] avatar)
-    {
-        this.avatar = avatar;
-        return this;
-    }
-
     public UserDtoBuilder role(Role role)
     {
         this.role = role;
@@ -58,7 +51,7 @@ public class UserDtoBuilder {
 
     public UserDto build()
     {
-        return new UserDto(id, username, password, information, email, avatar, role);
+        return new UserDto(id, username, password, information, email, role);
     }
 
 }
@@ -9,6 +9,7 @@ public class CommentBuilder {
     private Long id = 0L;
     private String text = "Hello World!";
     private LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+    private Long likeCount = 0L;
     private User user = new UserBuilder().build();
     private Topic topic = new TopicBuilder().build();
     private Comment parentComment = null;
@@ -31,6 +32,12 @@ public class CommentBuilder {
         return this;
     }
 
+    public CommentBuilder likeCount(Long likeCount)
+    {
+        this.likeCount = likeCount;
+        return this;
+    }
+
     public CommentBuilder user(User user)
     {
         this.user = user;
@@ -51,7 +58,7 @@ public class CommentBuilder {
 
     public Comment build()
     {
-        return new Comment(id, text, placedAt, user, topic, parentComment);
+        return new Comment(id, text, placedAt, likeCount, user, topic, parentComment);
     }
 
 }
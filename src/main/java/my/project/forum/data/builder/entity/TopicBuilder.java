@@ -14,6 +14,8 @@ public class TopicBuilder {
     private String name = "Spring Framework";
     private LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
     private Long views = 0L;
+    private LocalDateTime lastCommentAt = null;
+    private Long commentCount = 0L;
     private User user = new UserBuilder().build();
     private Section section = new SectionBuilder().build();
     private Set<Tag> tags = Set.of(new TagBuilder().build());
@@ -42,6 +44,18 @@ public class TopicBuilder {
         return this;
     }
 
+    public TopicBuilder lastCommentAt(LocalDateTime lastCommentAt)
+    {
+        this.lastCommentAt = lastCommentAt;
+        return this;
+    }
+
+    public TopicBuilder commentCount(Long commentCount)
+    {
+        this.commentCount = commentCount;
+        return this;
+    }
+
     public TopicBuilder user(User user)
     {
         this.user = user;
@@ -62,7 +76,7 @@ public class TopicBuilder {
 
     public Topic build()
     {
-        return new Topic(id, name, placedAt, views, user, section, tags);
+        return new Topic(id, name, placedAt, views, lastCommentAt, commentCount, user, section, tags);
     }
 
 }
@@ -13,7 +13,8 @@ public class UserBuilder {
     private String information = "user info";
     private String email = "test@test.com";
     private LocalDate registrationDate = LocalDate.of(2020, 8, 27);
-    private byte[] avatar = new byte[]{1, 2, 3};
+    private String avatarHash = null;
+    private Long reputation = 0L;
     private Role role = new RoleBuilder().id(0L).name("ROLE_USER").color(0xFFFFFF).build();
     private boolean nonLocked = true;
 
@@ -53,9 +54,15 @@ public class UserBuilder {
         return this;
     }
 
-    public UserBuilder avatar(byte[] avatar)
+    public UserBuilder avatarHash(String avatarHash)
     {
-        this.avatar = avatar;
+        this.avatarHash = avatarHash;
+        return this;
+    }
+
+    public UserBuilder reputation(Long reputation)
+    {
+        this.reputation = reputation;
         return this;
     }
 
@@ -73,7 +80,7 @@ public class UserBuilder {
 
     public User build()
     {
-        return new User(id, username, password, information, email, registrationDate, avatar, role, nonLocked);
+        return new User(id, username, password, information, email, registrationDate, avatarHash, reputation, role, nonLocked);
     }
 
 }
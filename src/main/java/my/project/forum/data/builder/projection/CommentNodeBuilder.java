@@ -0,0 +1,39 @@
+package my.project.forum.data.builder.projection;
+
+import my.project.forum.data.postgres.projection.CommentNode;
+import my.project.forum.data.postgres.projection.CommentSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CommentNodeBuilder {
+
+    private CommentSummary comment = new CommentSummaryBuilder().build();
+    private long replyCount = 0;
+    private List<CommentNode> replies = new ArrayList<>();
+
+    public CommentNodeBuilder comment(CommentSummary comment)
+    {
+        this.comment = comment;
+        return this;
+    }
+
+    public CommentNodeBuilder replyCount(long replyCount)
+    {
+        this.replyCount = replyCount;
+        return this;
+    }
+
+    public CommentNodeBuilder replies(CommentNode... replies)
+    {
+        this.replies = new ArrayList<>(Arrays.asList(replies));
+        return this;
+    }
+
+    public CommentNode build()
+    {
+        return new CommentNode(comment, replyCount, replies);
+    }
+
+}
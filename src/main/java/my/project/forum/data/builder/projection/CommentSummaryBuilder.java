@@ -0,0 +1,72 @@
+package my.project.forum.data.builder.projection;
+
+import my.project.forum.data.postgres.projection.AuthorSummary;
+import my.project.forum.data.postgres.projection.CommentSummary;
+
+import java.time.LocalDateTime;
+
+public class CommentSummaryBuilder {
+
+    private Long id = 0L;
+    private String text = "Hello World!";
+    private LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+    private Long topicId = 0L;
+    private Long parentId = null;
+    private AuthorSummary author = new AuthorSummary(0L, "test user", 0xFFFFFF, 0L);
+    private long likeCount = 0;
+    private boolean likedByMe = false;
+
+    public CommentSummaryBuilder id(Long id)
+    {
+        this.id = id;
+        return this;
+    }
+
+    public CommentSummaryBuilder text(String text)
+    {
+        this.text = text;
+        return this;
+    }
+
+    public CommentSummaryBuilder placedAt(LocalDateTime placedAt)
+    {
+        this.placedAt = placedAt;
+        return this;
+    }
+
+    public CommentSummaryBuilder topicId(Long topicId)
+    {
+        this.topicId = topicId;
+        return this;
+    }
+
+    public CommentSummaryBuilder parentId(Long parentId)
+    {
+        this.parentId = parentId;
+        return this;
+    }
+
+    public CommentSummaryBuilder author(AuthorSummary author)
+    {
+        this.author = author;
+        return this;
+    }
+
+    public CommentSummaryBuilder likeCount(long likeCount)
+    {
+        this.likeCount = likeCount;
+        return this;
+    }
+
+    public CommentSummaryBuilder likedByMe(boolean likedByMe)
+    {
+        this.likedByMe = likedByMe;
+        return this;
+    }
+
+    public CommentSummary build()
+    {
+        return new CommentSummary(id, text, placedAt, topicId, parentId, author, likeCount, likedByMe);
+    }
+
+}
@@ -0,0 +1,44 @@
+package my.project.forum.data.builder.projection;
+
+import my.project.forum.data.postgres.projection.AuthorSummary;
+import my.project.forum.data.postgres.projection.ReputationSummary;
+
+import java.time.LocalDateTime;
+
+public class ReputationSummaryBuilder {
+
+    private Long id = 0L;
+    private String msg = "Thanks!";
+    private LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+    private AuthorSummary author = new AuthorSummary(0L, "test user", 0xFFFFFF, 0L);
+
+    public ReputationSummaryBuilder id(Long id)
+    {
+        this.id = id;
+        return this;
+    }
+
+    public ReputationSummaryBuilder msg(String msg)
+    {
+        this.msg = msg;
+        return this;
+    }
+
+    public ReputationSummaryBuilder placedAt(LocalDateTime placedAt)
+    {
+        this.placedAt = placedAt;
+        return this;
+    }
+
+    public ReputationSummaryBuilder author(AuthorSummary author)
+    {
+        this.author = author;
+        return this;
+    }
+
+    public ReputationSummary build()
+    {
+        return new ReputationSummary(id, msg, placedAt, author);
+    }
+
+}
@@ -0,0 +1,72 @@
+package my.project.forum.data.builder.projection;
+
+import my.project.forum.data.postgres.projection.AuthorSummary;
+import my.project.forum.data.postgres.projection.SearchHit;
+
+import java.time.LocalDateTime;
+
+public class SearchHitBuilder {
+
+    private String type = SearchHit.TOPIC;
+    private Long id = 0L;
+    private Long topicId = 0L;
+    private String topicName = "Test topic";
+    private String snippet = "**Test** topic";
+    private float rank = 0.1f;
+    private LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+    private AuthorSummary author = new AuthorSummary(0L, "test user", 0xFFFFFF, 0L);
+
+    public SearchHitBuilder type(String type)
+    {
+        this.type = type;
+        return this;
+    }
+
+    public SearchHitBuilder id(Long id)
+    {
+        this.id = id;
+        return this;
+    }
+
+    public SearchHitBuilder topicId(Long topicId)
+    {
+        this.topicId = topicId;
+        return this;
+    }
+
+    public SearchHitBuilder topicName(String topicName)
+    {
+        this.topicName = topicName;
+        return this;
+    }
+
+    public SearchHitBuilder snippet(String snippet)
+    {
+        this.snippet = snippet;
+        return this;
+    }
+
+    public SearchHitBuilder rank(float rank)
+    {
+        this.rank = rank;
+        return this;
+    }
+
+    public SearchHitBuilder placedAt(LocalDateTime placedAt)
+    {
+        this.placedAt = placedAt;
+        return this;
+    }
+
+    public SearchHitBuilder author(AuthorSummary author)
+    {
+        this.author = author;
+        return this;
+    }
+
+    public SearchHit build()
+    {
+        return new SearchHit(type, id, topicId, topicName, snippet, rank, placedAt, author);
+    }
+
+}
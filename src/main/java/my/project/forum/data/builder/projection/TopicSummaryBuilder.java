@@ -0,0 +1,72 @@
+package my.project.forum.data.builder.projection;
+
+import my.project.forum.data.postgres.projection.AuthorSummary;
+import my.project.forum.data.postgres.projection.TopicSummary;
+
+import java.time.LocalDateTime;
+
+public class TopicSummaryBuilder {
+
+    private Long id = 0L;
+    private String name = "Spring Framework";
+    private LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+    private Long views = 0L;
+    private LocalDateTime lastCommentAt = null;
+    private Long commentCount = 0L;
+    private Long sectionId = 0L;
+    private AuthorSummary author = new AuthorSummary(0L, "test user", 0xFFFFFF, 0L);
+
+    public TopicSummaryBuilder id(Long id)
+    {
+        this.id = id;
+        return this;
+    }
+
+    public TopicSummaryBuilder name(String name)
+    {
+        this.name = name;
+        return this;
+    }
+
+    public TopicSummaryBuilder placedAt(LocalDateTime placedAt)
+    {
+        this.placedAt = placedAt;
+        return this;
+    }
+
+    public TopicSummaryBuilder views(Long views)
+    {
+        this.views = views;
+        return this;
+    }
+
+    public TopicSummaryBuilder lastCommentAt(LocalDateTime lastCommentAt)
+    {
+        this.lastCommentAt = lastCommentAt;
+        return this;
+    }
+
+    public TopicSummaryBuilder commentCount(Long commentCount)
+    {
+        this.commentCount = commentCount;
+        return this;
+    }
+
+    public TopicSummaryBuilder sectionId(Long sectionId)
+    {
+        this.sectionId = sectionId;
+        return this;
+    }
+
+    public TopicSummaryBuilder author(AuthorSummary author)
+    {
+        this.author = author;
+        return this;
+    }
+
+    public TopicSummary build()
+    {
+        return new TopicSummary(id, name, placedAt, views, lastCommentAt, commentCount, sectionId, author);
+    }
+
+}
@@ -0,0 +1,89 @@
+package my.project.forum.data.cursor;
+
+import my.project.forum.error.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Position of the last row of a keyset page, e.g. (placed_at, id).
+ * Clients get it as an opaque url-safe token and send it back to fetch the next page.
+ */
+public class Cursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String[] values;
+
+    private Cursor(String[] values)
+    {
+        this.values = values;
+    }
+
+    public static Cursor of(Object... values)
+    {
+        return new Cursor(Arrays.stream(values).map(String::valueOf).toArray(String[]::new));
+    }
+
+    //Returns null for an empty token, that is the first page
+    public static Cursor decode(String token, int size)
+    {
+        if (token == null || token.isBlank())
+            return null;
+
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+
+        String[] values = decoded.split("\\" + SEPARATOR, -1);
+        if (values.length != size)
+            throw new InvalidCursorException("Malformed cursor");
+
+        return new Cursor(values);
+    }
+
+    public String encode()
+    {
+        String joined = Arrays.stream(values).collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getTimestamp(int index)
+    {
+        try {
+            return LocalDateTime.parse(values[index]);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    public String getString(int index)
+    {
+        return values[index];
+    }
+
+    public Float getFloat(int index)
+    {
+        try {
+            return Float.valueOf(values[index]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    public Long getLong(int index)
+    {
+        try {
+            return Long.valueOf(values[index]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+}
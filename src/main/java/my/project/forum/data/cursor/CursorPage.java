@@ -0,0 +1,27 @@
+package my.project.forum.data.cursor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    //Null on the last page
+    private String next;
+
+    //Rows must be fetched with a limit of size + 1, the extra row only tells that there is a next page
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> cursorOf)
+    {
+        if (rows.size() <= size)
+            return new CursorPage<>(rows, null);
+
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)).encode());
+    }
+}
@@ -32,7 +32,5 @@ public class UserDto implements Serializable {
     @NotNull(message = "Email can't be null")
     private String email;
 
-    private byte[] avatar;
-
     private Role role;
 }
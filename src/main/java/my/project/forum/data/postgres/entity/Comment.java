@@ -13,13 +13,26 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
+@NamedEntityGraph(name = "Comment.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "user", subgraph = "user"),
+                @NamedAttributeNode(value = "topic", subgraph = "topic"),
+                @NamedAttributeNode(value = "parentComment", subgraph = "parentComment")},
+        subgraphs = {
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role")),
+                @NamedSubgraph(name = "topic", attributeNodes = {
+                        @NamedAttributeNode(value = "user", subgraph = "user"),
+                        @NamedAttributeNode("section"),
+                        @NamedAttributeNode("tags")}),
+                @NamedSubgraph(name = "parentComment", attributeNodes = @NamedAttributeNode(value = "user", subgraph = "user"))})
 @Table(name="comment")
 @NoArgsConstructor
 @AllArgsConstructor
 public class Comment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comment_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Message can't be empty")
@@ -31,16 +44,20 @@ public class Comment {
     @Column(name="placed_at", nullable = false)
     private LocalDateTime placedAt;
 
-    @ManyToOne
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name="like_count", nullable = false, updatable = false)
+    private Long likeCount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "topic_id")
     @NotNull(message = "Parent topic can't be null")
     private Topic topic;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_comment_id")
     private Comment parentComment;
 
@@ -48,5 +65,6 @@ public class Comment {
     public void createdAt()
     {
         setPlacedAt(LocalDateTime.now());
+        setLikeCount(0L);
     }
 }
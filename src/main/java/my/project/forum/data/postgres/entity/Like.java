@@ -9,20 +9,33 @@ import javax.validation.constraints.NotNull;
 
 @Data
 @Entity
+@NamedEntityGraph(name = "Like.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "user", subgraph = "user"),
+                @NamedAttributeNode(value = "comment", subgraph = "comment")},
+        subgraphs = {
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role")),
+                @NamedSubgraph(name = "comment", attributeNodes = {
+                        @NamedAttributeNode(value = "user", subgraph = "user"),
+                        @NamedAttributeNode(value = "topic", subgraph = "topic")}),
+                @NamedSubgraph(name = "topic", attributeNodes = {
+                        @NamedAttributeNode(value = "user", subgraph = "user"),
+                        @NamedAttributeNode("section")})})
 @Table(name="like")
 @NoArgsConstructor
 @AllArgsConstructor
 public class Like {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "like_seq")
+    @SequenceGenerator(name = "like_seq", sequenceName = "like_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="comment_id")
     @NotNull(message = "Comment can't be null")
     private Comment comment;
@@ -1,5 +1,6 @@
 package my.project.forum.data.postgres.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,9 +9,15 @@ import lombok.NoArgsConstructor;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
 
 @Data
 @Entity
+@NamedEntityGraph(name = "Reputation.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "user", subgraph = "user"),
+                @NamedAttributeNode(value = "target", subgraph = "user")},
+        subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role")))
 @Table(name = "reputation")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,18 +25,29 @@ import javax.validation.constraints.Size;
 public class Reputation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reputation_seq")
+    @SequenceGenerator(name = "reputation_seq", sequenceName = "reputation_seq", allocationSize = 50)
     private Long id;
 
     @Size(max=100, message = "Reputation message must be no longer than 100 characters")
     private String msg;
 
-    @ManyToOne
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name="placed_at", nullable = false)
+    private LocalDateTime placedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="target_user_id")
     @NotNull(message = "Target user can't be null")
     private User target;
+
+    @PrePersist
+    public void createdAt()
+    {
+        setPlacedAt(LocalDateTime.now());
+    }
 }
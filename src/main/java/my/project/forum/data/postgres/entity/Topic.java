@@ -3,6 +3,7 @@ package my.project.forum.data.postgres.entity;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -14,12 +15,19 @@ import java.util.Set;
 
 @Data
 @Entity
+@NamedEntityGraph(name = "Topic.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "user", subgraph = "user"),
+                @NamedAttributeNode("section"),
+                @NamedAttributeNode("tags")},
+        subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role")))
 @Table(name="topic")
 @AllArgsConstructor
 public class Topic {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topic_seq")
+    @SequenceGenerator(name = "topic_seq", sequenceName = "topic_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Topic name can't be empty")
@@ -31,19 +39,30 @@ public class Topic {
     @Column(name="placed_at", nullable = false)
     private LocalDateTime placedAt;
 
-    @Column(nullable = false)
+    //Counters are maintained by SQL updates, saving a stale entity mustn't overwrite them
+    @Column(nullable = false, updatable = false)
     private Long views;
 
-    @ManyToOne
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name="last_comment_at", updatable = false)
+    private LocalDateTime lastCommentAt;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name="comment_count", nullable = false, updatable = false)
+    private Long commentCount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "section_id")
     @NotNull(message = "Parent section can't be null")
     private Section section;
 
+    //Lists of topics load their tags in batches instead of a join multiplying the rows
     @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(name = "topic_tag",
             joinColumns = @JoinColumn(name = "topic_id"),
             inverseJoinColumns = @JoinColumn(name = "tag_id"))
@@ -51,6 +70,7 @@ public class Topic {
 
     public Topic(){
         views = 0L;
+        commentCount = 0L;
         tags = new LinkedHashSet<>();
     }
 
@@ -59,9 +79,4 @@ public class Topic {
     {
         setPlacedAt(LocalDateTime.now());
     }
-
-    public void incrementViews()
-    {
-        views++;
-    }
 }
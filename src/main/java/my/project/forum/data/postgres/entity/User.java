@@ -18,13 +18,15 @@ import java.util.Objects;
 
 @Data
 @Entity
+@NamedEntityGraph(name = "User.detail", attributeNodes = @NamedAttributeNode("role"))
 @Table(name="user_info")
 @JsonIgnoreProperties(value = "password", allowSetters = true)
 @AllArgsConstructor
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_info_seq")
+    @SequenceGenerator(name = "user_info_seq", sequenceName = "user_info_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Username can't be empty")
@@ -49,9 +51,17 @@ public class User implements UserDetails {
     @Column(name="registration_date", nullable = false)
     private LocalDate registrationDate;
 
-    private byte[] avatar;
+    //Name of the file in AvatarStore, the image itself is served by GET /user/{id}/avatar
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name="avatar_hash")
+    private String avatarHash;
+
+    //Maintained by ReputationController, never written from the entity
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false, updatable = false)
+    private Long reputation;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "role_id")
     private Role role;
 
@@ -61,6 +71,7 @@ public class User implements UserDetails {
     public User()
     {
         nonLocked = true;
+        reputation = 0L;
     }
 
     @PrePersist
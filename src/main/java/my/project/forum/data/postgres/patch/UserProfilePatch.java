@@ -28,8 +28,6 @@ public class UserProfilePatch {
 
     private String oldPassword;
 
-    private byte[] avatar;
-
     private Role role;
 
 }
@@ -0,0 +1,22 @@
+package my.project.forum.data.postgres.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorSummary {
+
+    private Long id;
+    private String username;
+    private Integer roleColor;
+    private Long reputation;
+
+    //Authors of comments and topics become null when their user is deleted
+    static AuthorSummary of(Long id, String username, Integer roleColor, Long reputation)
+    {
+        return id == null ? null : new AuthorSummary(id, username, roleColor, reputation);
+    }
+}
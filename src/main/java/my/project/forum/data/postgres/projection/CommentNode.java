@@ -0,0 +1,29 @@
+package my.project.forum.data.postgres.projection;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comment of a reply tree. replyCount counts all direct replies, replies holds only the ones
+ * returned, so a branch cut by the depth or size limit has fewer replies than replyCount.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentNode {
+
+    @JsonUnwrapped
+    private CommentSummary comment;
+    private long replyCount;
+    private List<CommentNode> replies = new ArrayList<>();
+
+    public CommentNode(CommentSummary comment, long replyCount)
+    {
+        this(comment, replyCount, new ArrayList<>());
+    }
+}
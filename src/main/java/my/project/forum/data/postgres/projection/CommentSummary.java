@@ -0,0 +1,36 @@
+package my.project.forum.data.postgres.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Comment row of list endpoints. The topic and the parent comment are referenced by id only.
+ * likedByMe is false for anonymous requests.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentSummary {
+
+    private Long id;
+    private String text;
+    private LocalDateTime placedAt;
+    private Long topicId;
+    private Long parentId;
+    private AuthorSummary author;
+    private long likeCount;
+    private boolean likedByMe;
+
+    //Used by the JPQL constructor expressions of CommentRepository
+    public CommentSummary(Long id, String text, LocalDateTime placedAt, Long topicId, Long parentId,
+                          Long authorId, String authorName, Integer authorRoleColor, Long authorReputation,
+                          Long likeCount, Long myLikeId)
+    {
+        this(id, text, placedAt, topicId, parentId,
+                AuthorSummary.of(authorId, authorName, authorRoleColor, authorReputation),
+                likeCount, myLikeId != null);
+    }
+}
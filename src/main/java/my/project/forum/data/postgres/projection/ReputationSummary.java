@@ -0,0 +1,28 @@
+package my.project.forum.data.postgres.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of a user's reputation history. The author is the user who gave it, the target is implied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReputationSummary {
+
+    private Long id;
+    private String msg;
+    private LocalDateTime placedAt;
+    private AuthorSummary author;
+
+    //Used by the JPQL constructor expressions of ReputationRepository
+    public ReputationSummary(Long id, String msg, LocalDateTime placedAt,
+                             Long authorId, String authorName, Integer authorRoleColor, Long authorReputation)
+    {
+        this(id, msg, placedAt, AuthorSummary.of(authorId, authorName, authorRoleColor, authorReputation));
+    }
+}
@@ -0,0 +1,38 @@
+package my.project.forum.data.postgres.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Topic or comment matching a search. The snippet is plain text with matched words wrapped in **,
+ * clients escape it before highlighting.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+
+    public static final String TOPIC = "topic";
+    public static final String COMMENT = "comment";
+
+    private String type;
+    private Long id;
+    private Long topicId;
+    private String topicName;
+    private String snippet;
+    private float rank;
+    private LocalDateTime placedAt;
+    private AuthorSummary author;
+
+    //Used by the row mapper of SearchRepository
+    public SearchHit(String type, Long id, Long topicId, String topicName, String snippet, float rank,
+                     LocalDateTime placedAt,
+                     Long authorId, String authorName, Integer authorRoleColor, Long authorReputation)
+    {
+        this(type, id, topicId, topicName, snippet, rank, placedAt,
+                AuthorSummary.of(authorId, authorName, authorRoleColor, authorReputation));
+    }
+}
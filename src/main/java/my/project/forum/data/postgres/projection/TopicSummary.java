@@ -0,0 +1,34 @@
+package my.project.forum.data.postgres.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Topic row of list endpoints, without tags and without the section and user entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicSummary {
+
+    private Long id;
+    private String name;
+    private LocalDateTime placedAt;
+    private Long views;
+    private LocalDateTime lastCommentAt;
+    private Long commentCount;
+    private Long sectionId;
+    private AuthorSummary author;
+
+    //Used by the JPQL constructor expressions of TopicRepository
+    public TopicSummary(Long id, String name, LocalDateTime placedAt, Long views,
+                        LocalDateTime lastCommentAt, Long commentCount, Long sectionId,
+                        Long authorId, String authorName, Integer authorRoleColor, Long authorReputation)
+    {
+        this(id, name, placedAt, views, lastCommentAt, commentCount, sectionId,
+                AuthorSummary.of(authorId, authorName, authorRoleColor, authorReputation));
+    }
+}
@@ -1,14 +1,73 @@
 package my.project.forum.data.postgres.repository;
 
 import my.project.forum.data.postgres.entity.Comment;
+import my.project.forum.data.postgres.projection.CommentSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface CommentRepository extends PagingAndSortingRepository<Comment, Long> {
 
-    Page<Comment> findAllByTopic_Id(Long topic_id, Pageable pageable);
+    //:userId is the current user, null for anonymous requests
+    String SUMMARY = "SELECT new my.project.forum.data.postgres.projection.CommentSummary(" +
+                        "c.id, c.text, c.placedAt, c.topic.id, p.id, u.id, u.username, r.color, u.reputation, " +
+                        "c.likeCount, ml.id) " +
+                     "FROM Comment c LEFT JOIN c.parentComment p LEFT JOIN c.user u LEFT JOIN u.role r " +
+                     "LEFT JOIN Like ml ON ml.comment = c AND ml.user.id = :userId ";
+
+    @Query(value = SUMMARY + "ORDER BY c.placedAt ASC, c.id ASC",
+            countQuery = "SELECT COUNT(c) FROM Comment c")
+    Page<CommentSummary> findSummaries(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = SUMMARY +
+                    "WHERE c.topic.id = :topicId " +
+                    "ORDER BY c.placedAt DESC, c.id DESC",
+            countQuery = "SELECT COUNT(c) FROM Comment c WHERE c.topic.id = :topicId")
+    Page<CommentSummary> findAllByTopic_Id(@Param("topicId") Long topic_id,
+                                          @Param("userId") Long userId,
+                                          Pageable pageable);
+
+    @Query(SUMMARY + "ORDER BY c.placedAt ASC, c.id ASC")
+    List<CommentSummary> findOldest(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SUMMARY +
+            "WHERE c.placedAt >= :placedAt AND (c.placedAt > :placedAt OR c.id > :id) " +
+            "ORDER BY c.placedAt ASC, c.id ASC")
+    List<CommentSummary> findOldestAfter(@Param("placedAt") LocalDateTime placedAt,
+                                         @Param("id") Long id,
+                                         @Param("userId") Long userId,
+                                         Pageable pageable);
+
+    @Query(SUMMARY + "WHERE c.topic.id = :topicId ORDER BY c.placedAt DESC, c.id DESC")
+    List<CommentSummary> findLatestByTopic(@Param("topicId") Long topicId,
+                                           @Param("userId") Long userId,
+                                           Pageable pageable);
+
+    @Query(SUMMARY +
+            "WHERE c.topic.id = :topicId " +
+            "AND c.placedAt <= :placedAt AND (c.placedAt < :placedAt OR c.id < :id) " +
+            "ORDER BY c.placedAt DESC, c.id DESC")
+    List<CommentSummary> findLatestByTopicBefore(@Param("topicId") Long topicId,
+                                                 @Param("placedAt") LocalDateTime placedAt,
+                                                 @Param("id") Long id,
+                                                 @Param("userId") Long userId,
+                                                 Pageable pageable);
+
+    //Everything GET /comments/{id} shows, replies of the parent are left as ids
+    @EntityGraph("Comment.detail")
+    Optional<Comment> findDetailedById(Long id);
 
+    @Query("SELECT c.topic.id FROM Comment c WHERE c.id = :id")
+    Optional<Long> findTopicIdById(@Param("id") Long id);
 }
@@ -0,0 +1,109 @@
+package my.project.forum.data.postgres.repository;
+
+import my.project.forum.data.postgres.projection.CommentNode;
+import my.project.forum.data.postgres.projection.CommentSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reply trees of a topic, read with one recursive query over comment.parent_comment_id.
+ * Comments are taken level by level, oldest first within a level, so a size limit cuts
+ * the deepest and newest replies and never leaves a reply without its parent.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class CommentThreadRepository {
+
+    private static final String ROOTS = "SELECT c.id, 0 AS depth FROM gen.comment c " +
+                                        "WHERE c.topic_id = :topicId AND c.parent_comment_id IS NULL";
+
+    private static final String SUBTREE = "SELECT c.id, 0 AS depth FROM gen.comment c " +
+                                          "WHERE c.id = :commentId AND c.topic_id = :topicId";
+
+    //:userId is the current user, null for anonymous requests
+    private static final String THREAD_QUERY =
+            "WITH RECURSIVE thread AS (" +
+                "%s " +
+                "UNION ALL " +
+                "SELECT c.id, t.depth + 1 FROM gen.comment c JOIN thread t ON c.parent_comment_id = t.id " +
+                "WHERE t.depth < :maxDepth) " +
+            "SELECT c.id, c.text, c.placed_at, c.topic_id, c.parent_comment_id, " +
+                "u.id AS author_id, u.username, r.color, u.reputation, c.like_count, ml.id AS my_like_id, " +
+                "(SELECT count(*) FROM gen.comment ch WHERE ch.parent_comment_id = c.id) AS reply_count " +
+            "FROM thread t JOIN gen.comment c ON c.id = t.id " +
+            "LEFT JOIN gen.user_info u ON u.id = c.user_id " +
+            "LEFT JOIN gen.role r ON r.id = u.role_id " +
+            "LEFT JOIN gen.like ml ON ml.comment_id = c.id AND ml.user_id = :userId " +
+            "ORDER BY t.depth, c.placed_at, c.id " +
+            "LIMIT :limit";
+
+    private static final RowMapper<CommentNode> NODE_MAPPER = (rs, i) -> new CommentNode(
+            new CommentSummary(
+                    rs.getLong("id"),
+                    rs.getString("text"),
+                    rs.getObject("placed_at", LocalDateTime.class),
+                    rs.getLong("topic_id"),
+                    rs.getObject("parent_comment_id", Long.class),
+                    rs.getObject("author_id", Long.class),
+                    rs.getString("username"),
+                    rs.getObject("color", Integer.class),
+                    rs.getObject("reputation", Long.class),
+                    rs.getLong("like_count"),
+                    rs.getObject("my_like_id", Long.class)),
+            rs.getLong("reply_count"));
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CommentThreadRepository(NamedParameterJdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Top-level comments of the topic, or the comment with the given id if it belongs to the topic,
+     * with replies down to maxDepth levels below them and at most limit comments in total.
+     */
+    public List<CommentNode> findThread(Long topicId, Long commentId, int maxDepth, Long userId, int limit)
+    {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("topicId", topicId, Types.BIGINT)
+                .addValue("commentId", commentId, Types.BIGINT)
+                .addValue("maxDepth", maxDepth, Types.INTEGER)
+                .addValue("userId", userId, Types.BIGINT)
+                .addValue("limit", limit, Types.INTEGER);
+
+        String query = String.format(THREAD_QUERY, commentId == null ? ROOTS : SUBTREE);
+        return toTrees(jdbcTemplate.query(query, params, NODE_MAPPER));
+    }
+
+    //Nodes come level by level, so a parent is always met before its replies. Nodes without a returned parent are roots
+    static List<CommentNode> toTrees(List<CommentNode> nodes)
+    {
+        Map<Long, CommentNode> byId = new HashMap<>();
+        List<CommentNode> roots = new ArrayList<>();
+        for (CommentNode node : nodes)
+        {
+            CommentNode parent = byId.get(node.getComment().getParentId());
+            if (parent == null)
+                roots.add(node);
+            else
+                parent.getReplies().add(node);
+
+            byId.put(node.getComment().getId(), node);
+        }
+
+        return roots;
+    }
+}
@@ -1,12 +1,19 @@
 package my.project.forum.data.postgres.repository;
 
 import my.project.forum.data.postgres.entity.Like;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface LikeRepository extends CrudRepository<Like, Long> {
 
+    //Tags of the topics are batch loaded, see Topic.tags
+    @Override
+    @EntityGraph("Like.detail")
+    Iterable<Like> findAll();
+
+    @EntityGraph("Like.detail")
     Iterable<Like> findAllByCommentId(Long comment_id);
-    void deleteByCommentIdAndUserId(Long comment_id, Long user_id);
+    long deleteByCommentIdAndUserId(Long comment_id, Long user_id);
 }
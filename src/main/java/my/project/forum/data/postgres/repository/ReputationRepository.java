@@ -1,12 +1,40 @@
 package my.project.forum.data.postgres.repository;
 
 import my.project.forum.data.postgres.entity.Reputation;
+import my.project.forum.data.postgres.projection.ReputationSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface ReputationRepository extends CrudRepository<Reputation, Long> {
 
-    Iterable<Reputation> findAllByTargetId(Long target_user_id);
+    String SUMMARY = "SELECT new my.project.forum.data.postgres.projection.ReputationSummary(" +
+                        "rp.id, rp.msg, rp.placedAt, u.id, u.username, r.color, u.reputation) " +
+                     "FROM Reputation rp LEFT JOIN rp.user u LEFT JOIN u.role r ";
+
+    @Override
+    @EntityGraph("Reputation.detail")
+    Iterable<Reputation> findAll();
+
+    @Query(SUMMARY + "WHERE rp.target.id = :targetId ORDER BY rp.placedAt DESC, rp.id DESC")
+    List<ReputationSummary> findLatestByTarget(@Param("targetId") Long targetId, Pageable pageable);
+
+    @Query(SUMMARY +
+            "WHERE rp.target.id = :targetId " +
+            "AND rp.placedAt <= :placedAt AND (rp.placedAt < :placedAt OR rp.id < :id) " +
+            "ORDER BY rp.placedAt DESC, rp.id DESC")
+    List<ReputationSummary> findLatestByTargetBefore(@Param("targetId") Long targetId,
+                                                     @Param("placedAt") LocalDateTime placedAt,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
 
 }
@@ -0,0 +1,96 @@
+package my.project.forum.data.postgres.repository;
+
+import my.project.forum.data.postgres.projection.SearchHit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Full-text search over topic.search_vector and comment.search_vector, both generated columns
+ * with GIN indexes. Hits are ordered by rank and keyset paged by (rank, type, id).
+ */
+@Repository
+@Transactional(readOnly = true)
+public class SearchRepository {
+
+    //Null filters and a null :afterRank (the first page) match everything
+    private static final String SEARCH_QUERY =
+            "WITH q AS (SELECT websearch_to_tsquery('english', :query) AS query), " +
+            "hits AS (" +
+                "SELECT 'topic' AS type, t.id, t.id AS topic_id, t.name AS topic_name, t.name AS text, " +
+                    "t.placed_at, t.user_id, ts_rank(t.search_vector, q.query) AS rank " +
+                "FROM gen.topic t, q " +
+                "WHERE t.search_vector @@ q.query " +
+                    "AND (:sectionId IS NULL OR t.section_id = :sectionId) " +
+                    "AND (:tagId IS NULL OR EXISTS (SELECT 1 FROM gen.topic_tag tt " +
+                                                    "WHERE tt.topic_id = t.id AND tt.tag_id = :tagId)) " +
+                    "AND (:authorId IS NULL OR t.user_id = :authorId) " +
+                "UNION ALL " +
+                "SELECT 'comment', c.id, t.id, t.name, c.text, " +
+                    "c.placed_at, c.user_id, ts_rank(c.search_vector, q.query) " +
+                "FROM gen.comment c JOIN gen.topic t ON t.id = c.topic_id, q " +
+                "WHERE c.search_vector @@ q.query " +
+                    "AND (:sectionId IS NULL OR t.section_id = :sectionId) " +
+                    "AND (:tagId IS NULL OR EXISTS (SELECT 1 FROM gen.topic_tag tt " +
+                                                    "WHERE tt.topic_id = t.id AND tt.tag_id = :tagId)) " +
+                    "AND (:authorId IS NULL OR c.user_id = :authorId)), " +
+            "page AS (" +
+                "SELECT * FROM hits " +
+                "WHERE :afterRank IS NULL OR (rank, type, id) < (:afterRank, :afterType, :afterId) " +
+                "ORDER BY rank DESC, type DESC, id DESC " +
+                "LIMIT :limit) " +
+            //Snippets are built for the returned rows only
+            "SELECT p.type, p.id, p.topic_id, p.topic_name, p.rank, p.placed_at, " +
+                "ts_headline('english', p.text, q.query, " +
+                    "'StartSel=**, StopSel=**, MaxWords=30, MinWords=10, MaxFragments=2') AS snippet, " +
+                "u.id AS author_id, u.username, r.color, u.reputation " +
+            "FROM page p CROSS JOIN q " +
+            "LEFT JOIN gen.user_info u ON u.id = p.user_id " +
+            "LEFT JOIN gen.role r ON r.id = u.role_id " +
+            "ORDER BY p.rank DESC, p.type DESC, p.id DESC";
+
+    private static final RowMapper<SearchHit> HIT_MAPPER = (rs, i) -> new SearchHit(
+            rs.getString("type"),
+            rs.getLong("id"),
+            rs.getLong("topic_id"),
+            rs.getString("topic_name"),
+            rs.getString("snippet"),
+            rs.getFloat("rank"),
+            rs.getObject("placed_at", LocalDateTime.class),
+            rs.getObject("author_id", Long.class),
+            rs.getString("username"),
+            rs.getObject("color", Integer.class),
+            rs.getObject("reputation", Long.class));
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SearchRepository(NamedParameterJdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    //The after* values are the cursor of the previous page, all null for the first one
+    public List<SearchHit> search(String query, Long sectionId, Long tagId, Long authorId,
+                                  Float afterRank, String afterType, Long afterId, int limit)
+    {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query, Types.VARCHAR)
+                .addValue("sectionId", sectionId, Types.BIGINT)
+                .addValue("tagId", tagId, Types.BIGINT)
+                .addValue("authorId", authorId, Types.BIGINT)
+                .addValue("afterRank", afterRank, Types.REAL)
+                .addValue("afterType", afterType, Types.VARCHAR)
+                .addValue("afterId", afterId, Types.BIGINT)
+                .addValue("limit", limit, Types.INTEGER);
+
+        return jdbcTemplate.query(SEARCH_QUERY, params, HIT_MAPPER);
+    }
+}
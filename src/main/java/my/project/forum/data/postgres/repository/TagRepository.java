@@ -1,14 +1,20 @@
 package my.project.forum.data.postgres.repository;
 
 import my.project.forum.data.postgres.entity.Tag;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface TagRepository extends CrudRepository<Tag, Long> {
 
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+                 @QueryHint(name = "org.hibernate.cacheRegion", value = "name-lookups")})
     Optional<Tag> findByName(String name);
 
 }
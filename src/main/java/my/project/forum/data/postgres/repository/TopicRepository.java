@@ -1,31 +1,77 @@
 package my.project.forum.data.postgres.repository;
 
 import my.project.forum.data.postgres.entity.Topic;
+import my.project.forum.data.postgres.projection.TopicSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface TopicRepository extends PagingAndSortingRepository<Topic, Long> {
 
-    @Query(value = "SELECT res.id, res.name, res.placed_at, res.views, res.section_id, res.user_id " +
-                    "FROM ( " +
-                        "SELECT t.id, t.name, t.placed_at, t.views, t.section_id, t.user_id, c.placed_at AS last_comment_date, " +
-                        "row_number() over (partition by t.id order by c.placed_at desc) AS num " +
-                        "FROM gen.topic t " +
-                        "LEFT JOIN gen.comment c ON t.id = c.topic_id " +
-                        "WHERE t.section_id = :sectionId " +
-                    ") AS res " +
-                    "WHERE res.num = 1 " +
-                    "ORDER BY " +
-                    "CASE WHEN res.last_comment_date IS NULL THEN 1 ELSE 0 END, " +
-                    "res.last_comment_date DESC",
-            countQuery = "SELECT COUNT(*) " +
-                            "FROM gen.topic t " +
-                            "WHERE t.section_id = :sectionId",
-            nativeQuery = true)
-    Page<Topic> findAllBySection_Id(@Param("sectionId") Long section_id, Pageable pageable);
+    String SUMMARY = "SELECT new my.project.forum.data.postgres.projection.TopicSummary(" +
+                        "t.id, t.name, t.placedAt, t.views, t.lastCommentAt, t.commentCount, t.section.id, " +
+                        "u.id, u.username, r.color, u.reputation) " +
+                     "FROM Topic t LEFT JOIN t.user u LEFT JOIN u.role r ";
+
+    @Query(value = SUMMARY + "ORDER BY t.placedAt DESC, t.id DESC",
+            countQuery = "SELECT COUNT(t) FROM Topic t")
+    Page<TopicSummary> findSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY +
+                    "WHERE t.section.id = :sectionId " +
+                    "ORDER BY t.lastCommentAt DESC NULLS LAST, t.id DESC",
+            countQuery = "SELECT COUNT(t) FROM Topic t WHERE t.section.id = :sectionId")
+    Page<TopicSummary> findAllBySection_Id(@Param("sectionId") Long section_id, Pageable pageable);
+
+    //Bulk updates are JPQL, a native one would evict every second-level cache region
+    @Modifying
+    @Transactional
+    @Query("UPDATE Topic t " +
+            "SET t.commentCount = t.commentCount + 1, " +
+            "t.lastCommentAt = CASE WHEN t.lastCommentAt IS NULL OR t.lastCommentAt < :placedAt " +
+                                "THEN :placedAt ELSE t.lastCommentAt END " +
+            "WHERE t.id = :id")
+    int registerComment(@Param("id") Long id, @Param("placedAt") LocalDateTime placedAt);
+
+    //Deleting a comment cascades to its replies, so the stats are recounted instead of decremented
+    @Modifying
+    @Transactional
+    @Query("UPDATE Topic t " +
+            "SET t.commentCount = (SELECT COUNT(c) FROM Comment c WHERE c.topic.id = :id), " +
+            "t.lastCommentAt = (SELECT MAX(c.placedAt) FROM Comment c WHERE c.topic.id = :id) " +
+            "WHERE t.id = :id")
+    int recountComments(@Param("id") Long id);
+
+    @Query(SUMMARY + "ORDER BY t.placedAt DESC, t.id DESC")
+    List<TopicSummary> findLatest(Pageable pageable);
+
+    @Query(SUMMARY +
+            "WHERE t.placedAt <= :placedAt AND (t.placedAt < :placedAt OR t.id < :id) " +
+            "ORDER BY t.placedAt DESC, t.id DESC")
+    List<TopicSummary> findLatestBefore(@Param("placedAt") LocalDateTime placedAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    @Query(SUMMARY + "WHERE t.id IN :ids ORDER BY t.id DESC")
+    List<TopicSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    //Everything GET /topics/{id} shows
+    @EntityGraph("Topic.detail")
+    Optional<Topic> findDetailedById(Long id);
+
+    @Query("SELECT t.section.id FROM Topic t WHERE t.id = :id")
+    Optional<Long> findSectionIdById(@Param("id") Long id);
 }
@@ -2,14 +2,40 @@ package my.project.forum.data.postgres.repository;
 
 import my.project.forum.data.postgres.entity.Role;
 import my.project.forum.data.postgres.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface UserRepository extends CrudRepository<User, Long> {
 
+    //Users are always loaded with their role, it gives the authorities
+    @Override
+    @EntityGraph("User.detail")
+    Optional<User> findById(Long id);
+
+    @Override
+    @EntityGraph("User.detail")
+    Iterable<User> findAll();
+
+    @EntityGraph("User.detail")
     Optional<User> findByUsername(String username);
     Optional<User> findByRole(Role role);
+
+    //Empty both for a missing user and a user without avatar
+    @Query("SELECT u.avatarHash FROM User u WHERE u.id = :id")
+    Optional<String> findAvatarHashById(@Param("id") Long id);
+
+    //Returns 0 when the user doesn't exist
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.reputation = u.reputation + :delta WHERE u.id = :id")
+    int addReputation(@Param("id") Long id, @Param("delta") long delta);
 }
@@ -8,6 +8,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import javax.servlet.http.HttpServletResponse;
@@ -44,6 +45,8 @@ public class CustomGlobalExceptionHandler extends ResponseEntityExceptionHandler
 
     @ExceptionHandler(ItemNotFoundException.class)
     public void itemHandleNotFound(HttpServletResponse response) throws IOException {
+        //List endpoints set their ETag before looking the parent up, a missing item mustn't be revalidated
+        response.reset();
         response.sendError(HttpStatus.NOT_FOUND.value());
     }
 
@@ -56,4 +59,30 @@ public class CustomGlobalExceptionHandler extends ResponseEntityExceptionHandler
     public void actionHandleNotAllowed(HttpServletResponse response) throws IOException {
         response.sendError(HttpStatus.FORBIDDEN.value());
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public void cursorHandleInvalid(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @ExceptionHandler(InvalidTagExpressionException.class)
+    public void tagExpressionHandleInvalid(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @ExceptionHandler(InvalidImageException.class)
+    public void imageHandleInvalid(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public void rateHandleLimitExceeded(RateLimitExceededException ex, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter()));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public void uploadHandleTooLarge(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+    }
 }
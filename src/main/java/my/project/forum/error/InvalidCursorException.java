@@ -0,0 +1,15 @@
+package my.project.forum.error;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException()
+    {
+
+    }
+
+    public InvalidCursorException(String desc)
+    {
+        super(desc);
+    }
+
+}
@@ -0,0 +1,15 @@
+package my.project.forum.error;
+
+public class InvalidImageException extends RuntimeException {
+
+    public InvalidImageException()
+    {
+
+    }
+
+    public InvalidImageException(String desc)
+    {
+        super(desc);
+    }
+
+}
@@ -0,0 +1,15 @@
+package my.project.forum.error;
+
+public class InvalidTagExpressionException extends RuntimeException {
+
+    public InvalidTagExpressionException()
+    {
+
+    }
+
+    public InvalidTagExpressionException(String desc)
+    {
+        super(desc);
+    }
+
+}
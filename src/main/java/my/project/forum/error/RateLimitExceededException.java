@@ -0,0 +1,19 @@
+package my.project.forum.error;
+
+public class RateLimitExceededException extends RuntimeException {
+
+    //Seconds until the request would be allowed
+    private final long retryAfter;
+
+    public RateLimitExceededException(long retryAfter)
+    {
+        super("Rate limit exceeded, retry after " + retryAfter + " s");
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter()
+    {
+        return retryAfter;
+    }
+
+}
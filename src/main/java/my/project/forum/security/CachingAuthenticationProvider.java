@@ -0,0 +1,60 @@
+package my.project.forum.security;
+
+import my.project.forum.data.postgres.entity.User;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Username/password authentication which runs the delegate (and so BCrypt) only for
+ * credentials not verified recently.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private AuthenticationProvider delegate;
+    private UserRepositoryUserDetailsService userDetailsService;
+    private AccountStatusUserDetailsChecker statusChecker = new AccountStatusUserDetailsChecker();
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate,
+                                         UserRepositoryUserDetailsService userDetailsService)
+    {
+        this.delegate = delegate;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException
+    {
+        String username = authentication.getName();
+        String password = authentication.getCredentials() == null ? null : authentication.getCredentials().toString();
+
+        if (password != null)
+        {
+            User verified = userDetailsService.findVerified(username, password);
+            if (verified != null)
+            {
+                statusChecker.check(verified);
+
+                UsernamePasswordAuthenticationToken result = new UsernamePasswordAuthenticationToken(
+                        verified, password, verified.getAuthorities());
+                result.setDetails(authentication.getDetails());
+                return result;
+            }
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+
+        if (password != null && result != null && result.getPrincipal() instanceof User)
+            userDetailsService.markVerified((User) result.getPrincipal(), password);
+
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication)
+    {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
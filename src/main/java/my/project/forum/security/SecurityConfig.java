@@ -3,11 +3,13 @@ package my.project.forum.security;
 import my.project.forum.service.CustomAuthenticationFailureHandler;
 import my.project.forum.service.CustomBasicAuthenticationEntryPoint;
 import my.project.forum.service.NoRedirectStrategy;
+import my.project.forum.service.Properties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -44,10 +46,21 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private UserRepositoryUserDetailsService userDetailsService;
 
+    @Autowired
+    private Properties props;
+
+    @Bean
+    CachingAuthenticationProvider authenticationProvider() {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider();
+        daoProvider.setUserDetailsService(userDetailsService);
+        daoProvider.setPasswordEncoder(passwordEncoder());
+        return new CachingAuthenticationProvider(daoProvider, userDetailsService);
+    }
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception
     {
-        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder());
+        auth.authenticationProvider(authenticationProvider());
     }
 
     @Override
@@ -56,6 +69,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http.authorizeRequests()
                 //USER
                 .antMatchers(HttpMethod.POST,"/user/*/lock").hasRole("ADMIN")
+                .antMatchers(HttpMethod.POST,"/user/*/avatar").authenticated()
                 .antMatchers(HttpMethod.DELETE, "/user/*").authenticated()
                 .antMatchers(HttpMethod.PATCH, "/user/*").authenticated()
 
@@ -95,6 +109,13 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 //LOGS
                 .antMatchers("/log/**").hasRole("ADMIN")
 
+                //EXPORT
+                .antMatchers("/export/**").hasRole("ADMIN")
+
+                //ACTUATOR
+                .antMatchers("/actuator/health").permitAll()
+                .antMatchers("/actuator/**").hasRole("ADMIN")
+
                 .antMatchers("/", "/**").permitAll()
                 .and()
                 .exceptionHandling()
@@ -104,7 +125,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                     .failureHandler(failureHandler())
                 .and().logout()
                     .logoutSuccessHandler(new HttpStatusReturningLogoutSuccessHandler(HttpStatus.NO_CONTENT))
-                .and().rememberMe().key("uniqueAndSecret")
+                .and().rememberMe().key("uniqueAndSecret").userDetailsService(userDetailsService)
                 .and().csrf().disable();
+
+        //Credentials on every request, off unless API clients need them
+        if (props.isHttpBasic())
+            http.httpBasic()
+                    .authenticationEntryPoint(authenticationEntryPoint);
     }
 }
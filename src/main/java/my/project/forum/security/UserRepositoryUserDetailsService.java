@@ -1,34 +1,149 @@
 package my.project.forum.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import my.project.forum.data.postgres.entity.Role;
 import my.project.forum.data.postgres.entity.User;
 import my.project.forum.data.postgres.repository.UserRepository;
+import my.project.forum.service.Properties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Loads users for authentication through a bounded TTL cache. Along with a user the cache
+ * keeps an HMAC of the last password verified for it, so CachingAuthenticationProvider can
+ * skip BCrypt for repeated logins. Changes to a user or a role must evict it explicitly.
+ * Every caller gets its own copy of the cached user, principals of concurrent requests are never shared.
+ */
 @Service
 public class UserRepositoryUserDetailsService implements UserDetailsService {
 
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
     private UserRepository UserRepo;
+    private Cache<String, CachedUser> users;
+    private SecretKey macKey;
 
     @Autowired
-    UserRepositoryUserDetailsService(UserRepository UserRepo)
+    UserRepositoryUserDetailsService(UserRepository UserRepo, Properties props, MeterRegistry registry)
     {
         this.UserRepo = UserRepo;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(props.getAuthCacheSize())
+                .expireAfterWrite(props.getAuthCacheTtl(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        //A new key on every start, digests never leave the process
+        try {
+            this.macKey = KeyGenerator.getInstance(MAC_ALGORITHM).generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+
+        CaffeineCacheMetrics.monitor(registry, users, "auth.users");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
+        CachedUser cached = users.getIfPresent(username);
+        if (cached != null)
+            return copyOf(cached.user);
+
         Optional<User>  user = UserRepo.findByUsername(username);
 
         if (user.isPresent())
-            return user.get();
+        {
+            users.put(username, new CachedUser(user.get()));
+            return copyOf(user.get());
+        }
 
         throw new UsernameNotFoundException("User " + username + " not found");
     }
+
+    //Returns the cached user if the password is the one verified for it last time
+    public User findVerified(String username, String password)
+    {
+        CachedUser cached = users.getIfPresent(username);
+        if (cached == null || cached.passwordDigest == null)
+            return null;
+
+        return MessageDigest.isEqual(cached.passwordDigest, digest(username, password)) ? copyOf(cached.user) : null;
+    }
+
+    //Ignored if the user was evicted or reloaded with another password hash since it was verified
+    public void markVerified(User user, String password)
+    {
+        CachedUser cached = users.getIfPresent(user.getUsername());
+        if (cached != null && cached.user.getPassword().equals(user.getPassword()))
+            cached.passwordDigest = digest(user.getUsername(), password);
+    }
+
+    public void evict(Long userId)
+    {
+        users.asMap().values().removeIf(cached -> userId.equals(cached.user.getId()));
+    }
+
+    public void evictAll()
+    {
+        users.invalidateAll();
+    }
+
+    private static User copyOf(User user)
+    {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setPassword(user.getPassword());
+        copy.setInformation(user.getInformation());
+        copy.setEmail(user.getEmail());
+        copy.setRegistrationDate(user.getRegistrationDate());
+        copy.setAvatarHash(user.getAvatarHash());
+        copy.setReputation(user.getReputation());
+        copy.setNonLocked(user.isNonLocked());
+
+        Role role = user.getRole();
+        if (role != null)
+            copy.setRole(new Role(role.getId(), role.getName(), role.getColor()));
+        return copy;
+    }
+
+    private byte[] digest(String username, String password)
+    {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedUser {
+
+        private final User user;
+        private volatile byte[] passwordDigest;
+
+        CachedUser(User user)
+        {
+            this.user = user;
+        }
+    }
 }
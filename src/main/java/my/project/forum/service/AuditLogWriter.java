@@ -0,0 +1,194 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.forum.data.mongodb.entity.Log;
+import my.project.forum.data.mongodb.repository.LogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes audit logs to MongoDB from a background thread. Request threads only put the log
+ * into a bounded queue, the writer inserts them in batches of forum.auditBatchSize or
+ * whatever has come within forum.auditFlushInterval.
+ */
+@Component
+public class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        //Logs that don't fit into the queue are lost
+        DROP,
+        //Request threads wait up to forum.auditBlockTimeout for a free slot
+        BLOCK,
+        //Over half of the capacity only every forum.auditSampleRate-th log is queued
+        SAMPLE
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private final BlockingQueue<Log> queue;
+    private final AtomicLong sampleSequence = new AtomicLong();
+    private LogRepository logRepo;
+    private Properties props;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter dropped;
+    private Counter sampledOut;
+    private Counter failed;
+    private Counter written;
+    private DistributionSummary batchSize;
+
+    @Autowired
+    public AuditLogWriter(LogRepository logRepo, Properties props, MeterRegistry registry)
+    {
+        this.logRepo = logRepo;
+        this.props = props;
+        this.queue = new ArrayBlockingQueue<>(props.getAuditQueueCapacity());
+
+        Gauge.builder("forum.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Audit logs waiting to be written")
+                .register(registry);
+        dropped = droppedCounter(registry, "overflow");
+        sampledOut = droppedCounter(registry, "sampled");
+        failed = droppedCounter(registry, "write_failed");
+        written = Counter.builder("forum.audit.written")
+                .description("Audit logs written to MongoDB")
+                .register(registry);
+        batchSize = DistributionSummary.builder("forum.audit.batch.size")
+                .description("Audit logs per insert")
+                .register(registry);
+    }
+
+    private static Counter droppedCounter(MeterRegistry registry, String reason)
+    {
+        return Counter.builder("forum.audit.dropped")
+                .description("Audit logs which were never written")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void submit(Log entry)
+    {
+        switch (props.getAuditOverflowPolicy())
+        {
+            case BLOCK:
+                try {
+                    if (!queue.offer(entry, props.getAuditBlockTimeout(), TimeUnit.MILLISECONDS))
+                        dropped.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+                break;
+
+            case SAMPLE:
+                if (queue.size() * 2 >= props.getAuditQueueCapacity()
+                        && sampleSequence.incrementAndGet() % props.getAuditSampleRate() != 0)
+                {
+                    sampledOut.increment();
+                    break;
+                }
+                if (!queue.offer(entry))
+                    dropped.increment();
+                break;
+
+            default:
+                if (!queue.offer(entry))
+                    dropped.increment();
+        }
+    }
+
+    private void writeLoop()
+    {
+        List<Log> batch = new ArrayList<>(props.getAuditBatchSize());
+
+        while (running || !queue.isEmpty())
+        {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+                running = false;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    //Waits for the first log, then for the batch to fill up until the flush interval ends
+    private void collect(List<Log> batch) throws InterruptedException
+    {
+        int size = props.getAuditBatchSize();
+        long interval = props.getAuditFlushInterval();
+
+        Log first = queue.poll(interval, TimeUnit.MILLISECONDS);
+        if (first == null)
+            return;
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval);
+        while (batch.size() < size)
+        {
+            queue.drainTo(batch, size - batch.size());
+            long wait = deadline - System.nanoTime();
+            if (batch.size() >= size || wait <= 0)
+                break;
+
+            Log next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null)
+                break;
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Log> batch)
+    {
+        if (batch.isEmpty())
+            return;
+
+        try {
+            logRepo.insert(batch);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("Failed to write {} audit logs", batch.size(), e);
+        }
+
+        batchSize.record(batch.size());
+    }
+
+    //The writer isn't interrupted, so a running insert completes. It stops once the queue is empty
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException
+    {
+        running = false;
+        writer.join(props.getAuditFlushInterval() + props.getAuditShutdownTimeout());
+
+        if (!queue.isEmpty())
+            log.warn("{} audit logs weren't written before shutdown", queue.size());
+    }
+}
@@ -0,0 +1,77 @@
+package my.project.forum.service;
+
+import my.project.forum.error.InvalidImageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-time move of avatars from user_info.avatar to AvatarStore.
+ * Enabled with forum.backfillAvatars=true.
+ */
+@Component
+@ConditionalOnProperty(name = "forum.backfillAvatars", havingValue = "true")
+public class AvatarBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarBackfill.class);
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String SELECT_QUERY = "SELECT id, avatar FROM gen.user_info " +
+                                               "WHERE avatar IS NOT NULL AND id > ? " +
+                                               "ORDER BY id LIMIT " + BATCH_SIZE;
+
+    private static final String UPDATE_QUERY = "UPDATE gen.user_info SET avatar_hash = ?, avatar = NULL WHERE id = ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private AvatarStore avatarStore;
+
+    @Autowired
+    public AvatarBackfill(JdbcTemplate jdbcTemplate, AvatarStore avatarStore)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.avatarStore = avatarStore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException
+    {
+        long lastId = 0;
+        int moved = 0;
+        int dropped = 0;
+
+        //Only a batch of avatars is held in memory at a time
+        List<Map<String, Object>> rows;
+        while (!(rows = jdbcTemplate.queryForList(SELECT_QUERY, lastId)).isEmpty())
+        {
+            for (Map<String, Object> row : rows)
+            {
+                Long id = ((Number) row.get("id")).longValue();
+                String hash;
+                try {
+                    hash = avatarStore.store(new ByteArrayInputStream((byte[]) row.get("avatar")));
+                    moved++;
+                } catch (InvalidImageException e) {
+                    log.warn("Avatar of user {} isn't a readable image and is dropped", id);
+                    hash = null;
+                    dropped++;
+                }
+
+                jdbcTemplate.update(UPDATE_QUERY, hash, id);
+                lastId = id;
+            }
+        }
+
+        log.info("Avatars moved to the store: {}, dropped: {}", moved, dropped);
+    }
+}
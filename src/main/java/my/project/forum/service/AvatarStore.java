@@ -0,0 +1,229 @@
+package my.project.forum.service;
+
+import my.project.forum.error.InvalidImageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Content-addressed avatar files on local disk. Uploads are re-encoded as PNG, so only
+ * decoded pixels are ever stored, and the file is named by the SHA-256 of the result.
+ * Thumbnails are rendered by a small worker pool after the upload, or on the first
+ * request if the pool was busy.
+ */
+@Component
+public class AvatarStore {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarStore.class);
+
+    private static final String FORMAT = "png";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final int maxSize;
+    private final long maxPixels;
+    private final List<Integer> thumbnailSizes;
+    private final ThreadPoolExecutor thumbnailPool;
+
+    @Autowired
+    public AvatarStore(Properties props) throws IOException
+    {
+        this.root = Paths.get(props.getAvatarDir()).toAbsolutePath();
+        this.maxSize = props.getAvatarMaxSize();
+        this.maxPixels = props.getAvatarMaxPixels();
+        this.thumbnailSizes = props.getAvatarThumbnailSizes().stream().sorted().collect(Collectors.toList());
+
+        Files.createDirectories(root);
+
+        //Tasks over the queue capacity are dropped, resolve() renders missing thumbnails itself
+        AtomicInteger threads = new AtomicInteger();
+        this.thumbnailPool = new ThreadPoolExecutor(props.getAvatarWorkers(), props.getAvatarWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(props.getAvatarQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "avatar-thumbnail-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    //Returns the hash the avatar is stored under
+    public String store(InputStream in) throws IOException
+    {
+        BufferedImage image = decode(in);
+        String hash = write(fit(image, maxSize), null);
+        thumbnailPool.execute(() -> renderThumbnails(hash));
+
+        return hash;
+    }
+
+    //Original for a null size, otherwise the smallest thumbnail not smaller than the size
+    public Path resolve(String hash, Integer size) throws IOException
+    {
+        if (!HASH.matcher(hash).matches())
+            throw new IllegalArgumentException("Invalid avatar hash " + hash);
+
+        Integer thumbnailSize = size == null ? null : thumbnailSizes.stream()
+                .filter(s -> s >= size)
+                .findFirst()
+                .orElse(null);
+
+        if (thumbnailSize == null)
+            return pathOf(hash, null);
+
+        Path thumbnail = pathOf(hash, thumbnailSize);
+        if (Files.notExists(thumbnail))
+            renderThumbnail(hash, thumbnailSize);
+
+        return thumbnail;
+    }
+
+    //The size is read from the header first, a small file may declare a huge image
+    private BufferedImage decode(InputStream in) throws IOException
+    {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext())
+                throw new InvalidImageException("Unsupported image format");
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels)
+                    throw new InvalidImageException("Image has " + pixels + " pixels, at most " + maxPixels + " are allowed");
+
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void renderThumbnails(String hash)
+    {
+        try {
+            for (Integer size : thumbnailSizes)
+                if (Files.notExists(pathOf(hash, size)))
+                    renderThumbnail(hash, size);
+        } catch (IOException e) {
+            log.error("Failed to render thumbnails of avatar {}", hash, e);
+        }
+    }
+
+    private void renderThumbnail(String hash, int size) throws IOException
+    {
+        BufferedImage original = ImageIO.read(pathOf(hash, null).toFile());
+        if (original == null)
+            throw new FileNotFoundException("Avatar " + hash + " doesn't exist");
+
+        write(fit(original, size), pathOf(hash, size));
+    }
+
+    //Writes through a temp file, so readers never see a partial image.
+    //Returns the digest of the written content, which names the file if no target is given
+    private String write(BufferedImage image, Path target) throws IOException
+    {
+        Path tmp = Files.createTempFile(root, "avatar", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), digest)) {
+                ImageIO.write(image, FORMAT, out);
+            }
+
+            String hash = toHex(digest.digest());
+            if (target == null)
+                target = pathOf(hash, null);
+
+            //Same content means same file, whoever moved it first
+            Files.createDirectories(target.getParent());
+            if (Files.notExists(target))
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+            return hash;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Path pathOf(String hash, Integer size)
+    {
+        String name = size == null ? hash + "." + FORMAT : hash + "_" + size + "." + FORMAT;
+        return root.resolve(hash.substring(0, 2)).resolve(name);
+    }
+
+    private static BufferedImage fit(BufferedImage image, int size)
+    {
+        if (image.getWidth() <= size && image.getHeight() <= size && image.getType() == BufferedImage.TYPE_INT_ARGB)
+            return image;
+
+        double scale = Math.min(1.0, Math.min((double) size / image.getWidth(), (double) size / image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        return scaled;
+    }
+
+    private static MessageDigest sha256()
+    {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        thumbnailPool.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.forum.data.postgres.projection.CommentNode;
+import my.project.forum.data.postgres.projection.CommentSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.util.Map;
+
+/**
+ * Maintains comment.like_count. Likes of a hot comment are summed in memory and written
+ * as one increment per comment, so concurrent likes don't queue on the comment row lock.
+ */
+@Component
+public class CommentLikeCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentLikeCounter.class);
+
+    private static final String FLUSH_QUERY = "UPDATE gen.comment c SET like_count = c.like_count + d.delta " +
+                                              "FROM (SELECT unnest(?) AS id, unnest(?) AS delta) AS d " +
+                                              "WHERE c.id = d.id";
+
+    private final StripedCounter likes = new StripedCounter(Runtime.getRuntime().availableProcessors());
+    private JdbcTemplate jdbcTemplate;
+    private Counter flushedLikes;
+
+    @Autowired
+    public CommentLikeCounter(JdbcTemplate jdbcTemplate, MeterRegistry registry)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+
+        Gauge.builder("forum.comment.likes.pending", likes, StripedCounter::pendingTotal)
+                .description("Like count changes not yet written to the database")
+                .register(registry);
+        Gauge.builder("forum.comment.likes.pending.comments", likes, StripedCounter::pendingIds)
+                .description("Comments with unwritten like count changes")
+                .register(registry);
+        flushedLikes = Counter.builder("forum.comment.likes.flushed")
+                .description("Like count changes written to the database")
+                .register(registry);
+    }
+
+    //Inside a transaction the change is counted only once it commits
+    public void add(Long commentId, long delta)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            likes.add(commentId, delta);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit()
+            {
+                likes.add(commentId, delta);
+            }
+        });
+    }
+
+    //Adds changes which are not flushed yet to like counts read from the database
+    public void applyPending(Iterable<CommentSummary> comments)
+    {
+        for (CommentSummary comment : comments)
+            comment.setLikeCount(comment.getLikeCount() + likes.pending(comment.getId()));
+    }
+
+    public void applyPendingToThread(Iterable<CommentNode> nodes)
+    {
+        for (CommentNode node : nodes)
+        {
+            CommentSummary comment = node.getComment();
+            comment.setLikeCount(comment.getLikeCount() + likes.pending(comment.getId()));
+            applyPendingToThread(node.getReplies());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${forum.likesFlushInterval}")
+    public void flush()
+    {
+        Map<Long, Long> deltas = likes.drain();
+        if (deltas.isEmpty())
+            return;
+
+        Long[] ids = deltas.keySet().toArray(new Long[0]);
+        Long[] increments = deltas.values().toArray(new Long[0]);
+
+        try {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(FLUSH_QUERY);
+                ps.setArray(1, con.createArrayOf("bigint", ids));
+                ps.setArray(2, con.createArrayOf("bigint", increments));
+                return ps;
+            });
+        } catch (RuntimeException e) {
+            likes.restore(deltas);
+            log.error("Failed to flush like counts of {} comments", deltas.size(), e);
+            return;
+        }
+
+        flushedLikes.increment(deltas.values().stream().mapToLong(Math::abs).sum());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown()
+    {
+        flush();
+    }
+}
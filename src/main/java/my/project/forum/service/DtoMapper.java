@@ -0,0 +1,96 @@
+package my.project.forum.service;
+
+import my.project.forum.data.postgres.dto.*;
+import my.project.forum.data.postgres.entity.*;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps request DTOs to entities. Type maps are built and validated once on startup,
+ * so a DTO which gets out of sync with its entity fails the context instead of a request.
+ */
+@Component
+public class DtoMapper {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private final TypeMap<SectionDto, Section> sectionMap;
+    private final TypeMap<UserDto, User> userMap;
+    private final TypeMap<TopicDto, Topic> topicMap;
+    private final TypeMap<CommentDto, Comment> commentMap;
+    private final TypeMap<LikeDto, Like> likeMap;
+    private final TypeMap<ReputationDto, Reputation> repMap;
+
+    public DtoMapper()
+    {
+        //Server side properties are skipped, nested maps must be created before the maps that use them
+        sectionMap = modelMapper.createTypeMap(SectionDto.class, Section.class)
+                .addMappings(m -> m.skip(Section::setPlacedAt));
+
+        userMap = modelMapper.createTypeMap(UserDto.class, User.class)
+                .addMappings(m -> {
+                    m.skip(User::setRegistrationDate);
+                    m.skip(User::setAvatarHash);
+                    m.skip(User::setReputation);
+                    m.skip(User::setNonLocked);
+                });
+
+        topicMap = modelMapper.createTypeMap(TopicDto.class, Topic.class)
+                .addMappings(m -> {
+                    m.skip(Topic::setPlacedAt);
+                    m.skip(Topic::setViews);
+                    m.skip(Topic::setLastCommentAt);
+                    m.skip(Topic::setCommentCount);
+                    m.skip(Topic::setUser);
+                });
+
+        commentMap = modelMapper.createTypeMap(CommentDto.class, Comment.class)
+                .addMappings(m -> {
+                    m.skip(Comment::setPlacedAt);
+                    m.skip(Comment::setLikeCount);
+                    m.skip(Comment::setUser);
+                });
+
+        likeMap = modelMapper.createTypeMap(LikeDto.class, Like.class)
+                .addMappings(m -> m.skip(Like::setUser));
+
+        repMap = modelMapper.createTypeMap(ReputationDto.class, Reputation.class)
+                .addMappings(m -> {
+                    m.skip(Reputation::setPlacedAt);
+                    m.skip(Reputation::setUser);
+                });
+
+        modelMapper.validate();
+    }
+
+    public Section toSection(SectionDto sectionDto)
+    {
+        return sectionMap.map(sectionDto);
+    }
+
+    public User toUser(UserDto userDto)
+    {
+        return userMap.map(userDto);
+    }
+
+    public Topic toTopic(TopicDto topicDto)
+    {
+        return topicMap.map(topicDto);
+    }
+
+    public Comment toComment(CommentDto commentDto)
+    {
+        return commentMap.map(commentDto);
+    }
+
+    public Like toLike(LikeDto likeDto)
+    {
+        return likeMap.map(likeDto);
+    }
+
+    public Reputation toReputation(ReputationDto repDto)
+    {
+        return repMap.map(repDto);
+    }
+}
@@ -0,0 +1,166 @@
+package my.project.forum.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Writes whole tables as newline delimited JSON, one object per row. Rows are read through
+ * a server-side cursor in batches of forum.exportFetchSize and written as they arrive,
+ * so memory use doesn't depend on the size of the table.
+ */
+@Component
+public class ForumExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ForumExporter.class);
+
+    //Without an ObjectMapper as codec, which would flush the response after every value
+    private static final JsonFactory JSON = new JsonFactory();
+
+    //Password hashes and avatar images are left out
+    public enum Table {
+        SECTIONS("SELECT id, name, placed_at FROM gen.section ORDER BY id"),
+        TAGS("SELECT id, name FROM gen.tag ORDER BY id"),
+        TOPICS("SELECT t.id, t.name, t.placed_at, t.views, t.section_id, t.user_id, " +
+                    "t.last_comment_at, t.comment_count, " +
+                    "ARRAY(SELECT tt.tag_id FROM gen.topic_tag tt WHERE tt.topic_id = t.id ORDER BY tt.tag_id) AS tag_ids " +
+                "FROM gen.topic t ORDER BY t.id"),
+        COMMENTS("SELECT id, text, placed_at, topic_id, parent_comment_id, user_id, like_count " +
+                "FROM gen.comment ORDER BY id"),
+        LIKES("SELECT id, comment_id, user_id FROM gen.like ORDER BY id"),
+        USERS("SELECT id, username, email, information, registration_date, non_locked, role_id, " +
+                    "reputation, avatar_hash " +
+                "FROM gen.user_info ORDER BY id");
+
+        private final String query;
+
+        Table(String query)
+        {
+            this.query = query;
+        }
+
+        public static Optional<Table> of(String name)
+        {
+            return Arrays.stream(values()).filter(t -> t.name().equalsIgnoreCase(name)).findAny();
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private Properties props;
+
+    @Autowired
+    public ForumExporter(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         Properties props)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.props = props;
+
+        //PostgreSQL only fetches rows in batches inside a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    //Returns the number of rows written, the stream is flushed but not closed
+    public long write(Table table, OutputStream out) throws IOException
+    {
+        JsonGenerator json = JSON.createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        long[] rows = {0};
+
+        try
+        {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(table.query,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(props.getExportFetchSize());
+                return statement;
+            }, rs -> {
+                try
+                {
+                    writeRow(json, rs);
+                    rows[0]++;
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+
+        json.flush();
+        log.info("Exported {} rows of {}", rows[0], table);
+
+        return rows[0];
+    }
+
+    private static void writeRow(JsonGenerator json, ResultSet rs) throws SQLException, IOException
+    {
+        ResultSetMetaData meta = rs.getMetaData();
+
+        json.writeStartObject();
+        for (int i = 1; i <= meta.getColumnCount(); i++)
+        {
+            json.writeFieldName(meta.getColumnLabel(i));
+            switch (meta.getColumnType(i))
+            {
+                case Types.TIMESTAMP:
+                    writeString(json, rs.getObject(i, LocalDateTime.class));
+                    break;
+                case Types.DATE:
+                    writeString(json, rs.getObject(i, LocalDate.class));
+                    break;
+                case Types.ARRAY:
+                    writeArray(json, rs.getArray(i));
+                    break;
+                default:
+                    json.writeObject(rs.getObject(i));
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeArray(JsonGenerator json, Array array) throws SQLException, IOException
+    {
+        if (array == null)
+        {
+            json.writeNull();
+            return;
+        }
+
+        json.writeStartArray();
+        for (Object element : (Object[]) array.getArray())
+            json.writeObject(element);
+        json.writeEndArray();
+    }
+
+    private static void writeString(JsonGenerator json, Object value) throws IOException
+    {
+        if (value == null)
+            json.writeNull();
+        else
+            json.writeString(value.toString());
+    }
+}
@@ -0,0 +1,21 @@
+package my.project.forum.service;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Entities are serialized after their transaction, open-in-view is off. Associations outside
+ * the fetch plan of a query are written as their ids instead of being loaded on the way out.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module hibernateModule()
+    {
+        return new Hibernate5Module()
+                .configure(Hibernate5Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS, true);
+    }
+}
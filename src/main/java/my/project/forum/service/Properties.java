@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Component
 @ConfigurationProperties(prefix = "forum")
@@ -12,6 +15,38 @@ public class Properties {
     private int topicsPageSize;
     private int commentsPageSize;
     private int logPageSize;
+    private int reputationPageSize;
+    private int searchPageSize;
+    private int threadMaxDepth;
+    private int threadMaxSize;
+    private int exportFetchSize;
+    private long viewsFlushInterval;
+    private long likesFlushInterval;
+    private String avatarDir;
+    private int avatarMaxSize;
+    private long avatarMaxPixels;
+    private List<Integer> avatarThumbnailSizes;
+    private int avatarWorkers;
+    private int avatarQueueCapacity;
+    private long authCacheTtl;
+    private int authCacheSize;
+    private boolean httpBasic;
+    private int auditQueueCapacity;
+    private int auditBatchSize;
+    private long auditFlushInterval;
+    private AuditLogWriter.OverflowPolicy auditOverflowPolicy;
+    private long auditBlockTimeout;
+    private int auditSampleRate;
+    private long auditShutdownTimeout;
+    private List<String> replicaUrls;
+    private int replicaPoolSize;
+    private long replicaConnectionTimeout;
+    private long replicaMaxLag;
+    private long replicaCheckInterval;
+    private long readYourWritesWindow;
+    private Map<String, Integer> rateLimits;
+    private long rateLimitPeriod;
+    private int rateLimitMaxClients;
 
     public void setSectionsPageSize(int sectionsPageSize)
     {
@@ -29,4 +64,132 @@ public class Properties {
     {
         this.logPageSize = logPageSize;
     }
+    public void setReputationPageSize(int reputationPageSize)
+    {
+        this.reputationPageSize = reputationPageSize;
+    }
+    public void setSearchPageSize(int searchPageSize)
+    {
+        this.searchPageSize = searchPageSize;
+    }
+    public void setThreadMaxDepth(int threadMaxDepth)
+    {
+        this.threadMaxDepth = threadMaxDepth;
+    }
+    public void setThreadMaxSize(int threadMaxSize)
+    {
+        this.threadMaxSize = threadMaxSize;
+    }
+    public void setExportFetchSize(int exportFetchSize)
+    {
+        this.exportFetchSize = exportFetchSize;
+    }
+    public void setViewsFlushInterval(long viewsFlushInterval)
+    {
+        this.viewsFlushInterval = viewsFlushInterval;
+    }
+    public void setLikesFlushInterval(long likesFlushInterval)
+    {
+        this.likesFlushInterval = likesFlushInterval;
+    }
+    public void setAvatarDir(String avatarDir)
+    {
+        this.avatarDir = avatarDir;
+    }
+    public void setAvatarMaxSize(int avatarMaxSize)
+    {
+        this.avatarMaxSize = avatarMaxSize;
+    }
+    public void setAvatarMaxPixels(long avatarMaxPixels)
+    {
+        this.avatarMaxPixels = avatarMaxPixels;
+    }
+    public void setAvatarThumbnailSizes(List<Integer> avatarThumbnailSizes)
+    {
+        this.avatarThumbnailSizes = avatarThumbnailSizes;
+    }
+    public void setAvatarWorkers(int avatarWorkers)
+    {
+        this.avatarWorkers = avatarWorkers;
+    }
+    public void setAvatarQueueCapacity(int avatarQueueCapacity)
+    {
+        this.avatarQueueCapacity = avatarQueueCapacity;
+    }
+    public void setAuthCacheTtl(long authCacheTtl)
+    {
+        this.authCacheTtl = authCacheTtl;
+    }
+    public void setAuthCacheSize(int authCacheSize)
+    {
+        this.authCacheSize = authCacheSize;
+    }
+    public void setHttpBasic(boolean httpBasic)
+    {
+        this.httpBasic = httpBasic;
+    }
+    public void setAuditQueueCapacity(int auditQueueCapacity)
+    {
+        this.auditQueueCapacity = auditQueueCapacity;
+    }
+    public void setAuditBatchSize(int auditBatchSize)
+    {
+        this.auditBatchSize = auditBatchSize;
+    }
+    public void setAuditFlushInterval(long auditFlushInterval)
+    {
+        this.auditFlushInterval = auditFlushInterval;
+    }
+    public void setAuditOverflowPolicy(AuditLogWriter.OverflowPolicy auditOverflowPolicy)
+    {
+        this.auditOverflowPolicy = auditOverflowPolicy;
+    }
+    public void setAuditBlockTimeout(long auditBlockTimeout)
+    {
+        this.auditBlockTimeout = auditBlockTimeout;
+    }
+    public void setAuditSampleRate(int auditSampleRate)
+    {
+        this.auditSampleRate = auditSampleRate;
+    }
+    public void setAuditShutdownTimeout(long auditShutdownTimeout)
+    {
+        this.auditShutdownTimeout = auditShutdownTimeout;
+    }
+    public void setReplicaUrls(List<String> replicaUrls)
+    {
+        this.replicaUrls = replicaUrls;
+    }
+    public void setReplicaPoolSize(int replicaPoolSize)
+    {
+        this.replicaPoolSize = replicaPoolSize;
+    }
+    public void setReplicaConnectionTimeout(long replicaConnectionTimeout)
+    {
+        this.replicaConnectionTimeout = replicaConnectionTimeout;
+    }
+    public void setReplicaMaxLag(long replicaMaxLag)
+    {
+        this.replicaMaxLag = replicaMaxLag;
+    }
+    public void setReplicaCheckInterval(long replicaCheckInterval)
+    {
+        this.replicaCheckInterval = replicaCheckInterval;
+    }
+    public void setReadYourWritesWindow(long readYourWritesWindow)
+    {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+    public void setRateLimits(Map<String, Integer> rateLimits)
+    {
+        this.rateLimits = rateLimits;
+    }
+    public void setRateLimitPeriod(long rateLimitPeriod)
+    {
+        this.rateLimitPeriod = rateLimitPeriod;
+    }
+    public void setRateLimitMaxClients(int rateLimitMaxClients)
+    {
+        this.rateLimitMaxClients = rateLimitMaxClients;
+    }
 }
@@ -0,0 +1,24 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * Limits the rate of POST requests to the endpoints of forum.rateLimits, rejected ones get 429 with Retry-After.
+ * Buckets are in memory, so each instance of the application counts its own requests.
+ */
+@Configuration
+@ConditionalOnProperty(name = "forum.rateLimit", havingValue = "true")
+public class RateLimitConfig {
+
+    //Mapped interceptor beans are picked up by every handler mapping, the interceptor picks the endpoints
+    @Bean
+    public MappedInterceptor rateLimitInterceptor(Properties props, MeterRegistry registry)
+    {
+        return new MappedInterceptor(null, new RateLimitInterceptor(props.getRateLimits(),
+                props.getRateLimitPeriod(), props.getRateLimitMaxClients(), registry));
+    }
+}
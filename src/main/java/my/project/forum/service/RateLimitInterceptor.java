@@ -0,0 +1,102 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.forum.data.postgres.entity.User;
+import my.project.forum.error.RateLimitExceededException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles POST requests of the endpoints in forum.rateLimits per client, see RateLimiter.
+ * Endpoints are matched by the pattern of the handler's mapping, so /comments/ counts as /comments.
+ * Clients are told apart by user id, anonymous ones by address.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final Map<String, Endpoint> endpoints = new HashMap<>();
+
+    public RateLimitInterceptor(Map<String, Integer> limits, long period, int maxClients, MeterRegistry registry)
+    {
+        limits.forEach((name, limit) -> endpoints.put("/" + name, new Endpoint(
+                new RateLimiter(limit, period, maxClients),
+                decisionCounter(registry, name, "allowed"),
+                decisionCounter(registry, name, "rejected"))));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        if (!"POST".equals(request.getMethod()))
+            return true;
+
+        Endpoint endpoint = endpointOf(request);
+        if (endpoint == null)
+            return true;
+
+        long wait = endpoint.limiter.tryAcquire(clientOf(request));
+        if (wait > 0)
+        {
+            endpoint.rejected.increment();
+            throw new RateLimitExceededException((wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        endpoint.allowed.increment();
+        return true;
+    }
+
+    //Trailing slash and suffix matches report the mapping's pattern with "/" or ".*" appended
+    private Endpoint endpointOf(HttpServletRequest request)
+    {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null)
+            return null;
+
+        if (pattern.endsWith(".*"))
+            pattern = pattern.substring(0, pattern.length() - 2);
+        if (pattern.length() > 1 && pattern.endsWith("/"))
+            pattern = pattern.substring(0, pattern.length() - 1);
+
+        return endpoints.get(pattern);
+    }
+
+    private static String clientOf(HttpServletRequest request)
+    {
+        Principal principal = request.getUserPrincipal();
+        if (principal instanceof Authentication && ((Authentication) principal).getPrincipal() instanceof User)
+            return "user:" + ((User) ((Authentication) principal).getPrincipal()).getId();
+
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private static Counter decisionCounter(MeterRegistry registry, String endpoint, String decision)
+    {
+        return Counter.builder("forum.ratelimit.requests")
+                .description("Throttled write requests by the decision of the rate limiter")
+                .tag("endpoint", endpoint)
+                .tag("decision", decision)
+                .register(registry);
+    }
+
+    private static class Endpoint {
+
+        private final RateLimiter limiter;
+        private final Counter allowed;
+        private final Counter rejected;
+
+        Endpoint(RateLimiter limiter, Counter allowed, Counter rejected)
+        {
+            this.limiter = limiter;
+            this.allowed = allowed;
+            this.rejected = rejected;
+        }
+    }
+}
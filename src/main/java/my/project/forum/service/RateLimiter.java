@@ -0,0 +1,49 @@
+package my.project.forum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allows each client a number of requests per period, all of which may come at once. A client's bucket is
+ * one timestamp, the time its bucket would be full again (GCRA): a request moves it an interval forward and
+ * is allowed while it stays within a period from now. Buckets are updated by compare-and-set, the map holding
+ * them is Caffeine's, which is striped, and a client idle for a period has a full bucket, so it's evicted.
+ */
+public class RateLimiter {
+
+    private final long interval;
+    private final long period;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(int limit, long period, int maxClients)
+    {
+        this.period = TimeUnit.MILLISECONDS.toNanos(period);
+        this.interval = this.period / limit;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(period, TimeUnit.MILLISECONDS)
+                .maximumSize(maxClients)
+                .build();
+    }
+
+    //Returns 0 when the request is allowed, otherwise the nanoseconds until it would be
+    public long tryAcquire(String client)
+    {
+        AtomicLong bucket = buckets.get(client, c -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+
+        while (true)
+        {
+            long full = bucket.get();
+            long next = Math.max(full, now) + interval;
+            long wait = next - now - period;
+
+            if (wait > 0)
+                return wait;
+            if (bucket.compareAndSet(full, next))
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package my.project.forum.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to the replicas of forum.replicaUrls, see ReplicaRoutingDataSource.
+ * The replicas are read with the credentials of spring.datasource. Enabled with forum.readReplicas=true.
+ *
+ * The pools aren't beans: Spring Boot initializes the database on each DataSource bean, which needs
+ * the routing one while it's being created.
+ */
+@Configuration
+@ConditionalOnProperty(name = "forum.readReplicas", havingValue = "true")
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    private Properties props;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    public ReadReplicaConfig(Properties props)
+    {
+        this.props = props;
+    }
+
+    //Configured like the pool Spring Boot creates without replicas
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariConfig primaryPoolConfig(DataSourceProperties dataSourceProps)
+    {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("primary");
+        config.setDriverClassName(dataSourceProps.determineDriverClassName());
+        config.setJdbcUrl(dataSourceProps.determineUrl());
+        config.setUsername(dataSourceProps.determineUsername());
+        config.setPassword(dataSourceProps.determinePassword());
+        return config;
+    }
+
+    //Connections are taken on the first statement, when the transaction is known to be read-only
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariConfig primaryPoolConfig,
+                                 DataSourceProperties dataSourceProps,
+                                 MeterRegistry registry)
+    {
+        primaryPoolConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        HikariDataSource primary = new HikariDataSource(primaryPoolConfig);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : props.getReplicaUrls())
+        {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica" + (replicas.size() + 1));
+            replica.setJdbcUrl(url);
+            replica.setUsername(dataSourceProps.determineUsername());
+            replica.setPassword(dataSourceProps.determinePassword());
+            replica.setMaximumPoolSize(props.getReplicaPoolSize());
+            replica.setConnectionTimeout(props.getReplicaConnectionTimeout());
+            replica.setReadOnly(true);
+            //Starts without the replica being up, it's used once a check succeeds
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.add(replica);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, props.getReplicaMaxLag(), registry);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${forum.replicaCheckInterval}")
+    public void checkReplicas()
+    {
+        routingDataSource.checkReplicas();
+    }
+
+    @PreDestroy
+    public void closePools()
+    {
+        if (routingDataSource != null)
+            routingDataSource.close();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        registry.addInterceptor(new ReadYourWritesInterceptor(props.getReadYourWritesWindow()));
+    }
+}
@@ -0,0 +1,64 @@
+package my.project.forum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.security.Principal;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a client on the primary while it writes and for a window after, so it reads its own writes
+ * even when the replicas lag. Clients are told apart by user name, anonymous ones by address.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final int MAX_CLIENTS = 100_000;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(long window)
+    {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window, TimeUnit.MILLISECONDS)
+                .maximumSize(MAX_CLIENTS)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        if (isWrite(request) || recentWriters.getIfPresent(clientOf(request)) != null)
+            ReplicaRoutingDataSource.setPrimaryOnly(true);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        ReplicaRoutingDataSource.setPrimaryOnly(false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
+    {
+        ReplicaRoutingDataSource.setPrimaryOnly(false);
+        if (isWrite(request))
+            recentWriters.put(clientOf(request), Boolean.TRUE);
+    }
+
+    private static boolean isWrite(HttpServletRequest request)
+    {
+        return !READ_METHODS.contains(request.getMethod());
+    }
+
+    private static String clientOf(HttpServletRequest request)
+    {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? "user:" + principal.getName() : "address:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,210 @@
+package my.project.forum.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections of a healthy replica to read-only transactions and of the primary to everything else.
+ * Replicas are checked periodically and used only while they stream from the primary with a replay lag
+ * below the limit; a replica failing to give a connection is skipped until its next successful check.
+ * The transaction must be known to be read-only when the connection is taken, so this is wrapped
+ * in a LazyConnectionDataSourceProxy.
+ *
+ * Requests having PRIMARY_ONLY_ATTRIBUTE read from the primary, ResourceVersions sets it: an ETag
+ * is built from versions bumped on the primary's commit, a lagging replica would pair it with old rows.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    //Lag is 0 while everything received has been replayed, replay timestamps age on an idle primary
+    private static final String CHECK_QUERY = "SELECT pg_is_in_recovery(), " +
+            "EXISTS (SELECT 1 FROM pg_stat_wal_receiver), " +
+            "CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                 "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    public static final String PRIMARY_ONLY_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".PRIMARY_ONLY";
+
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLag;
+
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                    long maxLag, MeterRegistry registry)
+    {
+        this.primary = primary;
+        this.maxLag = maxLag;
+
+        for (HikariDataSource pool : replicaPools)
+        {
+            Replica replica = new Replica(pool);
+            replicas.add(replica);
+
+            TimeGauge.builder("forum.datasource.replica.lag", replica, TimeUnit.MILLISECONDS, r -> r.lag)
+                    .description("Replay lag of the read replica at its last check")
+                    .tag("replica", pool.getPoolName())
+                    .register(registry);
+            Gauge.builder("forum.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether read-only transactions are sent to the replica")
+                    .tag("replica", pool.getPoolName())
+                    .register(registry);
+        }
+
+        primaryReads = readsCounter(registry, "primary");
+        replicaReads = readsCounter(registry, "replica");
+    }
+
+    //Read-only transactions of the current thread use the primary until reset, see ReadYourWritesInterceptor
+    public static void setPrimaryOnly(boolean value)
+    {
+        if (value)
+            primaryOnly.set(Boolean.TRUE);
+        else
+            primaryOnly.remove();
+    }
+
+    static boolean isPrimaryOnly()
+    {
+        return primaryOnly.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return primary.getConnection();
+
+        Replica replica = !isPrimaryOnly() && !primaryRequested() ? nextHealthy() : null;
+        if (replica != null)
+        {
+            try
+            {
+                Connection connection = replica.pool.getConnection();
+                replicaReads.increment();
+                return connection;
+            }
+            catch (SQLException e)
+            {
+                replica.healthy = false;
+                log.warn("Replica {} failed to give a connection, reading from the primary: {}",
+                        replica.pool.getPoolName(), e.getMessage());
+            }
+        }
+
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException
+    {
+        return primary.getConnection(username, password);
+    }
+
+    public void checkReplicas()
+    {
+        for (Replica replica : replicas)
+        {
+            boolean healthy;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(CHECK_QUERY))
+            {
+                rs.next();
+                boolean standby = rs.getBoolean(1);
+                boolean streaming = rs.getBoolean(2);
+                replica.lag = rs.getDouble(3);
+                healthy = standby && streaming && replica.lag <= maxLag;
+
+                if (replica.healthy && !healthy)
+                    log.warn("Replica {} is out of use: standby {}, streaming {}, lag {} ms",
+                            replica.pool.getPoolName(), standby, streaming, (long) replica.lag);
+            }
+            catch (SQLException e)
+            {
+                healthy = false;
+                replica.lag = Double.NaN;
+                if (replica.healthy)
+                    log.warn("Replica {} is out of use: {}", replica.pool.getPoolName(), e.getMessage());
+            }
+
+            if (!replica.healthy && healthy)
+                log.info("Replica {} is in use, lag {} ms", replica.pool.getPoolName(), (long) replica.lag);
+            replica.healthy = healthy;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private static boolean primaryRequested()
+    {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute(PRIMARY_ONLY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    private Replica nextHealthy()
+    {
+        int size = replicas.size();
+        if (size == 0)
+            return null;
+
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++)
+        {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy)
+                return replica;
+        }
+        return null;
+    }
+
+    private static Counter readsCounter(MeterRegistry registry, String target)
+    {
+        return Counter.builder("forum.datasource.reads")
+                .description("Connections taken by read-only transactions")
+                .tag("target", target)
+                .register(registry);
+    }
+
+    private static class Replica {
+
+        private final HikariDataSource pool;
+        private volatile boolean healthy;
+        private volatile double lag = Double.NaN;
+
+        Replica(HikariDataSource pool)
+        {
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package my.project.forum.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports on startup every repository access path which isn't backed by an index
+ * whose leading columns match it.
+ */
+@Component
+public class RequiredIndexCheck implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RequiredIndexCheck.class);
+
+    private static final String INDEXES_QUERY = "SELECT c.relname AS table_name, " +
+                                                "array_to_string(ARRAY( " +
+                                                    "SELECT a.attname " +
+                                                    "FROM unnest(i.indkey::int2[]) WITH ORDINALITY AS k(attnum, ord) " +
+                                                    "JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = k.attnum " +
+                                                    "ORDER BY k.ord), ',') AS columns " +
+                                                "FROM pg_index i " +
+                                                "JOIN pg_class c ON c.oid = i.indrelid " +
+                                                "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                                                "WHERE n.nspname = 'gen'";
+
+    static final List<AccessPath> ACCESS_PATHS = List.of(
+            new AccessPath("comment", "CommentRepository.findAllByTopic_Id, findLatestByTopic", "topic_id", "placed_at"),
+            new AccessPath("comment", "CommentRepository.findSummaries, findOldest, findOldestAfter", "placed_at"),
+            new AccessPath("comment", "comment.parent_comment_id cascade", "parent_comment_id"),
+            new AccessPath("comment", "comment.user_id on user delete", "user_id"),
+            new AccessPath("comment", "SearchRepository.search", "search_vector"),
+            new AccessPath("topic", "TopicRepository.findAllBySection_Id", "section_id", "last_comment_at"),
+            new AccessPath("topic", "TopicRepository.findSummaries, findLatest, findLatestBefore", "placed_at"),
+            new AccessPath("topic", "topic.user_id on user delete", "user_id"),
+            new AccessPath("topic", "SearchRepository.search", "search_vector"),
+            new AccessPath("like", "LikeRepository.findAllByCommentId", "comment_id"),
+            new AccessPath("like", "LikeRepository.deleteByCommentIdAndUserId, CommentRepository likedByMe", "user_id", "comment_id"),
+            new AccessPath("reputation", "ReputationRepository.findLatestByTarget, findLatestByTargetBefore", "target_user_id", "placed_at"),
+            new AccessPath("reputation", "reputation.user_id on user delete", "user_id"),
+            new AccessPath("topic_tag", "Topic.tags", "topic_id"),
+            new AccessPath("topic_tag", "tag delete cascade", "tag_id"),
+            new AccessPath("user_info", "UserRepository.findByUsername", "username"),
+            new AccessPath("user_info", "UserRepository.findByRole", "role_id")
+    );
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RequiredIndexCheck(JdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args)
+    {
+        List<String[]> indexes = jdbcTemplate.query(INDEXES_QUERY,
+                (rs, i) -> new String[]{rs.getString("table_name"), rs.getString("columns")});
+
+        List<AccessPath> missing = new ArrayList<>();
+        for (AccessPath path : ACCESS_PATHS)
+            if (indexes.stream().noneMatch(index -> path.isCoveredBy(index[0], index[1].split(","))))
+                missing.add(path);
+
+        if (missing.isEmpty())
+            log.info("All {} repository access paths are indexed", ACCESS_PATHS.size());
+        else
+            missing.forEach(path -> log.warn("No index on gen.{} ({}) used by {}",
+                    path.table, String.join(", ", path.columns), path.usedBy));
+    }
+
+    static class AccessPath {
+
+        private final String table;
+        private final String usedBy;
+        private final String[] columns;
+
+        AccessPath(String table, String usedBy, String... columns)
+        {
+            this.table = table;
+            this.usedBy = usedBy;
+            this.columns = columns;
+        }
+
+        boolean isCoveredBy(String indexTable, String[] indexColumns)
+        {
+            return table.equals(indexTable) && indexColumns.length >= columns.length
+                    && Arrays.equals(columns, Arrays.copyOf(indexColumns, columns.length));
+        }
+    }
+}
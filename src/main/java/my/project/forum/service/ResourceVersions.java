@@ -0,0 +1,98 @@
+package my.project.forum.service;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of polled collections, bumped by the controllers which change them. A read endpoint
+ * builds its ETag from the versions before touching the database and answers 304 when the client
+ * already has it. Versions live in memory: the epoch changes on every start, so tags issued
+ * before a restart never match, but writes must go through this instance. Versioned reads
+ * use the primary, see ReplicaRoutingDataSource.
+ */
+@Component
+public class ResourceVersions {
+
+    public enum Resource {
+        SECTIONS(false),
+        SECTION_TOPICS(true),
+        TOPIC_COMMENTS(true),
+        TAGS(false),
+        //Author names, role colors and reputation shown in topic and comment lists
+        AUTHORS(false);
+
+        private final boolean showsAuthors;
+
+        Resource(boolean showsAuthors)
+        {
+            this.showsAuthors = showsAuthors;
+        }
+    }
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final String epoch = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    public void bump(Resource resource)
+    {
+        bump(resource, null);
+    }
+
+    //Inside a transaction the version changes once it commits, so a new tag is never issued for old data
+    public void bump(Resource resource, Long id)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            versions.put(key(resource, id), sequence.incrementAndGet());
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit()
+            {
+                versions.put(key(resource, id), sequence.incrementAndGet());
+            }
+        });
+    }
+
+    public long version(Resource resource, Long id)
+    {
+        return versions.getOrDefault(key(resource, id), 0L);
+    }
+
+    /**
+     * Sets the ETag of the resource and returns true when the request's If-None-Match has it,
+     * the handler then returns null. The variant tells apart pages, cursors and users of one resource.
+     */
+    public boolean checkNotModified(ServletWebRequest request, Resource resource, Long id, Object... variant)
+    {
+        StringBuilder tag = new StringBuilder(epoch).append('-').append(version(resource, id));
+        if (resource.showsAuthors)
+            tag.append('-').append(version(Resource.AUTHORS, null));
+        for (Object part : variant)
+            tag.append('-').append(part);
+
+        if (request.getResponse() != null)
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        request.setAttribute(ReplicaRoutingDataSource.PRIMARY_ONLY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+
+        return request.checkNotModified(tag.toString());
+    }
+
+    private static String key(Resource resource, Long id)
+    {
+        return id == null ? resource.name() : resource.name() + ":" + id;
+    }
+}
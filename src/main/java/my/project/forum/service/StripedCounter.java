@@ -0,0 +1,78 @@
+package my.project.forum.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accumulates per-id deltas in memory. Writers are spread over several maps by thread,
+ * so concurrent increments of one hot id don't serialize on a single lock.
+ */
+public class StripedCounter {
+
+    private final ConcurrentHashMap<Long, Long>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public StripedCounter(int stripeCount)
+    {
+        stripes = new ConcurrentHashMap[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+            stripes[i] = new ConcurrentHashMap<>();
+    }
+
+    public void add(Long id, long delta)
+    {
+        int stripe = (int) (Thread.currentThread().getId() % stripes.length);
+        stripes[stripe].merge(id, delta, Long::sum);
+    }
+
+    public long pending(Long id)
+    {
+        long sum = 0;
+        for (ConcurrentHashMap<Long, Long> stripe : stripes)
+            sum += stripe.getOrDefault(id, 0L);
+
+        return sum;
+    }
+
+    public long pendingTotal()
+    {
+        long sum = 0;
+        for (ConcurrentHashMap<Long, Long> stripe : stripes)
+            for (Long delta : stripe.values())
+                sum += delta;
+
+        return sum;
+    }
+
+    public int pendingIds()
+    {
+        int count = 0;
+        for (ConcurrentHashMap<Long, Long> stripe : stripes)
+            count += stripe.size();
+
+        return count;
+    }
+
+    //Removes every accumulated delta and returns them summed per id
+    public Map<Long, Long> drain()
+    {
+        Map<Long, Long> drained = new HashMap<>();
+
+        for (ConcurrentHashMap<Long, Long> stripe : stripes)
+            for (Long id : stripe.keySet())
+            {
+                Long delta = stripe.remove(id);
+                if (delta != null && delta != 0)
+                    drained.merge(id, delta, Long::sum);
+            }
+
+        return drained;
+    }
+
+    //Puts back deltas which couldn't be written
+    public void restore(Map<Long, Long> deltas)
+    {
+        deltas.forEach((id, delta) -> stripes[0].merge(id, delta, Long::sum));
+    }
+}
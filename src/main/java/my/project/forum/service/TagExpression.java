@@ -0,0 +1,268 @@
+package my.project.forum.service;
+
+import my.project.forum.error.InvalidTagExpressionException;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Boolean expression over tag names, e.g. java AND (spring OR hibernate) NOT kotlin.
+ * NOT binds tightest, then AND, then OR. Adjacent terms and commas mean AND,
+ * names with spaces or keywords are written in double quotes. Keywords are case insensitive.
+ */
+public final class TagExpression {
+
+    private static final int MAX_LENGTH = 500;
+
+    private final Node root;
+    private final Set<String> tagNames;
+
+    private TagExpression(Node root, Set<String> tagNames)
+    {
+        this.root = root;
+        this.tagNames = tagNames;
+    }
+
+    public static TagExpression parse(String text)
+    {
+        if (text == null || text.isBlank())
+            throw new InvalidTagExpressionException("Tag expression mustn't be blank");
+        if (text.length() > MAX_LENGTH)
+            throw new InvalidTagExpressionException("Tag expression is longer than " + MAX_LENGTH + " characters");
+
+        Parser parser = new Parser(tokenize(text));
+        Node root = parser.parseOr();
+        if (parser.peek() != null)
+            throw new InvalidTagExpressionException("Unexpected " + parser.peek().text + " in tag expression");
+
+        return new TagExpression(root, parser.tagNames);
+    }
+
+    public Set<String> getTagNames()
+    {
+        return tagNames;
+    }
+
+    //Bitmaps returned by tagBitmap and all are only read, the result is always a new bitmap
+    public RoaringBitmap evaluate(Function<String, RoaringBitmap> tagBitmap, RoaringBitmap all)
+    {
+        return fresh(root, tagBitmap, all);
+    }
+
+    private static RoaringBitmap fresh(Node node, Function<String, RoaringBitmap> tagBitmap, RoaringBitmap all)
+    {
+        RoaringBitmap result = eval(node, tagBitmap, all);
+        return node instanceof Tag ? result.clone() : result;
+    }
+
+    private static RoaringBitmap eval(Node node, Function<String, RoaringBitmap> tagBitmap, RoaringBitmap all)
+    {
+        if (node instanceof Tag)
+            return tagBitmap.apply(((Tag) node).name);
+
+        if (node instanceof Not)
+            return RoaringBitmap.andNot(all, eval(((Not) node).operand, tagBitmap, all));
+
+        if (node instanceof Or)
+        {
+            List<Node> operands = ((Or) node).operands;
+            RoaringBitmap result = fresh(operands.get(0), tagBitmap, all);
+            for (Node operand : operands.subList(1, operands.size()))
+                result.or(eval(operand, tagBitmap, all));
+            return result;
+        }
+
+        //Negated operands of AND are subtracted instead of complemented, all topics are only needed without positive ones
+        List<Node> positive = new ArrayList<>();
+        List<Node> negated = new ArrayList<>();
+        for (Node operand : ((And) node).operands)
+        {
+            if (operand instanceof Not)
+                negated.add(((Not) operand).operand);
+            else
+                positive.add(operand);
+        }
+
+        RoaringBitmap result = positive.isEmpty() ? all.clone() : fresh(positive.get(0), tagBitmap, all);
+        for (Node operand : positive.subList(Math.min(1, positive.size()), positive.size()))
+            result.and(eval(operand, tagBitmap, all));
+        for (Node operand : negated)
+            result.andNot(eval(operand, tagBitmap, all));
+        return result;
+    }
+
+    private static List<Token> tokenize(String text)
+    {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length())
+        {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c))
+            {
+                i++;
+            }
+            else if (c == '(' || c == ')' || c == ',')
+            {
+                tokens.add(new Token(String.valueOf(c), false));
+                i++;
+            }
+            else if (c == '"')
+            {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0)
+                    throw new InvalidTagExpressionException("Unclosed quote in tag expression");
+                tokens.add(new Token(text.substring(i + 1, end), true));
+                i = end + 1;
+            }
+            else
+            {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && "(),\"".indexOf(text.charAt(i)) < 0)
+                    i++;
+                tokens.add(new Token(text.substring(start, i), false));
+            }
+        }
+        return tokens;
+    }
+
+    private static class Parser {
+
+        private final List<Token> tokens;
+        private final Set<String> tagNames = new LinkedHashSet<>();
+        private int position;
+
+        Parser(List<Token> tokens)
+        {
+            this.tokens = tokens;
+        }
+
+        Token peek()
+        {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        Node parseOr()
+        {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (peek() != null && peek().is("OR"))
+            {
+                position++;
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Or(operands);
+        }
+
+        Node parseAnd()
+        {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseUnary());
+            while (peek() != null && !peek().is(")") && !peek().is("OR"))
+            {
+                if (peek().is("AND") || peek().is(","))
+                    position++;
+                operands.add(parseUnary());
+            }
+            return operands.size() == 1 ? operands.get(0) : new And(operands);
+        }
+
+        Node parseUnary()
+        {
+            if (peek() != null && peek().is("NOT"))
+            {
+                position++;
+                return new Not(parseUnary());
+            }
+            return parsePrimary();
+        }
+
+        Node parsePrimary()
+        {
+            Token token = peek();
+            if (token == null)
+                throw new InvalidTagExpressionException("Unexpected end of tag expression");
+
+            position++;
+            if (token.is("("))
+            {
+                Node node = parseOr();
+                if (peek() == null || !peek().is(")"))
+                    throw new InvalidTagExpressionException("Missing ) in tag expression");
+                position++;
+                return node;
+            }
+
+            if (!token.quoted && (token.is(")") || token.is(",") || token.is("AND") || token.is("OR")))
+                throw new InvalidTagExpressionException("Unexpected " + token.text + " in tag expression");
+
+            tagNames.add(token.text);
+            return new Tag(token.text);
+        }
+    }
+
+    private static class Token {
+
+        private final String text;
+        private final boolean quoted;
+
+        Token(String text, boolean quoted)
+        {
+            this.text = text;
+            this.quoted = quoted;
+        }
+
+        //Quoted tokens are always tag names
+        boolean is(String symbol)
+        {
+            return !quoted && text.equalsIgnoreCase(symbol);
+        }
+    }
+
+    private interface Node {
+    }
+
+    private static class Tag implements Node {
+
+        private final String name;
+
+        Tag(String name)
+        {
+            this.name = name;
+        }
+    }
+
+    private static class Not implements Node {
+
+        private final Node operand;
+
+        Not(Node operand)
+        {
+            this.operand = operand;
+        }
+    }
+
+    private static class And implements Node {
+
+        private final List<Node> operands;
+
+        And(List<Node> operands)
+        {
+            this.operands = operands;
+        }
+    }
+
+    private static class Or implements Node {
+
+        private final List<Node> operands;
+
+        Or(List<Node> operands)
+        {
+            this.operands = operands;
+        }
+    }
+}
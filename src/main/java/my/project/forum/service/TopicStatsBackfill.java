@@ -0,0 +1,61 @@
+package my.project.forum.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * One-time fill of topic.comment_count and topic.last_comment_at for comments
+ * created before the columns existed. Enabled with forum.backfillTopicStats=true.
+ */
+@Component
+@ConditionalOnProperty(name = "forum.backfillTopicStats", havingValue = "true")
+public class TopicStatsBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TopicStatsBackfill.class);
+
+    private static final long BATCH_SIZE = 10000;
+
+    private static final String BACKFILL_QUERY = "UPDATE gen.topic t " +
+                                                 "SET comment_count = s.cnt, last_comment_at = s.last " +
+                                                 "FROM ( " +
+                                                    "SELECT c.topic_id, COUNT(*) AS cnt, MAX(c.placed_at) AS last " +
+                                                    "FROM gen.comment c " +
+                                                    "WHERE c.topic_id BETWEEN ? AND ? " +
+                                                    "GROUP BY c.topic_id " +
+                                                 ") AS s " +
+                                                 "WHERE t.id = s.topic_id";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TopicStatsBackfill(JdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args)
+    {
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM gen.topic");
+        if (range.get("min_id") == null)
+            return;
+
+        long minId = ((Number) range.get("min_id")).longValue();
+        long maxId = ((Number) range.get("max_id")).longValue();
+        long updated = 0;
+
+        //Every batch is a separate short transaction, so writers aren't blocked for the whole run
+        for (long from = minId; from <= maxId; from += BATCH_SIZE)
+            updated += jdbcTemplate.update(BACKFILL_QUERY, from, from + BATCH_SIZE - 1);
+
+        log.info("Comment stats backfilled for {} topics", updated);
+    }
+}
@@ -0,0 +1,263 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.forum.data.postgres.entity.Tag;
+import my.project.forum.data.postgres.entity.Topic;
+import my.project.forum.data.postgres.repository.TagRepository;
+import my.project.forum.error.ItemNotFoundException;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compressed bitmaps of topic ids per tag and per section, built from the database on startup
+ * and updated by the topic, tag and section handlers. Readers never lock: writers are serialized
+ * and replace a changed bitmap with a modified copy. Topic ids must fit in an int.
+ * Writers hold a lock rather than a monitor, since loading queries the database and a
+ * virtual thread blocked inside synchronized would pin its carrier.
+ */
+@Component
+public class TopicTagIndex implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TopicTagIndex.class);
+
+    private static final String TOPICS_QUERY = "SELECT id, section_id FROM gen.topic";
+    private static final String TOPIC_TAGS_QUERY = "SELECT topic_id, tag_id FROM gen.topic_tag";
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final Map<Long, RoaringBitmap> byTag = new ConcurrentHashMap<>();
+    private final Map<Long, RoaringBitmap> bySection = new ConcurrentHashMap<>();
+    private volatile RoaringBitmap all = new RoaringBitmap();
+    private volatile boolean loaded;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private JdbcTemplate jdbcTemplate;
+    private TagRepository tagRepo;
+
+    @Autowired
+    public TopicTagIndex(JdbcTemplate jdbcTemplate, TagRepository tagRepo, MeterRegistry registry)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tagRepo = tagRepo;
+
+        Gauge.builder("forum.topic.tag.index.bytes", this, TopicTagIndex::sizeInBytes)
+                .description("Memory held by the tag and section bitmaps of topics")
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args)
+    {
+        ensureLoaded();
+    }
+
+    /**
+     * Ids of topics matching the expression, newest (highest id) first. Unknown tag names are 404.
+     * A null section matches all sections, a null beforeId starts from the newest topic.
+     * Unlike the other topic listings this is ordered by id, not placed_at: the bitmaps only hold ids,
+     * and with pooled sequence allocation id order can differ slightly from placed_at order, so sorting
+     * a page by placed_at afterwards would let topics move between pages of the id cursor.
+     */
+    public List<Long> findTopicIds(TagExpression expression, Long sectionId, Long beforeId, int limit)
+    {
+        ensureLoaded();
+
+        Map<String, RoaringBitmap> tags = new HashMap<>();
+        for (String name : expression.getTagNames())
+        {
+            Tag tag = tagRepo.findByName(name)
+                    .orElseThrow(() -> new ItemNotFoundException("Tag with name " + name + " doesn't exist"));
+            tags.put(name, byTag.getOrDefault(tag.getId(), EMPTY));
+        }
+
+        RoaringBitmap result = expression.evaluate(tags::get, all);
+        if (sectionId != null)
+            result.and(bySection.getOrDefault(sectionId, EMPTY));
+        if (beforeId != null)
+            result.remove(Math.max(0L, Math.min(beforeId, 1L << 32)), 1L << 32);
+
+        List<Long> ids = new ArrayList<>(limit);
+        IntIterator it = result.getReverseIntIterator();
+        while (it.hasNext() && ids.size() < limit)
+            ids.add(Integer.toUnsignedLong(it.next()));
+
+        return ids;
+    }
+
+    //The bitmap readers currently see for a tag, writers never modify it once published
+    RoaringBitmap topicsOfTag(Long tagId)
+    {
+        ensureLoaded();
+        return byTag.get(tagId);
+    }
+
+    //Adds a new topic or replaces the section and tags of an existing one
+    public void put(Topic topic)
+    {
+        int id = toInt(topic.getId());
+        Long sectionId = topic.getSection().getId();
+        Set<Long> tagIds = new HashSet<>();
+        if (topic.getTags() != null)
+            topic.getTags().forEach(tag -> tagIds.add(tag.getId()));
+
+        afterCommit(() -> {
+            all = added(all, id);
+            bySection.replaceAll((section, topics) -> section.equals(sectionId) ? topics : removed(topics, id));
+            bySection.compute(sectionId, (section, topics) -> added(topics, id));
+            byTag.replaceAll((tag, topics) -> tagIds.contains(tag) ? topics : removed(topics, id));
+            tagIds.forEach(tagId -> byTag.compute(tagId, (tag, topics) -> added(topics, id)));
+        });
+    }
+
+    public void remove(Long topicId)
+    {
+        int id = toInt(topicId);
+
+        afterCommit(() -> {
+            all = removed(all, id);
+            bySection.replaceAll((section, topics) -> removed(topics, id));
+            byTag.replaceAll((tag, topics) -> removed(topics, id));
+        });
+    }
+
+    public void removeTag(Long tagId)
+    {
+        afterCommit(() -> byTag.remove(tagId));
+    }
+
+    //Topics of a deleted section are deleted by the database
+    public void removeSection(Long sectionId)
+    {
+        afterCommit(() -> {
+            RoaringBitmap topics = bySection.remove(sectionId);
+            if (topics == null)
+                return;
+
+            all = RoaringBitmap.andNot(all, topics);
+            byTag.replaceAll((tag, tagged) -> RoaringBitmap.intersects(tagged, topics)
+                    ? RoaringBitmap.andNot(tagged, topics) : tagged);
+        });
+    }
+
+    //Changes are applied in order once they commit, loading first so a change is never lost to a later load
+    private void afterCommit(Runnable change)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            apply(change);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit()
+            {
+                apply(change);
+            }
+        });
+    }
+
+    private void apply(Runnable change)
+    {
+        lock.lock();
+        try
+        {
+            ensureLoaded();
+            change.run();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void ensureLoaded()
+    {
+        if (loaded)
+            return;
+
+        lock.lock();
+        try
+        {
+            if (loaded)
+                return;
+
+            Map<Long, RoaringBitmap> sections = new HashMap<>();
+            Map<Long, RoaringBitmap> tags = new HashMap<>();
+            RoaringBitmap topics = new RoaringBitmap();
+
+            jdbcTemplate.query(TOPICS_QUERY, rs -> {
+                int id = toInt(rs.getLong("id"));
+                topics.add(id);
+                sections.computeIfAbsent(rs.getLong("section_id"), s -> new RoaringBitmap()).add(id);
+            });
+            jdbcTemplate.query(TOPIC_TAGS_QUERY, rs -> {
+                tags.computeIfAbsent(rs.getLong("tag_id"), t -> new RoaringBitmap()).add(toInt(rs.getLong("topic_id")));
+            });
+
+            sections.values().forEach(RoaringBitmap::runOptimize);
+            tags.values().forEach(RoaringBitmap::runOptimize);
+            topics.runOptimize();
+
+            bySection.putAll(sections);
+            byTag.putAll(tags);
+            all = topics;
+            loaded = true;
+
+            log.info("Topic tag index built: {} topics, {} tags, {} bytes",
+                    topics.getCardinality(), tags.size(), sizeInBytes());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private double sizeInBytes()
+    {
+        return all.getLongSizeInBytes()
+                + byTag.values().stream().mapToLong(RoaringBitmap::getLongSizeInBytes).sum()
+                + bySection.values().stream().mapToLong(RoaringBitmap::getLongSizeInBytes).sum();
+    }
+
+    private static RoaringBitmap added(RoaringBitmap topics, int id)
+    {
+        if (topics == null)
+            return RoaringBitmap.bitmapOf(id);
+        if (topics.contains(id))
+            return topics;
+
+        RoaringBitmap copy = topics.clone();
+        copy.add(id);
+        return copy;
+    }
+
+    private static RoaringBitmap removed(RoaringBitmap topics, int id)
+    {
+        if (!topics.contains(id))
+            return topics;
+
+        RoaringBitmap copy = topics.clone();
+        copy.remove(id);
+        return copy;
+    }
+
+    private static int toInt(Long topicId)
+    {
+        return Math.toIntExact(topicId);
+    }
+}
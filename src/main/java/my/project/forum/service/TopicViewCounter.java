@@ -0,0 +1,91 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class TopicViewCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(TopicViewCounter.class);
+
+    private static final String FLUSH_QUERY = "UPDATE gen.topic t SET views = t.views + d.delta " +
+                                              "FROM (SELECT unnest(?) AS id, unnest(?) AS delta) AS d " +
+                                              "WHERE t.id = d.id " +
+                                              "RETURNING t.section_id";
+
+    private final StripedCounter views = new StripedCounter(Runtime.getRuntime().availableProcessors());
+    private JdbcTemplate jdbcTemplate;
+    private ResourceVersions versions;
+    private Counter flushedViews;
+
+    @Autowired
+    public TopicViewCounter(JdbcTemplate jdbcTemplate, ResourceVersions versions, MeterRegistry registry)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
+
+        Gauge.builder("forum.topic.views.pending", views, StripedCounter::pendingTotal)
+                .description("Topic views not yet written to the database")
+                .register(registry);
+        Gauge.builder("forum.topic.views.pending.topics", views, StripedCounter::pendingIds)
+                .description("Topics with unwritten views")
+                .register(registry);
+        flushedViews = Counter.builder("forum.topic.views.flushed")
+                .description("Topic views written to the database")
+                .register(registry);
+    }
+
+    //Returns views of the topic which are not flushed yet
+    public long increment(Long topicId)
+    {
+        views.add(topicId, 1);
+        return views.pending(topicId);
+    }
+
+    @Scheduled(fixedDelayString = "${forum.viewsFlushInterval}")
+    public void flush()
+    {
+        Map<Long, Long> deltas = views.drain();
+        if (deltas.isEmpty())
+            return;
+
+        Long[] ids = deltas.keySet().toArray(new Long[0]);
+        Long[] increments = deltas.values().toArray(new Long[0]);
+
+        List<Long> sectionIds;
+        try {
+            sectionIds = jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(FLUSH_QUERY);
+                ps.setArray(1, con.createArrayOf("bigint", ids));
+                ps.setArray(2, con.createArrayOf("bigint", increments));
+                return ps;
+            }, (rs, i) -> rs.getLong(1));
+        } catch (RuntimeException e) {
+            views.restore(deltas);
+            log.error("Failed to flush views of {} topics", deltas.size(), e);
+            return;
+        }
+
+        //Section topic lists show the written views
+        sectionIds.stream().distinct().forEach(id -> versions.bump(ResourceVersions.Resource.SECTION_TOPICS, id));
+        flushedViews.increment(deltas.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown()
+    {
+        flush();
+    }
+}
@@ -0,0 +1,90 @@
+package my.project.forum.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs Tomcat request handling, @Async and MVC async work and the @Scheduled jobs on virtual threads.
+ * Enabled with forum.virtualThreads=true on JDK 21 or later, see the virtual-threads profile of pom.xml.
+ * The code is compiled for Java 11, so the virtual thread API is called reflectively.
+ *
+ * The avatar thumbnail pool and the audit log writer keep their platform threads: the first is CPU bound,
+ * the second is a single thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "forum.virtualThreads", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequests()
+    {
+        ExecutorService executor = newThreadPerTaskExecutor(virtualThreadFactory("http-vt-"));
+        log.info("Tomcat requests run on virtual threads");
+
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+                  AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor()
+    {
+        return new TaskExecutorAdapter(newThreadPerTaskExecutor(virtualThreadFactory("task-vt-")));
+    }
+
+    //Scheduled jobs block on JDBC, each run gets a virtual thread of the pool
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler()
+    {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadFactory(virtualThreadFactory("scheduling-vt-"));
+        return scheduler;
+    }
+
+    //Thread.ofVirtual().name(prefix, 0).factory()
+    static ThreadFactory virtualThreadFactory(String prefix)
+    {
+        try
+        {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("forum.virtualThreads needs JDK 21 or later, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    //Executors.newThreadPerTaskExecutor(factory)
+    static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory)
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("forum.virtualThreads needs JDK 21 or later, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+}
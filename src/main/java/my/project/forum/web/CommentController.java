@@ -1,22 +1,28 @@
 package my.project.forum.web;
 
 import my.project.forum.aop.annotation.Loggable;
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.cursor.CursorPage;
 import my.project.forum.data.postgres.dto.CommentDto;
 import my.project.forum.data.postgres.entity.Comment;
 import my.project.forum.data.postgres.entity.Like;
 import my.project.forum.data.postgres.entity.User;
+import my.project.forum.data.postgres.projection.CommentSummary;
 import my.project.forum.error.ActionNotAllowed;
 import my.project.forum.error.ItemNotFoundException;
 import my.project.forum.data.postgres.patch.CommentPatch;
 import my.project.forum.data.postgres.repository.CommentRepository;
 import my.project.forum.data.postgres.repository.LikeRepository;
+import my.project.forum.data.postgres.repository.TopicRepository;
+import my.project.forum.service.CommentLikeCounter;
+import my.project.forum.service.DtoMapper;
 import my.project.forum.service.Properties;
-import org.modelmapper.ModelMapper;
+import my.project.forum.service.ResourceVersions;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -26,6 +32,9 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
+
+import static my.project.forum.service.ResourceVersions.Resource.*;
 
 @RestController
 @RequestMapping("/comments")
@@ -33,34 +42,68 @@ public class CommentController {
 
     private CommentRepository commentRepo;
     private LikeRepository likeRepo;
+    private TopicRepository topicRepo;
+    private CommentLikeCounter likeCounter;
     private Properties props;
+    private DtoMapper dtoMapper;
+    private ResourceVersions versions;
 
     @Autowired
     public CommentController(CommentRepository commentRepo,
                              LikeRepository likeRepo,
-                             Properties props)
+                             TopicRepository topicRepo,
+                             CommentLikeCounter likeCounter,
+                             Properties props,
+                             DtoMapper dtoMapper,
+                             ResourceVersions versions)
     {
         this.commentRepo = commentRepo;
         this.likeRepo = likeRepo;
+        this.topicRepo = topicRepo;
+        this.likeCounter = likeCounter;
         this.props = props;
+        this.dtoMapper = dtoMapper;
+        this.versions = versions;
     }
 
     @GetMapping(produces = "application/json")
     @Loggable(method = "get", controller = "comment")
-    public Page<Comment> getComments(@RequestParam(value = "page", defaultValue = "0") int page)
+    public Page<CommentSummary> getComments(@RequestParam(value = "page", defaultValue = "0") int page,
+                                            @AuthenticationPrincipal User user)
     {
-        Pageable pageable = PageRequest.of(page, props.getCommentsPageSize(),
-                Sort.by(Sort.Direction.ASC, "placedAt"));
+        Pageable pageable = PageRequest.of(page, props.getCommentsPageSize());
+
+        Page<CommentSummary> comments = commentRepo.findSummaries(user == null ? null : user.getId(), pageable);
+        likeCounter.applyPending(comments);
 
-        return commentRepo.findAll(pageable);
+        return comments;
     }
 
+    @GetMapping(produces = "application/json", params = "cursor")
+    @Loggable(method = "get", controller = "comment")
+    public CursorPage<CommentSummary> getComments(@RequestParam("cursor") String cursor,
+                                                  @AuthenticationPrincipal User user)
+    {
+        int size = props.getCommentsPageSize();
+        Pageable limit = PageRequest.of(0, size + 1);
+        Cursor after = Cursor.decode(cursor, 2);
+        Long userId = user == null ? null : user.getId();
+
+        List<CommentSummary> comments = after == null
+                ? commentRepo.findOldest(userId, limit)
+                : commentRepo.findOldestAfter(after.getTimestamp(0), after.getLong(1), userId, limit);
+        likeCounter.applyPending(comments);
+
+        return CursorPage.of(comments, size, c -> Cursor.of(c.getPlacedAt(), c.getId()));
+    }
+
+    @Transactional
     @PostMapping
     @Loggable(method = "post", controller = "comment")
     public ResponseEntity<Object> newComment(@Valid @RequestBody CommentDto commentDto,
                                              @AuthenticationPrincipal User user) {
 
-        Comment comment = commentDtoToComment(commentDto);
+        Comment comment = dtoMapper.toComment(commentDto);
 
         if (comment.getParentComment() != null)
         {
@@ -74,6 +117,12 @@ public class CommentController {
 
         comment.setUser(user);
         Comment savedComment = commentRepo.save(comment);
+        topicRepo.registerComment(comment.getTopic().getId(), savedComment.getPlacedAt());
+
+        //Section topic lists show comment counts and are ordered by the last comment
+        versions.bump(TOPIC_COMMENTS, comment.getTopic().getId());
+        topicRepo.findSectionIdById(comment.getTopic().getId())
+                .ifPresent(sectionId -> versions.bump(SECTION_TOPICS, sectionId));
 
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(savedComment.getId()).toUri();
@@ -85,7 +134,7 @@ public class CommentController {
     @Loggable(method = "get", controller = "comment")
     public Comment getComment(@PathVariable Long id)
     {
-        return commentRepo.findById(id)
+        return commentRepo.findDetailedById(id)
                 .orElseThrow(() -> new ItemNotFoundException("Comment with id " + id + " doesn't exist"));
     }
 
@@ -95,7 +144,7 @@ public class CommentController {
                                  @PathVariable Long id,
                                  @AuthenticationPrincipal User user) {
 
-        Comment comment = commentRepo.findById(id)
+        Comment comment = commentRepo.findDetailedById(id)
                 .orElseThrow(() -> new ItemNotFoundException("Comment with id " + id + " doesn't exist"));
 
         boolean hasRoleAdmin = user.getAuthorities().stream()
@@ -114,9 +163,14 @@ public class CommentController {
             comment.setText(patch.getText());
         }
 
-        return commentRepo.save(comment);
+        //The loaded comment is returned, the saved copy has lazy associations
+        commentRepo.save(comment);
+        versions.bump(TOPIC_COMMENTS, comment.getTopic().getId());
+
+        return comment;
     }
 
+    @Transactional
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{id}")
     @Loggable(method = "delete", controller = "comment")
@@ -134,8 +188,12 @@ public class CommentController {
             throw new ActionNotAllowed("Access denied");
 
         commentRepo.deleteById(id);
+        topicRepo.recountComments(comment.getTopic().getId());
+        versions.bump(TOPIC_COMMENTS, comment.getTopic().getId());
+        versions.bump(SECTION_TOPICS, comment.getTopic().getSection().getId());
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/{id}/likes")
     @Loggable(method = "get", controller = "comment")
     public Iterable<Like> getLikes(@PathVariable Long id)
@@ -143,7 +201,10 @@ public class CommentController {
         if (commentRepo.findById(id).isEmpty())
             throw new ItemNotFoundException("Comment with id " + id + " doesn't exist");
 
-        return likeRepo.findAllByCommentId(id);
+        Iterable<Like> likes = likeRepo.findAllByCommentId(id);
+        likes.forEach(like -> Hibernate.initialize(like.getComment().getTopic().getTags()));
+
+        return likes;
     }
 
     @Transactional
@@ -152,14 +213,11 @@ public class CommentController {
     @Loggable(method = "delete", controller = "comment")
     public void deleteLike(@PathVariable Long id,
                            @AuthenticationPrincipal User user) {
-        likeRepo.deleteByCommentIdAndUserId(id, user.getId());
-
-    }
-
-    private Comment commentDtoToComment(CommentDto commentDto)
-    {
-        ModelMapper modelMapper = new ModelMapper();
-
-        return modelMapper.map(commentDto, Comment.class);
+        long removed = likeRepo.deleteByCommentIdAndUserId(id, user.getId());
+        if (removed > 0)
+        {
+            likeCounter.add(id, -removed);
+            commentRepo.findTopicIdById(id).ifPresent(topicId -> versions.bump(TOPIC_COMMENTS, topicId));
+        }
     }
 }
@@ -0,0 +1,54 @@
+package my.project.forum.web;
+
+import my.project.forum.aop.annotation.Loggable;
+import my.project.forum.error.ItemNotFoundException;
+import my.project.forum.service.ForumExporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private ForumExporter exporter;
+
+    @Autowired
+    public ExportController(ForumExporter exporter)
+    {
+        this.exporter = exporter;
+    }
+
+    //Streams sections, tags, topics, comments, likes or users as NDJSON, gzip=true sends a .ndjson.gz file
+    @GetMapping("/{table}")
+    @Loggable(method = "get", controller = "export")
+    public void export(@PathVariable String table,
+                       @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException
+    {
+        ForumExporter.Table exported = ForumExporter.Table.of(table)
+                .orElseThrow(() -> new ItemNotFoundException("Export of " + table + " doesn't exist"));
+
+        String fileName = exported.name().toLowerCase() + (gzip ? ".ndjson.gz" : ".ndjson");
+        response.setContentType(gzip ? "application/gzip" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.builder("attachment").filename(fileName).build().toString());
+
+        OutputStream out = response.getOutputStream();
+        if (!gzip)
+        {
+            exporter.write(exported, out);
+            return;
+        }
+
+        GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+        exporter.write(exported, compressed);
+        compressed.finish();
+    }
+}
@@ -4,46 +4,83 @@ import my.project.forum.aop.annotation.Loggable;
 import my.project.forum.data.postgres.dto.LikeDto;
 import my.project.forum.data.postgres.entity.Like;
 import my.project.forum.data.postgres.entity.User;
+import my.project.forum.data.postgres.repository.CommentRepository;
 import my.project.forum.data.postgres.repository.LikeRepository;
-import org.modelmapper.ModelMapper;
+import my.project.forum.error.ItemAlreadyExistsException;
+import my.project.forum.service.CommentLikeCounter;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.ResourceVersions;
+import org.hibernate.Hibernate;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 
+import static my.project.forum.service.ResourceVersions.Resource.TOPIC_COMMENTS;
+
 @RestController
 @RequestMapping("/likes")
 public class LikeController {
 
+    private static final String UNIQUE_LIKE = "uq_userid_commentid";
+
     private LikeRepository likeRepo;
+    private CommentRepository commentRepo;
+    private CommentLikeCounter likeCounter;
+    private DtoMapper dtoMapper;
+    private ResourceVersions versions;
 
     @Autowired
-    public LikeController(LikeRepository likeRepo)
+    public LikeController(LikeRepository likeRepo,
+                          CommentRepository commentRepo,
+                          CommentLikeCounter likeCounter,
+                          DtoMapper dtoMapper,
+                          ResourceVersions versions)
     {
         this.likeRepo = likeRepo;
+        this.commentRepo = commentRepo;
+        this.likeCounter = likeCounter;
+        this.dtoMapper = dtoMapper;
+        this.versions = versions;
     }
 
+    //Tags are loaded in the transaction, in batches of Topic.tags
+    @Transactional(readOnly = true)
     @GetMapping(produces = "application/json")
     @Loggable(method = "get", controller = "like")
     public Iterable<Like> getLikes()
     {
-        return likeRepo.findAll();
+        Iterable<Like> likes = likeRepo.findAll();
+        likes.forEach(like -> Hibernate.initialize(like.getComment().getTopic().getTags()));
+
+        return likes;
     }
 
     @PostMapping
     @Loggable(method = "post", controller = "like")
     public Like newLike(@Valid @RequestBody LikeDto likeDto,
                         @AuthenticationPrincipal User user) {
-        Like like = likeDtoToLike(likeDto);
+        Like like = dtoMapper.toLike(likeDto);
 
         like.setUser(user);
-        return likeRepo.save(like);
-    }
 
-    private Like likeDtoToLike(LikeDto likeDto)
-    {
-        ModelMapper modelMapper = new ModelMapper();
+        Like savedLike;
+        try {
+            savedLike = likeRepo.save(like);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException
+                    && UNIQUE_LIKE.equalsIgnoreCase(((ConstraintViolationException) e.getCause()).getConstraintName()))
+                throw new ItemAlreadyExistsException("Comment with id " + like.getComment().getId() + " is already liked");
+
+            throw e;
+        }
 
-        return modelMapper.map(likeDto, Like.class);
+        likeCounter.add(like.getComment().getId(), 1);
+        commentRepo.findTopicIdById(like.getComment().getId())
+                .ifPresent(topicId -> versions.bump(TOPIC_COMMENTS, topicId));
+        return savedLike;
     }
 }
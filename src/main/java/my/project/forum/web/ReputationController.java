@@ -8,13 +8,16 @@ import my.project.forum.data.postgres.entity.Like;
 import my.project.forum.data.postgres.entity.Reputation;
 import my.project.forum.data.postgres.entity.User;
 import my.project.forum.data.postgres.repository.ReputationRepository;
+import my.project.forum.data.postgres.repository.UserRepository;
 import my.project.forum.error.ActionNotAllowed;
 import my.project.forum.error.ItemNotFoundException;
-import org.modelmapper.ModelMapper;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.ResourceVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -26,11 +29,20 @@ import java.net.URI;
 public class ReputationController {
 
     private ReputationRepository repRepo;
+    private UserRepository userRepo;
+    private DtoMapper dtoMapper;
+    private ResourceVersions versions;
 
     @Autowired
-    public ReputationController(ReputationRepository repRepo)
+    public ReputationController(ReputationRepository repRepo,
+                                UserRepository userRepo,
+                                DtoMapper dtoMapper,
+                                ResourceVersions versions)
     {
         this.repRepo = repRepo;
+        this.userRepo = userRepo;
+        this.dtoMapper = dtoMapper;
+        this.versions = versions;
     }
 
     @GetMapping(produces = "application/json")
@@ -40,36 +52,42 @@ public class ReputationController {
         return repRepo.findAll();
     }
 
+    @Transactional
     @PostMapping
     @Loggable(method = "post", controller = "reputation")
     public ResponseEntity<Reputation> newReputation(@Valid @RequestBody ReputationDto repDto,
                                                            @AuthenticationPrincipal User user) {
-        Reputation rep = repDtoToRep(repDto);
+        Reputation rep = dtoMapper.toReputation(repDto);
 
         if (rep.getTarget().getId().equals(user.getId()))
             throw new ActionNotAllowed("You can't increase your own reputation");
 
         rep.setUser(user);
 
+        //The score is kept in user_info.reputation, the update also checks that the target exists
+        if (userRepo.addReputation(rep.getTarget().getId(), 1) == 0)
+            throw new ItemNotFoundException("User with id " + rep.getTarget().getId() + " doesn't exist");
+
         Reputation savedReputation = repRepo.save(rep);
+        //Authors in topic and comment lists show their score
+        versions.bump(ResourceVersions.Resource.AUTHORS);
+
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(savedReputation.getId()).toUri();
 
         return ResponseEntity.created(location).body(savedReputation);
     }
 
+    @Transactional
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{id}")
     @Loggable(method = "delete", controller = "reputation")
     public void deleteRep(@PathVariable("id") Long id) {
-        repRepo.deleteById(id);
-    }
+        Reputation rep = repRepo.findById(id)
+                .orElseThrow(() -> new ItemNotFoundException("Reputation with id " + id + " doesn't exist"));
 
-    private Reputation repDtoToRep(ReputationDto repDto)
-    {
-        ModelMapper modelMapper = new ModelMapper();
-
-        return modelMapper.map(repDto, Reputation.class);
+        repRepo.delete(rep);
+        userRepo.addReputation(rep.getTarget().getId(), -1);
+        versions.bump(ResourceVersions.Resource.AUTHORS);
     }
-
 }
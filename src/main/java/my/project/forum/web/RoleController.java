@@ -7,6 +7,8 @@ import my.project.forum.error.ItemAlreadyExistsException;
 import my.project.forum.error.ItemNotFoundException;
 import my.project.forum.data.postgres.patch.RolePatch;
 import my.project.forum.data.postgres.repository.RoleRepository;
+import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.service.ResourceVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,11 +23,17 @@ import java.net.URI;
 public class RoleController {
 
     private RoleRepository roleRepo;
+    private UserRepositoryUserDetailsService userDetailsService;
+    private ResourceVersions versions;
 
     @Autowired
-    public RoleController(RoleRepository roleRepo)
+    public RoleController(RoleRepository roleRepo,
+                          UserRepositoryUserDetailsService userDetailsService,
+                          ResourceVersions versions)
     {
         this.roleRepo = roleRepo;
+        this.userDetailsService = userDetailsService;
+        this.versions = versions;
     }
 
     @GetMapping(produces = "application/json")
@@ -81,7 +89,13 @@ public class RoleController {
         if (patch.getColor() != null)
             patchedRole.setColor(patch.getColor());
 
-        return roleRepo.save(patchedRole);
+        Role savedRole = roleRepo.save(patchedRole);
+
+        //Cached users hold their role, topic and comment lists show its color
+        userDetailsService.evictAll();
+        versions.bump(ResourceVersions.Resource.AUTHORS);
+
+        return savedRole;
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -96,5 +110,7 @@ public class RoleController {
             throw new ActionNotAllowed("Admin role can't be removed");
 
         roleRepo.deleteById(id);
+        userDetailsService.evictAll();
+        versions.bump(ResourceVersions.Resource.AUTHORS);
     }
 }
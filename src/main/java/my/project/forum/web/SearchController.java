@@ -0,0 +1,51 @@
+package my.project.forum.web;
+
+import my.project.forum.aop.annotation.Loggable;
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.cursor.CursorPage;
+import my.project.forum.data.postgres.projection.SearchHit;
+import my.project.forum.data.postgres.repository.SearchRepository;
+import my.project.forum.error.ActionNotAllowed;
+import my.project.forum.service.Properties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+
+    private SearchRepository searchRepo;
+    private Properties props;
+
+    @Autowired
+    public SearchController(SearchRepository searchRepo,
+                            Properties props)
+    {
+        this.searchRepo = searchRepo;
+        this.props = props;
+    }
+
+    @GetMapping(produces = "application/json")
+    @Loggable(method = "get", controller = "search")
+    public CursorPage<SearchHit> search(@RequestParam("q") String query,
+                                        @RequestParam(value = "section", required = false) Long sectionId,
+                                        @RequestParam(value = "tag", required = false) Long tagId,
+                                        @RequestParam(value = "author", required = false) Long authorId,
+                                        @RequestParam(value = "cursor", required = false) String cursor)
+    {
+        if (query.isBlank())
+            throw new ActionNotAllowed("Search query mustn't be blank");
+
+        int size = props.getSearchPageSize();
+        Cursor after = Cursor.decode(cursor, 3);
+
+        List<SearchHit> hits = after == null
+                ? searchRepo.search(query, sectionId, tagId, authorId, null, null, null, size + 1)
+                : searchRepo.search(query, sectionId, tagId, authorId,
+                        after.getFloat(0), after.getString(1), after.getLong(2), size + 1);
+
+        return CursorPage.of(hits, size, h -> Cursor.of(h.getRank(), h.getType(), h.getId()));
+    }
+}
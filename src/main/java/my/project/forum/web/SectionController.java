@@ -3,14 +3,16 @@ package my.project.forum.web;
 import my.project.forum.aop.annotation.Loggable;
 import my.project.forum.data.postgres.dto.SectionDto;
 import my.project.forum.data.postgres.entity.Section;
-import my.project.forum.data.postgres.entity.Topic;
+import my.project.forum.data.postgres.projection.TopicSummary;
 import my.project.forum.error.ActionNotAllowed;
 import my.project.forum.error.ItemNotFoundException;
 import my.project.forum.data.postgres.patch.SectionPatch;
 import my.project.forum.data.postgres.repository.SectionRepository;
 import my.project.forum.data.postgres.repository.TopicRepository;
+import my.project.forum.service.DtoMapper;
 import my.project.forum.service.Properties;
-import org.modelmapper.ModelMapper;
+import my.project.forum.service.ResourceVersions;
+import my.project.forum.service.TopicTagIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -19,11 +21,14 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
 
+import static my.project.forum.service.ResourceVersions.Resource.*;
+
 @RestController
 @RequestMapping("/sections")
 public class SectionController {
@@ -31,21 +36,34 @@ public class SectionController {
     private SectionRepository sectionRepo;
     private TopicRepository topicRepo;
     private Properties props;
+    private DtoMapper dtoMapper;
+    private ResourceVersions versions;
+    private TopicTagIndex tagIndex;
 
     @Autowired
     public SectionController(SectionRepository sectionRepo,
                              TopicRepository topicRepo,
-                             Properties props)
+                             Properties props,
+                             DtoMapper dtoMapper,
+                             ResourceVersions versions,
+                             TopicTagIndex tagIndex)
     {
         this.sectionRepo = sectionRepo;
         this.topicRepo = topicRepo;
         this.props = props;
+        this.dtoMapper = dtoMapper;
+        this.versions = versions;
+        this.tagIndex = tagIndex;
     }
 
     @GetMapping(produces = "application/json")
     @Loggable(method = "get", controller = "section")
-    public Page<Section> getSections(@RequestParam(value = "page", defaultValue = "0") int page)
+    public Page<Section> getSections(@RequestParam(value = "page", defaultValue = "0") int page,
+                                     ServletWebRequest request)
     {
+        if (versions.checkNotModified(request, SECTIONS, null, page))
+            return null;
+
         Pageable pageable = PageRequest.of(page, props.getSectionsPageSize(),
                 Sort.by(Sort.Direction.DESC, "placedAt"));
 
@@ -55,9 +73,10 @@ public class SectionController {
     @PostMapping
     @Loggable(method = "post", controller = "section")
     public ResponseEntity<Object> newSection(@Valid @RequestBody SectionDto sectionDto) {
-        Section section = sectionDtoToSection(sectionDto);
+        Section section = dtoMapper.toSection(sectionDto);
 
         Section savedSection = sectionRepo.save(section);
+        versions.bump(SECTIONS);
 
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(savedSection.getId()).toUri();
@@ -88,7 +107,11 @@ public class SectionController {
             patchedSection.setName(patch.getName());
         }
 
-        return sectionRepo.save(patchedSection);
+        Section savedSection = sectionRepo.save(patchedSection);
+        versions.bump(SECTIONS);
+        versions.bump(SECTION_TOPICS, id);
+
+        return savedSection;
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -96,13 +119,20 @@ public class SectionController {
     @Loggable(method = "delete", controller = "section")
     public void deleteSection(@PathVariable Long id) {
         sectionRepo.deleteById(id);
+        versions.bump(SECTIONS);
+        versions.bump(SECTION_TOPICS, id);
+        tagIndex.removeSection(id);
     }
 
     @GetMapping("/{id}/topics")
     @Loggable(method = "get", controller = "section")
-    public Page<Topic> getSectionTopics(@PathVariable Long id,
-                                   @RequestParam(value = "page", defaultValue = "0") int page)
+    public Page<TopicSummary> getSectionTopics(@PathVariable Long id,
+                                               @RequestParam(value = "page", defaultValue = "0") int page,
+                                               ServletWebRequest request)
     {
+        if (versions.checkNotModified(request, SECTION_TOPICS, id, page))
+            return null;
+
         if (sectionRepo.findById(id).isEmpty())
             throw new ItemNotFoundException("Section with id " + id + " doesn't exist");
 
@@ -110,10 +140,4 @@ public class SectionController {
 
         return topicRepo.findAllBySection_Id(id, pageable);
     }
-
-    private Section sectionDtoToSection(SectionDto sectionDto)
-    {
-        ModelMapper modelMapper = new ModelMapper();
-        return modelMapper.map(sectionDto, Section.class);
-    }
 }
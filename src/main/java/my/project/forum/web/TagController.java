@@ -7,31 +7,45 @@ import my.project.forum.error.ItemAlreadyExistsException;
 import my.project.forum.error.ItemNotFoundException;
 import my.project.forum.data.postgres.patch.TagPatch;
 import my.project.forum.data.postgres.repository.TagRepository;
+import my.project.forum.service.ResourceVersions;
+import my.project.forum.service.TopicTagIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
 
+import static my.project.forum.service.ResourceVersions.Resource.TAGS;
+
 @RestController
 @RequestMapping("/tag")
 public class TagController {
 
     private TagRepository tagRepo;
+    private ResourceVersions versions;
+    private TopicTagIndex tagIndex;
 
     @Autowired
-    public TagController(TagRepository tagRepo)
+    public TagController(TagRepository tagRepo,
+                         ResourceVersions versions,
+                         TopicTagIndex tagIndex)
     {
         this.tagRepo = tagRepo;
+        this.versions = versions;
+        this.tagIndex = tagIndex;
     }
 
     @GetMapping(produces = "application/json")
     @Loggable(method = "get", controller = "tag")
-    public Iterable<Tag> getAllTags()
+    public Iterable<Tag> getAllTags(ServletWebRequest request)
     {
+        if (versions.checkNotModified(request, TAGS, null))
+            return null;
+
         return tagRepo.findAll();
     }
 
@@ -42,6 +56,7 @@ public class TagController {
             throw new ItemAlreadyExistsException("Tag with name " + tag.getName() + " already exists");
 
         Tag savedTag = tagRepo.save(tag);
+        versions.bump(TAGS);
 
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(savedTag.getId()).toUri();
@@ -75,7 +90,10 @@ public class TagController {
             patchedTag.setName(patch.getName());
         }
 
-        return tagRepo.save(patchedTag);
+        Tag savedTag = tagRepo.save(patchedTag);
+        versions.bump(TAGS);
+
+        return savedTag;
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -83,5 +101,7 @@ public class TagController {
     @Loggable(method = "delete", controller = "tag")
     public void deleteTag(@PathVariable Long id) {
         tagRepo.deleteById(id);
+        versions.bump(TAGS);
+        tagIndex.removeTag(id);
     }
 }
@@ -1,30 +1,44 @@
 package my.project.forum.web;
 
 import my.project.forum.aop.annotation.Loggable;
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.cursor.CursorPage;
 import my.project.forum.data.postgres.dto.TopicDto;
-import my.project.forum.data.postgres.entity.Comment;
 import my.project.forum.data.postgres.entity.Topic;
 import my.project.forum.data.postgres.entity.User;
+import my.project.forum.data.postgres.projection.CommentNode;
+import my.project.forum.data.postgres.projection.CommentSummary;
+import my.project.forum.data.postgres.projection.TopicSummary;
 import my.project.forum.error.ActionNotAllowed;
 import my.project.forum.error.ItemNotFoundException;
 import my.project.forum.data.postgres.patch.TopicPatch;
 import my.project.forum.data.postgres.repository.CommentRepository;
+import my.project.forum.data.postgres.repository.CommentThreadRepository;
 import my.project.forum.data.postgres.repository.TopicRepository;
+import my.project.forum.service.CommentLikeCounter;
+import my.project.forum.service.DtoMapper;
 import my.project.forum.service.Properties;
-import org.modelmapper.ModelMapper;
+import my.project.forum.service.ResourceVersions;
+import my.project.forum.service.TagExpression;
+import my.project.forum.service.TopicTagIndex;
+import my.project.forum.service.TopicViewCounter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import static my.project.forum.service.ResourceVersions.Resource.*;
 
 @RestController
 @RequestMapping("/topics")
@@ -32,26 +46,76 @@ public class TopicController {
 
     private TopicRepository topicRepo;
     private CommentRepository commentRepo;
+    private TopicViewCounter viewCounter;
+    private CommentLikeCounter likeCounter;
     private Properties props;
+    private DtoMapper dtoMapper;
+    private ResourceVersions versions;
+    private TopicTagIndex tagIndex;
+    private CommentThreadRepository threadRepo;
 
     @Autowired
     public TopicController(TopicRepository topicRepo,
                            CommentRepository commentRepo,
-                           Properties props)
+                           TopicViewCounter viewCounter,
+                           CommentLikeCounter likeCounter,
+                           Properties props,
+                           DtoMapper dtoMapper,
+                           ResourceVersions versions,
+                           TopicTagIndex tagIndex,
+                           CommentThreadRepository threadRepo)
     {
         this.topicRepo = topicRepo;
         this.commentRepo = commentRepo;
+        this.viewCounter = viewCounter;
+        this.likeCounter = likeCounter;
         this.props = props;
+        this.dtoMapper = dtoMapper;
+        this.versions = versions;
+        this.tagIndex = tagIndex;
+        this.threadRepo = threadRepo;
     }
 
     @GetMapping(produces = "application/json")
     @Loggable(method = "get", controller = "topic")
-    public Page<Topic> getTopics(@RequestParam(value = "page", defaultValue = "0") int page)
+    public Page<TopicSummary> getTopics(@RequestParam(value = "page", defaultValue = "0") int page)
+    {
+        Pageable pageable = PageRequest.of(page, props.getTopicsPageSize());
+
+        return topicRepo.findSummaries(pageable);
+    }
+
+    @GetMapping(produces = "application/json", params = {"cursor", "!tags"})
+    @Loggable(method = "get", controller = "topic")
+    public CursorPage<TopicSummary> getTopics(@RequestParam("cursor") String cursor)
+    {
+        int size = props.getTopicsPageSize();
+        Pageable limit = PageRequest.of(0, size + 1);
+        Cursor after = Cursor.decode(cursor, 2);
+
+        List<TopicSummary> topics = after == null
+                ? topicRepo.findLatest(limit)
+                : topicRepo.findLatestBefore(after.getTimestamp(0), after.getLong(1), limit);
+
+        return CursorPage.of(topics, size, t -> Cursor.of(t.getPlacedAt(), t.getId()));
+    }
+
+    //Newest first by id rather than placed_at, filtered in memory by TopicTagIndex
+    @GetMapping(produces = "application/json", params = "tags")
+    @Loggable(method = "get", controller = "topic")
+    public CursorPage<TopicSummary> getTopicsByTags(@RequestParam("tags") String tags,
+                                                    @RequestParam(value = "section", required = false) Long sectionId,
+                                                    @RequestParam(value = "cursor", required = false) String cursor)
     {
-        Pageable pageable = PageRequest.of(page, props.getTopicsPageSize(),
-                Sort.by(Sort.Direction.DESC, "placedAt"));
+        TagExpression expression = TagExpression.parse(tags);
+        int size = props.getTopicsPageSize();
+        Cursor after = Cursor.decode(cursor, 1);
 
-        return topicRepo.findAll(pageable);
+        List<Long> ids = tagIndex.findTopicIds(expression, sectionId, after == null ? null : after.getLong(0), size + 1);
+        if (ids.isEmpty())
+            return new CursorPage<>(List.of(), null);
+
+        return CursorPage.of(topicRepo.findSummariesByIds(ids), size, t -> Cursor.of(t.getId()));
     }
 
     @PostMapping
@@ -59,11 +123,13 @@ public class TopicController {
     public ResponseEntity<Object> newTopic(@Valid @RequestBody TopicDto topicDto,
                                            @AuthenticationPrincipal User user) {
 
-        Topic topic = topicDtoToTopic(topicDto);
+        Topic topic = dtoMapper.toTopic(topicDto);
 
         topic.setUser(user);
         topic.setViews(0L);
         Topic savedTopic = topicRepo.save(topic);
+        versions.bump(SECTION_TOPICS, topic.getSection().getId());
+        tagIndex.put(savedTopic);
 
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(savedTopic.getId()).toUri();
@@ -75,11 +141,11 @@ public class TopicController {
     @Loggable(method = "get", controller = "topic")
     public Topic getTopic(@PathVariable Long id)
     {
-        Topic t = topicRepo.findById(id)
+        Topic t = topicRepo.findDetailedById(id)
                 .orElseThrow(() -> new ItemNotFoundException("Topic with id " + id + " doesn't exist"));
 
-        t.incrementViews();
-        topicRepo.save(t);
+        //Views are written in batches by TopicViewCounter, the response includes pending ones
+        t.setViews(t.getViews() + viewCounter.increment(id));
 
         return t;
     }
@@ -88,7 +154,7 @@ public class TopicController {
     @Loggable(method = "patch", controller = "topic")
     public Topic updateTopic(@Valid @RequestBody TopicPatch patch, @PathVariable Long id) {
 
-        Topic patchedTopic = topicRepo.findById(id)
+        Topic patchedTopic = topicRepo.findDetailedById(id)
                 .orElseThrow(() -> new ItemNotFoundException("Topic with id " + id + " doesn't exist"));
 
         if (patch.getName() != null)
@@ -102,33 +168,105 @@ public class TopicController {
         if (patch.getTags() != null)
             patchedTopic.setTags(patch.getTags());
 
-        return topicRepo.save(patchedTopic);
+        topicRepo.save(patchedTopic);
+        versions.bump(SECTION_TOPICS, patchedTopic.getSection().getId());
+        tagIndex.put(patchedTopic);
+
+        //Patched tags carry only their ids, the topic is read again with its fetch plan
+        return topicRepo.findDetailedById(id)
+                .orElseThrow(() -> new ItemNotFoundException("Topic with id " + id + " doesn't exist"));
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{id}")
     @Loggable(method = "delete", controller = "topic")
     public void deleteTopic(@PathVariable Long id) {
+        Optional<Long> sectionId = topicRepo.findSectionIdById(id);
+
         topicRepo.deleteById(id);
+        sectionId.ifPresent(s -> versions.bump(SECTION_TOPICS, s));
+        versions.bump(TOPIC_COMMENTS, id);
+        tagIndex.remove(id);
     }
 
     @GetMapping("/{id}/comments")
     @Loggable(method = "get", controller = "topic")
-    public Page<Comment> getComments(@PathVariable Long id,
-                                     @RequestParam(value = "page", defaultValue = "0") int page)
+    public Page<CommentSummary> getComments(@PathVariable Long id,
+                                            @RequestParam(value = "page", defaultValue = "0") int page,
+                                            @AuthenticationPrincipal User user,
+                                            ServletWebRequest request)
     {
+        Long userId = user == null ? null : user.getId();
+
+        //The pages show whether the current user liked a comment, so tags differ per user
+        if (versions.checkNotModified(request, TOPIC_COMMENTS, id, "p" + page, userId))
+            return null;
+
         if (topicRepo.findById(id).isEmpty())
             throw new ItemNotFoundException("Topic with id " + id + " doesn't exist");
 
-        Pageable pageable = PageRequest.of(page, props.getCommentsPageSize(),
-                Sort.by(Sort.Direction.DESC, "placedAt"));
+        Pageable pageable = PageRequest.of(page, props.getCommentsPageSize());
 
-        return commentRepo.findAllByTopic_Id(id, pageable);
+        Page<CommentSummary> comments = commentRepo.findAllByTopic_Id(id, userId, pageable);
+        likeCounter.applyPending(comments);
+
+        return comments;
     }
 
-    private Topic topicDtoToTopic(TopicDto topicDto)
+    @GetMapping(value = "/{id}/comments", params = "cursor")
+    @Loggable(method = "get", controller = "topic")
+    public CursorPage<CommentSummary> getComments(@PathVariable Long id,
+                                                  @RequestParam("cursor") String cursor,
+                                                  @AuthenticationPrincipal User user,
+                                                  ServletWebRequest request)
     {
-        ModelMapper modelMapper = new ModelMapper();
-        return modelMapper.map(topicDto, Topic.class);
+        Cursor after = Cursor.decode(cursor, 2);
+        Long userId = user == null ? null : user.getId();
+
+        if (versions.checkNotModified(request, TOPIC_COMMENTS, id, "c" + cursor, userId))
+            return null;
+
+        if (!topicRepo.existsById(id))
+            throw new ItemNotFoundException("Topic with id " + id + " doesn't exist");
+
+        int size = props.getCommentsPageSize();
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<CommentSummary> comments = after == null
+                ? commentRepo.findLatestByTopic(id, userId, limit)
+                : commentRepo.findLatestByTopicBefore(id, after.getTimestamp(0), after.getLong(1), userId, limit);
+        likeCounter.applyPending(comments);
+
+        return CursorPage.of(comments, size, c -> Cursor.of(c.getPlacedAt(), c.getId()));
+    }
+
+    //The whole reply tree, or the subtree under a comment, down to depth levels of replies
+    @GetMapping("/{id}/thread")
+    @Loggable(method = "get", controller = "topic")
+    public List<CommentNode> getThread(@PathVariable Long id,
+                                       @RequestParam(value = "comment", required = false) Long commentId,
+                                       @RequestParam(value = "depth", required = false) Integer depth,
+                                       @AuthenticationPrincipal User user,
+                                       ServletWebRequest request)
+    {
+        int maxDepth = props.getThreadMaxDepth();
+        if (depth != null)
+            maxDepth = Math.max(0, Math.min(depth, maxDepth));
+        Long userId = user == null ? null : user.getId();
+
+        if (versions.checkNotModified(request, TOPIC_COMMENTS, id, "t" + commentId + ":" + maxDepth, userId))
+            return null;
+
+        List<CommentNode> thread = threadRepo.findThread(id, commentId, maxDepth, userId, props.getThreadMaxSize());
+        if (thread.isEmpty())
+        {
+            if (commentId != null)
+                throw new ItemNotFoundException("Comment with id " + commentId + " doesn't exist in topic " + id);
+            if (!topicRepo.existsById(id))
+                throw new ItemNotFoundException("Topic with id " + id + " doesn't exist");
+        }
+        likeCounter.applyPendingToThread(thread);
+
+        return thread;
     }
 }
@@ -1,10 +1,12 @@
 package my.project.forum.web;
 
 import my.project.forum.aop.annotation.Loggable;
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.cursor.CursorPage;
 import my.project.forum.data.postgres.dto.UserDto;
 import my.project.forum.data.postgres.entity.Like;
-import my.project.forum.data.postgres.entity.Reputation;
 import my.project.forum.data.postgres.entity.User;
+import my.project.forum.data.postgres.projection.ReputationSummary;
 import my.project.forum.data.postgres.repository.ReputationRepository;
 import my.project.forum.error.ActionNotAllowed;
 import my.project.forum.error.ItemAlreadyExistsException;
@@ -12,9 +14,19 @@ import my.project.forum.error.ItemNotFoundException;
 import my.project.forum.data.postgres.patch.UserProfilePatch;
 import my.project.forum.data.postgres.repository.RoleRepository;
 import my.project.forum.data.postgres.repository.UserRepository;
-import org.modelmapper.ModelMapper;
+import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.service.AvatarStore;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.Properties;
+import my.project.forum.service.ResourceVersions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -23,12 +35,17 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
 
 @RestController
 @RequestMapping("/user")
@@ -38,17 +55,32 @@ public class UserController {
     private RoleRepository roleRepo;
     private ReputationRepository repRepo;
     private PasswordEncoder encoder;
+    private AvatarStore avatarStore;
+    private UserRepositoryUserDetailsService userDetailsService;
+    private DtoMapper dtoMapper;
+    private Properties props;
+    private ResourceVersions versions;
 
     @Autowired
     public UserController(UserRepository userRepo,
                           RoleRepository roleRepo,
                           ReputationRepository repRepo,
-                          PasswordEncoder encoder)
+                          PasswordEncoder encoder,
+                          AvatarStore avatarStore,
+                          UserRepositoryUserDetailsService userDetailsService,
+                          DtoMapper dtoMapper,
+                          Properties props,
+                          ResourceVersions versions)
     {
         this.userRepo = userRepo;
         this.roleRepo = roleRepo;
         this.repRepo = repRepo;
         this.encoder = encoder;
+        this.avatarStore = avatarStore;
+        this.userDetailsService = userDetailsService;
+        this.dtoMapper = dtoMapper;
+        this.props = props;
+        this.versions = versions;
     }
 
     @GetMapping(produces = "application/json")
@@ -61,7 +93,7 @@ public class UserController {
     @PostMapping
     @Loggable(method = "post", controller = "user")
     public ResponseEntity<Object> newUser(@Valid @RequestBody UserDto userDto) {
-        User user = userDtoToUser(userDto);
+        User user = dtoMapper.toUser(userDto);
 
         if (userRepo.findByUsername(user.getUsername()).isPresent())
             throw new ItemAlreadyExistsException("User with name " + user.getUsername() + " already exists");
@@ -134,10 +166,9 @@ public class UserController {
         if (patch.getInformation() != null)
             patchedUser.setInformation(patch.getInformation());
 
-        if (patch.getAvatar() != null)
-            patchedUser.setAvatar(patch.getAvatar());
-
         userRepo.save(patchedUser);
+        userDetailsService.evict(id);
+        versions.bump(ResourceVersions.Resource.AUTHORS);
 
         if (sameUser)
         {
@@ -163,33 +194,85 @@ public class UserController {
             request.logout();
 
         userRepo.deleteById(id);
+        userDetailsService.evict(id);
+        versions.bump(ResourceVersions.Resource.AUTHORS);
     }
 
     @PostMapping("/{id}/lock")
     @Loggable(method = "post", controller = "user")
     public User lockUser(@PathVariable Long id)
     {
-        return userRepo.findById(id)
+        User lockedUser = userRepo.findById(id)
                 .map(x -> {
                     x.setNonLocked(!x.isNonLocked());
-                    return userRepo.save(x);
+                    userRepo.save(x);
+                    return x;
                 })
                 .orElseThrow(() -> new ItemNotFoundException("User with id " + id + " doesn't exist"));
+
+        userDetailsService.evict(id);
+
+        return lockedUser;
     }
 
-    @GetMapping("/{id}/reputation")
+    @PostMapping("/{id}/avatar")
+    @Loggable(method = "post", controller = "user")
+    public ResponseEntity<Object> uploadAvatar(@PathVariable Long id,
+                                               @RequestParam("file") MultipartFile file,
+                                               @AuthenticationPrincipal User user) throws IOException {
+
+        if (!user.getId().equals(id) && user.getAuthorities().stream()
+                .noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN")))
+            throw new ActionNotAllowed("Access denied");
+
+        User patchedUser = userRepo.findById(id)
+                .orElseThrow(() -> new ItemNotFoundException("User with id " + id + " doesn't exist"));
+
+        try (InputStream in = file.getInputStream()) {
+            patchedUser.setAvatarHash(avatarStore.store(in));
+        }
+        userRepo.save(patchedUser);
+        userDetailsService.evict(id);
+
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().build().toUri();
+
+        return ResponseEntity.created(location).build();
+    }
+
+    //ETag and Range headers are handled by Spring for Resource bodies
+    @GetMapping("/{id}/avatar")
     @Loggable(method = "get", controller = "user")
-    public Iterable<Reputation> getRep(@PathVariable Long id)
+    public ResponseEntity<Resource> getAvatar(@PathVariable Long id,
+                                              @RequestParam(value = "size", required = false) Integer size) throws IOException
     {
-        if (userRepo.findById(id).isEmpty())
-            throw new ItemNotFoundException("User with id " + id + " doesn't exist");
+        String hash = userRepo.findAvatarHashById(id)
+                .orElseThrow(() -> new ItemNotFoundException("User with id " + id + " has no avatar"));
+
+        Path file = avatarStore.resolve(hash, size);
 
-        return repRepo.findAllByTargetId(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .cacheControl(CacheControl.noCache())
+                .eTag(file.getFileName().toString())
+                .body(new FileSystemResource(file));
     }
 
-    private User userDtoToUser(UserDto userDto)
+    @GetMapping("/{id}/reputation")
+    @Loggable(method = "get", controller = "user")
+    public CursorPage<ReputationSummary> getRep(@PathVariable Long id,
+                                                @RequestParam(value = "cursor", defaultValue = "") String cursor)
     {
-        ModelMapper modelMapper = new ModelMapper();
-        return modelMapper.map(userDto, User.class);
+        if (!userRepo.existsById(id))
+            throw new ItemNotFoundException("User with id " + id + " doesn't exist");
+
+        int size = props.getReputationPageSize();
+        Pageable limit = PageRequest.of(0, size + 1);
+        Cursor before = Cursor.decode(cursor, 2);
+
+        List<ReputationSummary> reputations = before == null
+                ? repRepo.findLatestByTarget(id, limit)
+                : repRepo.findLatestByTargetBefore(id, before.getTimestamp(0), before.getLong(1), limit);
+
+        return CursorPage.of(reputations, size, r -> Cursor.of(r.getPlacedAt(), r.getId()));
     }
 }
@@ -138,4 +138,4 @@ alter table if exists gen.reputation
     add constraint REP_TARGET_USER_FK
         foreign key (target_user_id) references gen.user_info
             ON UPDATE CASCADE
-            ON DELETE CASCADE;
\ No newline at end of file
+            ON DELETE CASCADE;
@@ -0,0 +1,8 @@
+alter table if exists gen.topic
+    add column if not exists last_comment_at timestamp;
+
+alter table if exists gen.topic
+    add column if not exists comment_count int8 not null default 0;
+
+create index if not exists IX_Topic_SectionId_LastCommentAt
+    on gen.topic (section_id, last_comment_at desc nulls last, id desc);
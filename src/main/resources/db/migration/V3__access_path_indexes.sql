@@ -0,0 +1,43 @@
+-- comments of a topic sorted by date, keyset pages, topic cascade delete
+create index if not exists IX_Comment_TopicId_PlacedAt
+    on gen.comment (topic_id, placed_at, id);
+
+-- reply cascade delete
+create index if not exists IX_Comment_ParentCommentId
+    on gen.comment (parent_comment_id);
+
+-- all comments sorted by date
+create index if not exists IX_Comment_PlacedAt
+    on gen.comment (placed_at, id);
+
+-- user delete sets comment.user_id to null
+create index if not exists IX_Comment_UserId
+    on gen.comment (user_id);
+
+-- all topics sorted by date
+create index if not exists IX_Topic_PlacedAt
+    on gen.topic (placed_at, id);
+
+-- user delete sets topic.user_id to null
+create index if not exists IX_Topic_UserId
+    on gen.topic (user_id);
+
+-- likes of a comment, comment cascade delete
+create index if not exists IX_Like_CommentId
+    on gen.like (comment_id);
+
+-- reputation of a user, user cascade delete
+create index if not exists IX_Reputation_TargetUserId
+    on gen.reputation (target_user_id);
+
+-- user delete sets reputation.user_id to null
+create index if not exists IX_Reputation_UserId
+    on gen.reputation (user_id);
+
+-- tags of a topic, topic cascade delete; tag_id is already the leading primary key column
+create index if not exists IX_TopicTag_TopicId
+    on gen.topic_tag (topic_id);
+
+-- users of a role, role delete sets user_info.role_id to null
+create index if not exists IX_UserInfo_RoleId
+    on gen.user_info (role_id);
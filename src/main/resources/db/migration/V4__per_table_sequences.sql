@@ -0,0 +1,26 @@
+-- Pooled allocation: Hibernate takes a block of 50 ids per nextval, so increment must match allocationSize.
+-- Every sequence starts above the shared hibernate_sequence, which all existing ids came from.
+
+create sequence if not exists gen.comment_seq increment 50;
+select setval('gen.comment_seq', (select last_value from gen.hibernate_sequence) + 50, false);
+
+create sequence if not exists gen.like_seq increment 50;
+select setval('gen.like_seq', (select last_value from gen.hibernate_sequence) + 50, false);
+
+create sequence if not exists gen.reputation_seq increment 50;
+select setval('gen.reputation_seq', (select last_value from gen.hibernate_sequence) + 50, false);
+
+create sequence if not exists gen.role_seq increment 50;
+select setval('gen.role_seq', (select last_value from gen.hibernate_sequence) + 50, false);
+
+create sequence if not exists gen.section_seq increment 50;
+select setval('gen.section_seq', (select last_value from gen.hibernate_sequence) + 50, false);
+
+create sequence if not exists gen.tag_seq increment 50;
+select setval('gen.tag_seq', (select last_value from gen.hibernate_sequence) + 50, false);
+
+create sequence if not exists gen.topic_seq increment 50;
+select setval('gen.topic_seq', (select last_value from gen.hibernate_sequence) + 50, false);
+
+create sequence if not exists gen.user_info_seq increment 50;
+select setval('gen.user_info_seq', (select last_value from gen.hibernate_sequence) + 50, false);
@@ -0,0 +1,3 @@
+-- Avatars move to AvatarStore, user_info.avatar is kept until forum.backfillAvatars has copied it
+alter table if exists gen.user_info
+    add column if not exists avatar_hash varchar(64);
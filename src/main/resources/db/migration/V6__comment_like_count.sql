@@ -0,0 +1,7 @@
+alter table if exists gen.comment
+    add column if not exists like_count int8 not null default 0;
+
+update gen.comment c
+    set like_count = s.cnt
+    from (select comment_id, count(*) as cnt from gen.like group by comment_id) as s
+    where c.id = s.comment_id;
@@ -0,0 +1,20 @@
+alter table if exists gen.user_info
+    add column if not exists reputation int8 not null default 0;
+
+update gen.user_info u
+    set reputation = s.cnt
+    from (select target_user_id, count(*) as cnt from gen.reputation group by target_user_id) as s
+    where u.id = s.target_user_id;
+
+-- rows given before the column existed get the migration time
+alter table if exists gen.reputation
+    add column if not exists placed_at timestamp not null default now();
+
+alter table if exists gen.reputation
+    alter column placed_at drop default;
+
+-- reputation history of a user, keyset pages, user cascade delete
+drop index if exists gen.IX_Reputation_TargetUserId;
+
+create index if not exists IX_Reputation_TargetUserId_PlacedAt
+    on gen.reputation (target_user_id, placed_at, id);
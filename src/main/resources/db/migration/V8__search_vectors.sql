@@ -0,0 +1,14 @@
+-- full-text search over topic names and comment text, kept current by postgres on every insert and update
+alter table if exists gen.topic
+    add column if not exists search_vector tsvector
+        generated always as (setweight(to_tsvector('english', coalesce(name, '')), 'A')) stored;
+
+alter table if exists gen.comment
+    add column if not exists search_vector tsvector
+        generated always as (setweight(to_tsvector('english', coalesce(text, '')), 'B')) stored;
+
+create index if not exists IX_Topic_SearchVector
+    on gen.topic using gin (search_vector);
+
+create index if not exists IX_Comment_SearchVector
+    on gen.comment using gin (search_vector);
@@ -0,0 +1,228 @@
+package my.project.forum.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import my.project.forum.ForumApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends the same anonymous GETs to ForumApplication and ReactiveReadApplication and compares
+ * the responses. ReadRepository repeats the JPQL summary queries as SQL, so a column or join
+ * changed on one side only shows up here.
+ *
+ * Both applications read the forum database. The test commits a section with topics, comments,
+ * replies and a like placed after everything else, so they lead the lists, and deletes them afterwards.
+ */
+@SpringBootTest(classes = ForumApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReactiveReadComparisonTest {
+
+    private static final int TOPICS = 6;
+    private static final int COMMENTS = 7;
+
+    @LocalServerPort
+    private int mvcPort;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ConfigurableApplicationContext reactive;
+    private int reactivePort;
+
+    private Long section;
+    private Long user;
+    private final List<Long> topics = new ArrayList<>();
+
+    @BeforeAll
+    public void setUp()
+    {
+        reactive = new SpringApplicationBuilder(ReactiveReadApplication.class)
+                .run("--spring.config.name=reactive", "--server.port=0");
+        reactivePort = ((ReactiveWebServerApplicationContext) reactive).getWebServer().getPort();
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        section = nextId("section_seq");
+        jdbcTemplate.update("INSERT INTO gen.section (id, name, placed_at) VALUES (?, ?, ?)",
+                section, "Comparison " + section, start);
+
+        user = nextId("user_info_seq");
+        jdbcTemplate.update("INSERT INTO gen.user_info (id, username, email, password, registration_date, " +
+                        "non_locked, reputation, role_id) " +
+                        "VALUES (?, ?, ?, 'x', ?, true, 7, (SELECT MIN(id) FROM gen.role))",
+                user, "comparison" + user, "comparison" + user + "@mail.ru", start.toLocalDate());
+
+        for (int t = 0; t < TOPICS; t++)
+        {
+            Long topic = nextId("topic_seq");
+            topics.add(topic);
+            //Every other topic is anonymous and without comments, the rest were last commented in reverse order
+            boolean commented = t % 2 == 0;
+            jdbcTemplate.update("INSERT INTO gen.topic (id, name, placed_at, views, section_id, user_id, " +
+                            "last_comment_at, comment_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    topic, "Comparison topic " + t, start.plusMinutes(t), t * 3, section,
+                    commented ? user : null, commented ? start.plusHours(TOPICS - t) : null,
+                    commented ? COMMENTS : 0);
+        }
+
+        Long topic = topics.get(0);
+        Long parent = null;
+        for (int c = 0; c < COMMENTS; c++)
+        {
+            Long comment = nextId("comment_seq");
+            //The second comment of each pair replies to the first one
+            parent = c % 2 == 0 ? comment : parent;
+            jdbcTemplate.update("INSERT INTO gen.comment (id, text, placed_at, topic_id, parent_comment_id, " +
+                            "user_id, like_count) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    comment, "Comparison comment " + c, start.plusMinutes(c), topic,
+                    c % 2 == 0 ? null : parent, c % 3 == 0 ? null : user, c == 1 ? 1 : 0);
+            if (c == 1)
+                jdbcTemplate.update("INSERT INTO gen.like (id, comment_id, user_id) VALUES (?, ?, ?)",
+                        nextId("like_seq"), comment, user);
+        }
+    }
+
+    @AfterAll
+    public void tearDown()
+    {
+        try
+        {
+            jdbcTemplate.update("DELETE FROM gen.like WHERE user_id = ?", user);
+            //Replies first, they reference their parents
+            jdbcTemplate.update("DELETE FROM gen.comment WHERE topic_id = ? AND parent_comment_id IS NOT NULL", topics.get(0));
+            jdbcTemplate.update("DELETE FROM gen.comment WHERE topic_id = ?", topics.get(0));
+            jdbcTemplate.update("DELETE FROM gen.topic WHERE section_id = ?", section);
+            jdbcTemplate.update("DELETE FROM gen.section WHERE id = ?", section);
+            jdbcTemplate.update("DELETE FROM gen.user_info WHERE id = ?", user);
+        }
+        finally
+        {
+            if (reactive != null)
+                reactive.close();
+        }
+    }
+
+    @Test
+    public void sections_ShouldMatch() throws Exception
+    {
+        assertSameJson("/sections");
+        assertSameJson("/sections?page=1");
+    }
+
+    @Test
+    public void sectionTopics_ShouldMatch() throws Exception
+    {
+        JsonNode first = assertSameJson("/sections/" + section + "/topics");
+        assertEquals(TOPICS, first.get("totalElements").asInt());
+
+        assertSameJson("/sections/" + section + "/topics?page=1");
+        assertSameJson("/sections/" + section + "/topics?page=5");
+    }
+
+    @Test
+    public void topicsByCursor_ShouldMatch() throws Exception
+    {
+        List<JsonNode> pages = assertSamePages("/topics?cursor=", 3);
+
+        assertEquals("Comparison topic " + (TOPICS - 1), pages.get(0).get("content").get(0).get("name").asText());
+    }
+
+    @Test
+    public void topicCommentsByCursor_ShouldMatch() throws Exception
+    {
+        List<JsonNode> pages = assertSamePages("/topics/" + topics.get(0) + "/comments?cursor=", 3);
+
+        assertTrue(pages.get(pages.size() - 1).get("next").isNull());
+        assertSamePages("/topics/" + topics.get(1) + "/comments?cursor=", 1);
+    }
+
+    @Test
+    public void commentsByCursor_ShouldMatch() throws Exception
+    {
+        assertSamePages("/comments?cursor=", 10);
+    }
+
+    @Test
+    public void errors_ShouldHaveSameStatus() throws Exception
+    {
+        assertSameStatus("/sections/" + (section + 100_000) + "/topics", 404);
+        assertSameStatus("/topics?cursor=nonsense", 400);
+        assertSameStatus("/topics/" + topics.get(0) + "/comments?cursor=nonsense", 400);
+        assertSameStatus("/comments?cursor=nonsense", 400);
+    }
+
+    //Follows the cursors for up to the given number of pages, the pages must match one by one
+    private List<JsonNode> assertSamePages(String firstPage, int maxPages) throws Exception
+    {
+        List<JsonNode> pages = new ArrayList<>();
+        String path = firstPage;
+        while (path != null && pages.size() < maxPages)
+        {
+            JsonNode page = assertSameJson(path);
+            pages.add(page);
+
+            JsonNode next = page.get("next");
+            path = next.isNull() ? null
+                    : firstPage.replace("cursor=", "cursor=" + URLEncoder.encode(next.asText(), StandardCharsets.UTF_8));
+        }
+        return pages;
+    }
+
+    private JsonNode assertSameJson(String path) throws Exception
+    {
+        HttpResponse<String> mvc = get(mvcPort, path);
+        HttpResponse<String> reactive = get(reactivePort, path);
+
+        assertEquals(200, mvc.statusCode(), path);
+        assertEquals(200, reactive.statusCode(), path);
+        JsonNode mvcJson = mapper.readTree(mvc.body());
+        assertEquals(mvcJson, mapper.readTree(reactive.body()), path);
+        return mvcJson;
+    }
+
+    private void assertSameStatus(String path, int status) throws Exception
+    {
+        assertEquals(status, get(mvcPort, path).statusCode(), path);
+        assertEquals(status, get(reactivePort, path).statusCode(), path);
+    }
+
+    private HttpResponse<String> get(int port, String path) throws IOException, InterruptedException
+    {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", "application/json")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Long nextId(String sequence)
+    {
+        return jdbcTemplate.queryForObject("SELECT nextval('gen." + sequence + "')", Long.class);
+    }
+}
@@ -0,0 +1,38 @@
+package my.project.forum.reactive;
+
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.cursor.CursorPage;
+import my.project.forum.data.postgres.projection.CommentSummary;
+import my.project.forum.service.Properties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/comments")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCommentController {
+
+    private ReadRepository readRepo;
+    private Properties props;
+
+    @Autowired
+    public ReactiveCommentController(ReadRepository readRepo,
+                                     Properties props)
+    {
+        this.readRepo = readRepo;
+        this.props = props;
+    }
+
+    @GetMapping(produces = "application/json", params = "cursor")
+    public Mono<CursorPage<CommentSummary>> getComments(@RequestParam("cursor") String cursor)
+    {
+        int size = props.getCommentsPageSize();
+        Cursor after = Cursor.decode(cursor, 2);
+
+        return readRepo.findOldestComments(after, size + 1)
+                .collectList()
+                .map(comments -> CursorPage.of(comments, size, c -> Cursor.of(c.getPlacedAt(), c.getId())));
+    }
+}
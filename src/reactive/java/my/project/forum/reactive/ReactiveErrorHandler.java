@@ -0,0 +1,27 @@
+package my.project.forum.reactive;
+
+import my.project.forum.error.InvalidCursorException;
+import my.project.forum.error.ItemNotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+
+//Same statuses as CustomGlobalExceptionHandler, the bodies come from the default error handler
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveErrorHandler {
+
+    @ExceptionHandler(ItemNotFoundException.class)
+    public void itemHandleNotFound()
+    {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public void cursorHandleInvalid()
+    {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+    }
+}
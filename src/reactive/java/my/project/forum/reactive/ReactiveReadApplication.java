@@ -0,0 +1,38 @@
+package my.project.forum.reactive;
+
+import my.project.forum.service.Properties;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Read-only WebFlux application serving the list endpoints of sections, topics and comments
+ * from R2DBC, run next to ForumApplication which keeps every write. A proxy (docker/nginx.conf) sends
+ *   GET /sections, GET /sections/{id}/topics,
+ *   GET /topics?cursor=, GET /topics/{id}/comments?cursor=, GET /comments?cursor=
+ * of anonymous clients here and everything else to ForumApplication. Responses have the same JSON,
+ * but like and view counts lag by up to the flush intervals of ForumApplication.
+ *
+ * Settings are read from reactive.properties instead of application.properties. The classes
+ * of this package are only active in a reactive web application, so ForumApplication skips them.
+ */
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(Properties.class)
+public class ReactiveReadApplication {
+
+    public static void main(String[] args) {
+        System.setProperty("spring.config.name", "reactive");
+        SpringApplication.run(ReactiveReadApplication.class, args);
+    }
+
+    //Tomcat is on the classpath for ForumApplication and would be picked first
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory()
+    {
+        return new NettyReactiveWebServerFactory();
+    }
+}
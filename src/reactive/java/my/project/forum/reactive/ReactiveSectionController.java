@@ -0,0 +1,44 @@
+package my.project.forum.reactive;
+
+import my.project.forum.data.postgres.entity.Section;
+import my.project.forum.data.postgres.projection.TopicSummary;
+import my.project.forum.error.ItemNotFoundException;
+import my.project.forum.service.Properties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/sections")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSectionController {
+
+    private ReadRepository readRepo;
+    private Properties props;
+
+    @Autowired
+    public ReactiveSectionController(ReadRepository readRepo,
+                                     Properties props)
+    {
+        this.readRepo = readRepo;
+        this.props = props;
+    }
+
+    @GetMapping(produces = "application/json")
+    public Mono<Page<Section>> getSections(@RequestParam(value = "page", defaultValue = "0") int page)
+    {
+        return readRepo.findSections(page, props.getSectionsPageSize());
+    }
+
+    @GetMapping("/{id}/topics")
+    public Mono<Page<TopicSummary>> getSectionTopics(@PathVariable Long id,
+                                                     @RequestParam(value = "page", defaultValue = "0") int page)
+    {
+        return readRepo.existsSection(id)
+                .flatMap(exists -> exists
+                        ? readRepo.findTopicsBySection(id, page, props.getTopicsPageSize())
+                        : Mono.error(new ItemNotFoundException("Section with id " + id + " doesn't exist")));
+    }
+}
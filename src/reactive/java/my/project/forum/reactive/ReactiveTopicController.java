@@ -0,0 +1,54 @@
+package my.project.forum.reactive;
+
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.cursor.CursorPage;
+import my.project.forum.data.postgres.projection.CommentSummary;
+import my.project.forum.data.postgres.projection.TopicSummary;
+import my.project.forum.error.ItemNotFoundException;
+import my.project.forum.service.Properties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/topics")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTopicController {
+
+    private ReadRepository readRepo;
+    private Properties props;
+
+    @Autowired
+    public ReactiveTopicController(ReadRepository readRepo,
+                                   Properties props)
+    {
+        this.readRepo = readRepo;
+        this.props = props;
+    }
+
+    @GetMapping(produces = "application/json", params = "cursor")
+    public Mono<CursorPage<TopicSummary>> getTopics(@RequestParam("cursor") String cursor)
+    {
+        int size = props.getTopicsPageSize();
+        Cursor before = Cursor.decode(cursor, 2);
+
+        return readRepo.findLatestTopics(before, size + 1)
+                .collectList()
+                .map(topics -> CursorPage.of(topics, size, t -> Cursor.of(t.getPlacedAt(), t.getId())));
+    }
+
+    @GetMapping(value = "/{id}/comments", params = "cursor")
+    public Mono<CursorPage<CommentSummary>> getComments(@PathVariable Long id,
+                                                        @RequestParam("cursor") String cursor)
+    {
+        int size = props.getCommentsPageSize();
+        Cursor before = Cursor.decode(cursor, 2);
+
+        return readRepo.existsTopic(id)
+                .flatMap(exists -> exists
+                        ? readRepo.findLatestCommentsByTopic(id, before, size + 1).collectList()
+                        : Mono.error(new ItemNotFoundException("Topic with id " + id + " doesn't exist")))
+                .map(comments -> CursorPage.of(comments, size, c -> Cursor.of(c.getPlacedAt(), c.getId())));
+    }
+}
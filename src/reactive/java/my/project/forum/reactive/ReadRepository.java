@@ -0,0 +1,188 @@
+package my.project.forum.reactive;
+
+import io.r2dbc.spi.Row;
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.postgres.entity.Section;
+import my.project.forum.data.postgres.projection.CommentSummary;
+import my.project.forum.data.postgres.projection.TopicSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * The queries of SectionRepository, TopicRepository and CommentRepository behind the list
+ * endpoints, in SQL over R2DBC. A connection is only held while a query runs.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReadRepository {
+
+    private static final String TOPIC_SUMMARY = "SELECT t.id, t.name, t.placed_at, t.views, t.last_comment_at, " +
+                                                    "t.comment_count, t.section_id, " +
+                                                    "u.id AS author_id, u.username, r.color, u.reputation " +
+                                                "FROM gen.topic t " +
+                                                "LEFT JOIN gen.user_info u ON u.id = t.user_id " +
+                                                "LEFT JOIN gen.role r ON r.id = u.role_id ";
+
+    //Anonymous requests only, so likedByMe is always false
+    private static final String COMMENT_SUMMARY = "SELECT c.id, c.text, c.placed_at, c.topic_id, c.parent_comment_id, " +
+                                                      "u.id AS author_id, u.username, r.color, u.reputation, c.like_count " +
+                                                  "FROM gen.comment c " +
+                                                  "LEFT JOIN gen.user_info u ON u.id = c.user_id " +
+                                                  "LEFT JOIN gen.role r ON r.id = u.role_id ";
+
+    private DatabaseClient client;
+
+    @Autowired
+    public ReadRepository(DatabaseClient client)
+    {
+        this.client = client;
+    }
+
+    public Mono<Page<Section>> findSections(int page, int size)
+    {
+        Flux<Section> rows = client.execute("SELECT id, name, placed_at FROM gen.section " +
+                                            "ORDER BY placed_at DESC LIMIT :limit OFFSET :offset")
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(row -> new Section(row.get("id", Long.class), row.get("name", String.class),
+                        row.get("placed_at", LocalDateTime.class)))
+                .all();
+
+        Mono<Long> total = client.execute("SELECT count(*) FROM gen.section")
+                .map(row -> row.get(0, Long.class))
+                .one();
+
+        return page(rows, total, PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "placedAt")));
+    }
+
+    public Mono<Boolean> existsSection(Long id)
+    {
+        return exists("SELECT 1 FROM gen.section WHERE id = :id", id);
+    }
+
+    public Mono<Page<TopicSummary>> findTopicsBySection(Long sectionId, int page, int size)
+    {
+        Flux<TopicSummary> rows = client.execute(TOPIC_SUMMARY +
+                                                 "WHERE t.section_id = :sectionId " +
+                                                 "ORDER BY t.last_comment_at DESC NULLS LAST, t.id DESC " +
+                                                 "LIMIT :limit OFFSET :offset")
+                .bind("sectionId", sectionId)
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(ReadRepository::topicSummary)
+                .all();
+
+        Mono<Long> total = client.execute("SELECT count(*) FROM gen.topic WHERE section_id = :sectionId")
+                .bind("sectionId", sectionId)
+                .map(row -> row.get(0, Long.class))
+                .one();
+
+        return page(rows, total, PageRequest.of(page, size));
+    }
+
+    //A null cursor starts from the newest topic
+    public Flux<TopicSummary> findLatestTopics(Cursor before, int limit)
+    {
+        DatabaseClient.GenericExecuteSpec query = client.execute(TOPIC_SUMMARY +
+                (before == null ? "" : "WHERE t.placed_at <= :placedAt AND (t.placed_at < :placedAt OR t.id < :id) ") +
+                "ORDER BY t.placed_at DESC, t.id DESC LIMIT :limit")
+                .bind("limit", limit);
+
+        if (before != null)
+            query = query.bind("placedAt", before.getTimestamp(0)).bind("id", before.getLong(1));
+
+        return query.map(ReadRepository::topicSummary).all();
+    }
+
+    public Mono<Boolean> existsTopic(Long id)
+    {
+        return exists("SELECT 1 FROM gen.topic WHERE id = :id", id);
+    }
+
+    //A null cursor starts from the newest comment of the topic
+    public Flux<CommentSummary> findLatestCommentsByTopic(Long topicId, Cursor before, int limit)
+    {
+        DatabaseClient.GenericExecuteSpec query = client.execute(COMMENT_SUMMARY +
+                "WHERE c.topic_id = :topicId " +
+                (before == null ? "" : "AND c.placed_at <= :placedAt AND (c.placed_at < :placedAt OR c.id < :id) ") +
+                "ORDER BY c.placed_at DESC, c.id DESC LIMIT :limit")
+                .bind("topicId", topicId)
+                .bind("limit", limit);
+
+        if (before != null)
+            query = query.bind("placedAt", before.getTimestamp(0)).bind("id", before.getLong(1));
+
+        return query.map(ReadRepository::commentSummary).all();
+    }
+
+    //A null cursor starts from the oldest comment
+    public Flux<CommentSummary> findOldestComments(Cursor after, int limit)
+    {
+        DatabaseClient.GenericExecuteSpec query = client.execute(COMMENT_SUMMARY +
+                (after == null ? "" : "WHERE c.placed_at >= :placedAt AND (c.placed_at > :placedAt OR c.id > :id) ") +
+                "ORDER BY c.placed_at ASC, c.id ASC LIMIT :limit")
+                .bind("limit", limit);
+
+        if (after != null)
+            query = query.bind("placedAt", after.getTimestamp(0)).bind("id", after.getLong(1));
+
+        return query.map(ReadRepository::commentSummary).all();
+    }
+
+    private Mono<Boolean> exists(String sql, Long id)
+    {
+        return client.execute(sql)
+                .bind("id", id)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    private static <T> Mono<Page<T>> page(Flux<T> rows, Mono<Long> total, PageRequest pageable)
+    {
+        return Mono.zip(rows.collectList(), total)
+                .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    private static TopicSummary topicSummary(Row row)
+    {
+        return new TopicSummary(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("placed_at", LocalDateTime.class),
+                row.get("views", Long.class),
+                row.get("last_comment_at", LocalDateTime.class),
+                row.get("comment_count", Long.class),
+                row.get("section_id", Long.class),
+                row.get("author_id", Long.class),
+                row.get("username", String.class),
+                row.get("color", Integer.class),
+                row.get("reputation", Long.class));
+    }
+
+    private static CommentSummary commentSummary(Row row)
+    {
+        return new CommentSummary(
+                row.get("id", Long.class),
+                row.get("text", String.class),
+                row.get("placed_at", LocalDateTime.class),
+                row.get("topic_id", Long.class),
+                row.get("parent_comment_id", Long.class),
+                row.get("author_id", Long.class),
+                row.get("username", String.class),
+                row.get("color", Integer.class),
+                row.get("reputation", Long.class),
+                row.get("like_count", Long.class),
+                null);
+    }
+}
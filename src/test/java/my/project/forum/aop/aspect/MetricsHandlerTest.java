@@ -0,0 +1,132 @@
+package my.project.forum.aop.aspect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.forum.data.postgres.repository.CommentRepository;
+import my.project.forum.data.postgres.repository.CommentThreadRepository;
+import my.project.forum.data.postgres.repository.TopicRepository;
+import my.project.forum.error.InvalidTagExpressionException;
+import my.project.forum.service.*;
+import my.project.forum.web.TopicController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MetricsHandlerTest {
+
+    private SimpleMeterRegistry registry;
+    private TopicRepository topicRepo;
+    private TopicController controller;
+
+    @BeforeEach
+    public void setUp()
+    {
+        registry = new SimpleMeterRegistry();
+        topicRepo = mock(TopicRepository.class);
+        Properties props = mock(Properties.class);
+        when(props.getTopicsPageSize()).thenReturn(2);
+
+        TopicController target = new TopicController(topicRepo, mock(CommentRepository.class), mock(TopicViewCounter.class),
+                mock(CommentLikeCounter.class), props, new DtoMapper(), new ResourceVersions(),
+                mock(TopicTagIndex.class), mock(CommentThreadRepository.class));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MetricsHandler(registry));
+        controller = factory.getProxy();
+    }
+
+    @Test
+    public void measure_SuccessfulCall_ShouldCountAndTime()
+    {
+        when(topicRepo.findSummaries(ArgumentMatchers.any(Pageable.class))).thenAnswer(invocation -> {
+            //The call is in flight while the handler runs
+            assertEquals(1, registry.get("forum.endpoint.in.flight").tag("handler", "getTopics").tag("params", "none")
+                    .gauge().value());
+            return Page.empty();
+        });
+
+        controller.getTopics(0);
+        controller.getTopics(1);
+
+        assertEquals(2, registry.get("forum.endpoint.calls")
+                .tags("controller", "topic", "method", "get", "handler", "getTopics", "params", "none",
+                        "outcome", "success", "exception", "none")
+                .counter().count());
+        assertEquals(2, registry.get("forum.endpoint.latency")
+                .tags("controller", "topic", "method", "get", "handler", "getTopics", "params", "none")
+                .timer().count());
+        assertEquals(0, registry.get("forum.endpoint.in.flight")
+                .tags("handler", "getTopics", "params", "none")
+                .gauge().value());
+    }
+
+    @Test
+    public void measure_ThrowingCall_ShouldCountByExceptionAndRethrow()
+    {
+        assertThrows(InvalidTagExpressionException.class, () -> controller.getTopicsByTags("java AND", null, null));
+
+        assertEquals(1, registry.get("forum.endpoint.calls")
+                .tags("handler", "getTopicsByTags", "params", "tags",
+                        "outcome", "error", "exception", "InvalidTagExpressionException")
+                .counter().count());
+        assertEquals(0, registry.get("forum.endpoint.calls")
+                .tags("handler", "getTopicsByTags", "outcome", "success")
+                .counter().count());
+        //Failed calls are timed as well and leave no call in flight
+        assertEquals(1, registry.get("forum.endpoint.latency").tag("handler", "getTopicsByTags").timer().count());
+        assertEquals(0, registry.get("forum.endpoint.in.flight").tag("handler", "getTopicsByTags").gauge().value());
+    }
+
+    @Test
+    public void measure_OverloadedHandlers_ShouldBeToldApartByParams()
+    {
+        when(topicRepo.findSummaries(ArgumentMatchers.any(Pageable.class))).thenReturn(Page.empty());
+        when(topicRepo.findLatest(ArgumentMatchers.any(Pageable.class))).thenReturn(List.of());
+
+        controller.getTopics(0);
+        controller.getTopics("");
+        controller.getTopics("");
+
+        List<String> params = registry.get("forum.endpoint.latency").tag("handler", "getTopics").timers().stream()
+                .map(timer -> timer.getId().getTag("params"))
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("cursor,!tags", "none"), params);
+
+        assertEquals(1, registry.get("forum.endpoint.latency").tags("handler", "getTopics", "params", "none")
+                .timer().count());
+        assertEquals(2, registry.get("forum.endpoint.latency").tags("handler", "getTopics", "params", "cursor,!tags")
+                .timer().count());
+        //Each overload has its own in-flight gauge instead of sharing the first one registered
+        assertEquals(2, registry.get("forum.endpoint.in.flight").tag("handler", "getTopics").gauges().size());
+    }
+
+    @Test
+    public void measure_ShouldRegisterMetersOncePerHandler()
+    {
+        when(topicRepo.findSummaries(ArgumentMatchers.any(Pageable.class))).thenReturn(Page.empty());
+
+        for (int i = 0; i < 5; i++)
+            controller.getTopics(i);
+
+        Map<String, Long> meters = registry.getMeters().stream()
+                .filter(meter -> "getTopics".equals(meter.getId().getTag("handler")))
+                .collect(Collectors.groupingBy(meter -> meter.getId().getName(), Collectors.counting()));
+        //One timer, success counter and in-flight gauge, plus a gauge per published percentile
+        assertEquals(Map.of("forum.endpoint.latency", 1L,
+                "forum.endpoint.latency.percentile", 3L,
+                "forum.endpoint.calls", 1L,
+                "forum.endpoint.in.flight", 1L), meters);
+        assertEquals(5, registry.get("forum.endpoint.calls").tag("handler", "getTopics").counter().count());
+    }
+}
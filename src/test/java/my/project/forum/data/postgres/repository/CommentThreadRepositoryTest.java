@@ -0,0 +1,211 @@
+package my.project.forum.data.postgres.repository;
+
+import my.project.forum.data.builder.projection.CommentNodeBuilder;
+import my.project.forum.data.builder.projection.CommentSummaryBuilder;
+import my.project.forum.data.postgres.projection.CommentNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the recursive thread query against the forum database. Every test inserts its own
+ * section, topics and comments and rolls them back afterwards.
+ */
+@SpringBootTest
+@Transactional
+public class CommentThreadRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+    @Autowired
+    private CommentThreadRepository threadRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long topic;
+    private Long otherTopic;
+    private Long user;
+
+    //a and b are top-level, a1 and a2 reply to a, a1x to a1 and a1xy to a1x
+    private Long a, b, a1, a2, a1x, a1xy, other;
+
+    @BeforeEach
+    public void setUp()
+    {
+        Long section = nextId("section_seq");
+        jdbcTemplate.update("INSERT INTO gen.section (id, name, placed_at) VALUES (?, ?, ?)",
+                section, "Thread test " + section, START);
+
+        topic = insertTopic(section);
+        otherTopic = insertTopic(section);
+
+        user = nextId("user_info_seq");
+        jdbcTemplate.update("INSERT INTO gen.user_info (id, username, email, password, registration_date, non_locked) " +
+                "VALUES (?, ?, ?, 'x', ?, true)", user, "thread" + user, "thread" + user + "@mail.ru", START.toLocalDate());
+
+        a = insertComment(topic, null, null, 0);
+        b = insertComment(topic, null, null, 1);
+        a1 = insertComment(topic, a, user, 2);
+        a2 = insertComment(topic, a, null, 3);
+        a1x = insertComment(topic, a1, null, 4);
+        a1xy = insertComment(topic, a1x, null, 5);
+        other = insertComment(otherTopic, null, null, 6);
+
+        jdbcTemplate.update("INSERT INTO gen.like (id, comment_id, user_id) VALUES (?, ?, ?)", nextId("like_seq"), a1, user);
+    }
+
+    @Test
+    public void findThread_WholeTopic_ShouldNestRepliesUnderParents()
+    {
+        List<CommentNode> roots = threadRepo.findThread(topic, null, 10, null, 100);
+
+        assertEquals(List.of(a, b), ids(roots));
+        CommentNode nodeA = roots.get(0);
+        assertEquals(2, nodeA.getReplyCount());
+        assertEquals(List.of(a1, a2), ids(nodeA.getReplies()));
+        assertEquals(0, roots.get(1).getReplyCount());
+        assertEquals(List.of(), ids(roots.get(1).getReplies()));
+
+        CommentNode nodeA1 = nodeA.getReplies().get(0);
+        assertEquals(a, nodeA1.getComment().getParentId());
+        assertEquals("thread" + user, nodeA1.getComment().getAuthor().getUsername());
+        assertEquals(List.of(a1x), ids(nodeA1.getReplies()));
+        assertEquals(List.of(a1xy), ids(nodeA1.getReplies().get(0).getReplies()));
+    }
+
+    @Test
+    public void findThread_MaxDepth_ShouldCutDeeperReplies()
+    {
+        List<CommentNode> roots = threadRepo.findThread(topic, null, 1, null, 100);
+
+        CommentNode nodeA1 = roots.get(0).getReplies().get(0);
+        assertEquals(List.of(a1, a2), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(), ids(nodeA1.getReplies()));
+        //The reply count still tells that the branch goes on
+        assertEquals(1, nodeA1.getReplyCount());
+
+        roots = threadRepo.findThread(topic, null, 0, null, 100);
+
+        assertEquals(List.of(a, b), ids(roots));
+        assertEquals(List.of(), ids(roots.get(0).getReplies()));
+    }
+
+    @Test
+    public void findThread_Limit_ShouldCutDeepestAndNewestFirst()
+    {
+        List<CommentNode> roots = threadRepo.findThread(topic, null, 10, null, 3);
+
+        assertEquals(List.of(a, b), ids(roots));
+        assertEquals(List.of(a1), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(), ids(roots.get(0).getReplies().get(0).getReplies()));
+
+        roots = threadRepo.findThread(topic, null, 10, null, 5);
+
+        assertEquals(5, count(roots));
+        assertEquals(List.of(a1x), ids(roots.get(0).getReplies().get(0).getReplies()));
+        assertEquals(List.of(), ids(roots.get(0).getReplies().get(0).getReplies().get(0).getReplies()));
+    }
+
+    @Test
+    public void findThread_Subtree_ShouldStartFromComment()
+    {
+        List<CommentNode> roots = threadRepo.findThread(topic, a1, 10, null, 100);
+
+        assertEquals(List.of(a1), ids(roots));
+        assertEquals(List.of(a1x), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(a1xy), ids(roots.get(0).getReplies().get(0).getReplies()));
+
+        roots = threadRepo.findThread(topic, a1, 1, null, 100);
+
+        assertEquals(List.of(a1x), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(), ids(roots.get(0).getReplies().get(0).getReplies()));
+    }
+
+    @Test
+    public void findThread_CommentOfAnotherTopic_ShouldReturnNothing()
+    {
+        assertEquals(List.of(), threadRepo.findThread(topic, other, 10, null, 100));
+        assertEquals(List.of(other), ids(threadRepo.findThread(otherTopic, null, 10, null, 100)));
+    }
+
+    @Test
+    public void findThread_User_ShouldMarkOwnLikes()
+    {
+        List<CommentNode> roots = threadRepo.findThread(topic, null, 10, user, 100);
+
+        assertTrue(roots.get(0).getReplies().get(0).getComment().isLikedByMe());
+        assertFalse(roots.get(0).getComment().isLikedByMe());
+
+        roots = threadRepo.findThread(topic, null, 10, null, 100);
+
+        assertFalse(roots.get(0).getReplies().get(0).getComment().isLikedByMe());
+    }
+
+    @Test
+    public void toTrees_ShouldAttachRepliesInOrderAndKeepOrphansAsRoots()
+    {
+        List<CommentNode> roots = CommentThreadRepository.toTrees(List.of(
+                node(5L, 1L),
+                node(6L, 2L),
+                node(7L, 5L),
+                node(8L, 5L),
+                node(9L, 7L)));
+
+        //5 and 6 reply to comments that weren't returned, as the root of a subtree does
+        assertEquals(List.of(5L, 6L), ids(roots));
+        assertEquals(List.of(7L, 8L), ids(roots.get(0).getReplies()));
+        assertEquals(List.of(9L), ids(roots.get(0).getReplies().get(0).getReplies()));
+        assertEquals(List.of(), ids(roots.get(1).getReplies()));
+
+        assertEquals(List.of(), CommentThreadRepository.toTrees(List.of()));
+    }
+
+    private Long insertTopic(Long section)
+    {
+        Long id = nextId("topic_seq");
+        jdbcTemplate.update("INSERT INTO gen.topic (id, name, placed_at, views, section_id) VALUES (?, ?, ?, 0, ?)",
+                id, "Thread test " + id, START, section);
+        return id;
+    }
+
+    private Long insertComment(Long topicId, Long parentId, Long userId, int minutes)
+    {
+        Long id = nextId("comment_seq");
+        jdbcTemplate.update("INSERT INTO gen.comment (id, text, placed_at, topic_id, parent_comment_id, user_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", id, "Comment " + id, START.plusMinutes(minutes), topicId, parentId, userId);
+        return id;
+    }
+
+    //Hibernate takes whole blocks below the values it gets, so a value taken here is never reused
+    private Long nextId(String sequence)
+    {
+        return jdbcTemplate.queryForObject("SELECT nextval('gen." + sequence + "')", Long.class);
+    }
+
+    private static CommentNode node(Long id, Long parentId)
+    {
+        return new CommentNodeBuilder()
+                .comment(new CommentSummaryBuilder().id(id).parentId(parentId).build())
+                .build();
+    }
+
+    private static List<Long> ids(List<CommentNode> nodes)
+    {
+        return nodes.stream().map(n -> n.getComment().getId()).collect(Collectors.toList());
+    }
+
+    private static int count(List<CommentNode> nodes)
+    {
+        return nodes.stream().mapToInt(n -> 1 + count(n.getReplies())).sum();
+    }
+}
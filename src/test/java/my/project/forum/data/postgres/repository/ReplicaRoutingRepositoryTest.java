@@ -0,0 +1,151 @@
+package my.project.forum.data.postgres.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.forum.service.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs repository methods against the forum database behind a ReplicaRoutingDataSource. Its replica
+ * passes the health check and hands out connections of a second pool of the same database,
+ * so what matters is which pool a method takes its connection from.
+ */
+@SpringBootTest
+public class ReplicaRoutingRepositoryTest {
+
+    @Autowired
+    private TopicRepository topicRepo;
+
+    @Autowired
+    private CommentRepository commentRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ReputationRepository reputationRepo;
+
+    @BeforeEach
+    public void setUp()
+    {
+        RoutingConfig.replicaReads.clear();
+    }
+
+    @Test
+    public void declaredQueries_ShouldReadFromReplica()
+    {
+        topicRepo.findSummaries(PageRequest.of(0, 5));
+        topicRepo.findAllBySection_Id(1L, PageRequest.of(0, 5));
+        topicRepo.findLatestBefore(LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 5));
+        commentRepo.findAllByTopic_Id(1L, null, PageRequest.of(0, 5));
+        commentRepo.findDetailedById(1L);
+        userRepo.findByUsername("admin");
+        reputationRepo.findLatestByTarget(1L, PageRequest.of(0, 5));
+
+        //A page and its count are read in one transaction
+        assertEquals(7, replicaReads());
+    }
+
+    @Test
+    public void inheritedReads_ShouldReadFromReplica()
+    {
+        topicRepo.existsById(1L);
+        commentRepo.count();
+
+        assertEquals(2, replicaReads());
+    }
+
+    @Test
+    public void modifyingQueries_ShouldWriteToPrimary()
+    {
+        //A replica connection would be read-only and fail the update
+        assertEquals(0, topicRepo.recountComments(-1L));
+        assertEquals(0, topicRepo.registerComment(-1L, LocalDateTime.now()));
+        assertEquals(0, userRepo.addReputation(-1L, 1));
+
+        assertEquals(0, replicaReads());
+    }
+
+    //Replica connections taken by this thread, background jobs may take others
+    private static long replicaReads()
+    {
+        return RoutingConfig.replicaReads.stream().filter(thread -> thread == Thread.currentThread()).count();
+    }
+
+    @TestConfiguration
+    static class RoutingConfig {
+
+        static final Queue<Thread> replicaReads = new ConcurrentLinkedQueue<>();
+
+        private ReplicaRoutingDataSource routingDataSource;
+        private HikariDataSource replicaConnections;
+
+        @Bean
+        @Primary
+        public DataSource dataSource(DataSourceProperties dataSourceProps, MeterRegistry registry) throws SQLException
+        {
+            HikariDataSource primary = dataSourceProps.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            replicaConnections = dataSourceProps.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+
+            Connection standby = standbyConnection();
+            HikariDataSource replica = mock(HikariDataSource.class);
+            when(replica.getPoolName()).thenReturn("replica1");
+            when(replica.getConnection())
+                    .thenReturn(standby)
+                    .thenAnswer(invocation -> {
+                        replicaReads.add(Thread.currentThread());
+                        return replicaConnections.getConnection();
+                    });
+
+            routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), 1000, registry);
+            routingDataSource.checkReplicas();
+            return new LazyConnectionDataSourceProxy(routingDataSource);
+        }
+
+        @PreDestroy
+        public void closePools()
+        {
+            routingDataSource.close();
+            replicaConnections.close();
+        }
+
+        //Answers the health check as a streaming standby without lag
+        private static Connection standbyConnection() throws SQLException
+        {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenReturn(true);
+            when(rs.getBoolean(ArgumentMatchers.anyInt())).thenReturn(true);
+            when(rs.getDouble(3)).thenReturn(0.0);
+
+            Statement statement = mock(Statement.class);
+            when(statement.executeQuery(ArgumentMatchers.anyString())).thenReturn(rs);
+            Connection connection = mock(Connection.class);
+            when(connection.createStatement()).thenReturn(statement);
+            return connection;
+        }
+    }
+}
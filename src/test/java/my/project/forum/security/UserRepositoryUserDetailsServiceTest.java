@@ -0,0 +1,123 @@
+package my.project.forum.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.forum.data.builder.entity.RoleBuilder;
+import my.project.forum.data.builder.entity.UserBuilder;
+import my.project.forum.data.postgres.entity.User;
+import my.project.forum.data.postgres.repository.UserRepository;
+import my.project.forum.service.Properties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserRepositoryUserDetailsServiceTest {
+
+    private UserRepository userRepo;
+    private UserRepositoryUserDetailsService service;
+
+    @BeforeEach
+    public void setUp()
+    {
+        userRepo = mock(UserRepository.class);
+        when(userRepo.findByUsername("user")).thenAnswer(invocation -> Optional.of(new UserBuilder()
+                .id(1L)
+                .username("user")
+                .password("hash1")
+                .role(new RoleBuilder().id(2L).name("ROLE_USER").color(0x00FF00).build())
+                .build()));
+
+        Properties props = new Properties();
+        props.setAuthCacheSize(100);
+        props.setAuthCacheTtl(60_000);
+        service = new UserRepositoryUserDetailsService(userRepo, props, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void loadUserByUsername_ShouldLoadOnceAndHandOutCopies()
+    {
+        User first = (User) service.loadUserByUsername("user");
+        User second = (User) service.loadUserByUsername("user");
+
+        verify(userRepo, times(1)).findByUsername("user");
+        assertNotSame(first, second);
+        assertNotSame(first.getRole(), second.getRole());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(first.getPassword(), second.getPassword());
+        assertEquals(first.getRole(), second.getRole());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+    }
+
+    @Test
+    public void loadUserByUsername_ChangedCopy_ShouldNotChangeCache()
+    {
+        User first = (User) service.loadUserByUsername("user");
+        first.setNonLocked(false);
+        first.setInformation("changed");
+        first.getRole().setName("ROLE_ADMIN");
+
+        User second = (User) service.loadUserByUsername("user");
+
+        assertTrue(second.isNonLocked());
+        assertEquals("user info", second.getInformation());
+        assertEquals("ROLE_USER", second.getRole().getName());
+    }
+
+    @Test
+    public void loadUserByUsername_MissingUser_ShouldThrow()
+    {
+        when(userRepo.findByUsername("nobody")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nobody"));
+    }
+
+    @Test
+    public void findVerified_ShouldMatchPasswordAndHandOutCopies()
+    {
+        User loaded = (User) service.loadUserByUsername("user");
+        assertNull(service.findVerified("user", "secret"));
+
+        service.markVerified(loaded, "secret");
+
+        User first = service.findVerified("user", "secret");
+        User second = service.findVerified("user", "secret");
+        assertNotNull(first);
+        assertNotSame(first, second);
+        assertNotSame(loaded, first);
+        assertNull(service.findVerified("user", "other"));
+    }
+
+    @Test
+    public void markVerified_ReloadedWithAnotherHash_ShouldBeIgnored()
+    {
+        User stale = (User) service.loadUserByUsername("user");
+
+        //The password changes while the old one is being verified
+        service.evict(1L);
+        when(userRepo.findByUsername("user")).thenReturn(Optional.of(new UserBuilder()
+                .id(1L)
+                .username("user")
+                .password("hash2")
+                .build()));
+        service.loadUserByUsername("user");
+
+        service.markVerified(stale, "old secret");
+
+        assertNull(service.findVerified("user", "old secret"));
+    }
+
+    @Test
+    public void markVerified_Evicted_ShouldBeIgnored()
+    {
+        User loaded = (User) service.loadUserByUsername("user");
+        service.evictAll();
+
+        service.markVerified(loaded, "secret");
+
+        assertNull(service.findVerified("user", "secret"));
+    }
+}
@@ -0,0 +1,258 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.forum.data.builder.entity.LogBuilder;
+import my.project.forum.data.mongodb.entity.Log;
+import my.project.forum.data.mongodb.repository.LogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AuditLogWriterTest {
+
+    private LogRepository logRepo;
+    private Properties props;
+    private SimpleMeterRegistry registry;
+    private AuditLogWriter writer;
+    private boolean started;
+
+    //Copies of the inserted batches, the writer reuses its batch list
+    private List<List<String>> batches;
+
+    @BeforeEach
+    public void setUp()
+    {
+        logRepo = mock(LogRepository.class);
+        registry = new SimpleMeterRegistry();
+        batches = Collections.synchronizedList(new ArrayList<>());
+
+        doAnswer(invocation -> {
+            List<String> batch = new ArrayList<>();
+            invocation.<Iterable<Log>>getArgument(0).forEach(log -> batch.add(log.getId()));
+            batches.add(batch);
+            return null;
+        }).when(logRepo).insert(ArgumentMatchers.<Iterable<Log>>any());
+
+        props = new Properties();
+        props.setAuditQueueCapacity(100);
+        props.setAuditBatchSize(100);
+        //The writer only sees a shutdown once a wait for logs ends, so short intervals keep tests fast
+        props.setAuditFlushInterval(300);
+        props.setAuditOverflowPolicy(AuditLogWriter.OverflowPolicy.DROP);
+        props.setAuditBlockTimeout(50);
+        props.setAuditSampleRate(3);
+        props.setAuditShutdownTimeout(5000);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException
+    {
+        if (started)
+            writer.flushOnShutdown();
+    }
+
+    @Test
+    public void write_FullBatch_ShouldFlushWithoutWaitingForInterval()
+    {
+        props.setAuditBatchSize(3);
+        props.setAuditFlushInterval(3000);
+        start();
+
+        submit(0, 7);
+
+        verify(logRepo, timeout(1500).times(2)).insert(ArgumentMatchers.<Iterable<Log>>any());
+        assertEquals(List.of(ids(0, 3), ids(3, 6)), batches);
+        assertEquals(6, counter("forum.audit.written"));
+        assertEquals(2, registry.get("forum.audit.batch.size").summary().count());
+    }
+
+    @Test
+    public void write_PartialBatch_ShouldFlushAfterInterval() throws InterruptedException
+    {
+        start();
+
+        long begin = System.nanoTime();
+        submit(0, 2);
+
+        verify(logRepo, timeout(3000)).insert(ArgumentMatchers.<Iterable<Log>>any());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertTrue(elapsed >= 250, "flushed after " + elapsed + " ms");
+        assertEquals(List.of(ids(0, 2)), batches);
+        assertEquals(2, counter("forum.audit.written"));
+    }
+
+    @Test
+    public void write_InsertFails_ShouldCountLostLogsAndGoOn()
+    {
+        props.setAuditBatchSize(2);
+        doThrow(new RuntimeException("MongoDB is down"))
+                .doAnswer(invocation -> null)
+                .when(logRepo).insert(ArgumentMatchers.<Iterable<Log>>any());
+        start();
+
+        submit(0, 4);
+
+        verify(logRepo, timeout(2000).times(2)).insert(ArgumentMatchers.<Iterable<Log>>any());
+        assertEquals(2, dropped("write_failed"));
+        assertEquals(2, counter("forum.audit.written"));
+    }
+
+    @Test
+    public void submit_DropPolicyQueueFull_ShouldDropAndCount()
+    {
+        props.setAuditQueueCapacity(5);
+        writer = new AuditLogWriter(logRepo, props, registry);
+
+        submit(0, 8);
+
+        assertEquals(5, queueDepth());
+        assertEquals(3, dropped("overflow"));
+        assertEquals(0, dropped("sampled"));
+    }
+
+    @Test
+    public void submit_BlockPolicyQueueFull_ShouldWaitThenDrop()
+    {
+        props.setAuditQueueCapacity(2);
+        props.setAuditOverflowPolicy(AuditLogWriter.OverflowPolicy.BLOCK);
+        writer = new AuditLogWriter(logRepo, props, registry);
+
+        submit(0, 2);
+        long begin = System.nanoTime();
+        submit(2, 3);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertTrue(elapsed >= 45, "waited " + elapsed + " ms");
+        assertEquals(2, queueDepth());
+        assertEquals(1, dropped("overflow"));
+    }
+
+    @Test
+    public void submit_BlockPolicySlotFreed_ShouldQueueAfterWaiting() throws Exception
+    {
+        props.setAuditQueueCapacity(2);
+        props.setAuditBatchSize(2);
+        props.setAuditOverflowPolicy(AuditLogWriter.OverflowPolicy.BLOCK);
+        props.setAuditBlockTimeout(5000);
+        writer = new AuditLogWriter(logRepo, props, registry);
+
+        submit(0, 2);
+        ExecutorService request = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<?> blocked = request.submit(() -> submit(2, 3));
+            Thread.sleep(100);
+            assertFalse(blocked.isDone());
+
+            writer.start();
+            blocked.get(2, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            request.shutdown();
+        }
+
+        writer.flushOnShutdown();
+        started = false;
+
+        assertEquals(ids(0, 3), batches.stream().flatMap(List::stream).collect(Collectors.toList()));
+        assertEquals(0, dropped("overflow"));
+    }
+
+    @Test
+    public void submit_SamplePolicyOverHalfFull_ShouldKeepEveryNthLog()
+    {
+        props.setAuditQueueCapacity(10);
+        props.setAuditOverflowPolicy(AuditLogWriter.OverflowPolicy.SAMPLE);
+        writer = new AuditLogWriter(logRepo, props, registry);
+
+        //Below half of the capacity everything is queued
+        submit(0, 5);
+        assertEquals(5, queueDepth());
+        assertEquals(0, dropped("sampled"));
+
+        //From half on only every third log is queued
+        submit(5, 11);
+        assertEquals(7, queueDepth());
+        assertEquals(4, dropped("sampled"));
+
+        //Sampled logs which don't fit are dropped as overflow
+        submit(11, 35);
+        assertEquals(10, queueDepth());
+        assertEquals(20, dropped("sampled"));
+        assertEquals(5, dropped("overflow"));
+    }
+
+    @Test
+    public void flushOnShutdown_ShouldDrainQueueInBatches() throws InterruptedException
+    {
+        props.setAuditBatchSize(3);
+        writer = new AuditLogWriter(logRepo, props, registry);
+        submit(0, 7);
+
+        writer.start();
+        writer.flushOnShutdown();
+
+        assertEquals(List.of(ids(0, 3), ids(3, 6), ids(6, 7)), batches);
+        assertEquals(0, queueDepth());
+        assertEquals(7, counter("forum.audit.written"));
+    }
+
+    @Test
+    public void flushOnShutdown_PartialBatch_ShouldBeWritten() throws InterruptedException
+    {
+        start();
+        submit(0, 2);
+
+        writer.flushOnShutdown();
+        started = false;
+
+        assertEquals(List.of(ids(0, 2)), batches);
+        assertEquals(0, queueDepth());
+    }
+
+    private void start()
+    {
+        writer = new AuditLogWriter(logRepo, props, registry);
+        writer.start();
+        started = true;
+    }
+
+    private void submit(int from, int to)
+    {
+        for (int i = from; i < to; i++)
+            writer.submit(new LogBuilder().id(String.valueOf(i)).build());
+    }
+
+    private static List<String> ids(int from, int to)
+    {
+        return IntStream.range(from, to).mapToObj(String::valueOf).collect(Collectors.toList());
+    }
+
+    private double queueDepth()
+    {
+        return registry.get("forum.audit.queue.depth").gauge().value();
+    }
+
+    private double dropped(String reason)
+    {
+        return registry.get("forum.audit.dropped").tag("reason", reason).counter().count();
+    }
+
+    private double counter(String name)
+    {
+        return registry.get(name).counter().count();
+    }
+}
@@ -0,0 +1,171 @@
+package my.project.forum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class ForumExporterTest {
+
+    private static final String[] LABELS = {"id", "name", "placed_at", "registration_date", "tag_ids"};
+    private static final int[] TYPES = {Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP, Types.DATE, Types.ARRAY};
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private Properties props;
+    private ForumExporter exporter;
+
+    @BeforeEach
+    public void setUp()
+    {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        props = mock(Properties.class);
+        when(props.getExportFetchSize()).thenReturn(500);
+
+        exporter = new ForumExporter(jdbcTemplate, transactionManager, props);
+    }
+
+    @Test
+    public void write_Rows_ShouldWriteOneJsonObjectPerLine() throws Exception
+    {
+        returnRows(
+                row(1L, "Java", LocalDateTime.of(2020, 9, 1, 12, 30, 15), LocalDate.of(2020, 8, 31), new Long[]{2L, 5L}),
+                row(2L, "Quote \" and\nnewline", null, null, null)
+        );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exporter.write(ForumExporter.Table.TOPICS, out);
+
+        assertEquals(2, written);
+        assertEquals("{\"id\":1,\"name\":\"Java\",\"placed_at\":\"2020-09-01T12:30:15\"," +
+                        "\"registration_date\":\"2020-08-31\",\"tag_ids\":[2,5]}\n" +
+                "{\"id\":2,\"name\":\"Quote \\\" and\\nnewline\",\"placed_at\":null," +
+                        "\"registration_date\":null,\"tag_ids\":null}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void write_EmptyTable_ShouldWriteNothing() throws Exception
+    {
+        returnRows();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exporter.write(ForumExporter.Table.TAGS, out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void write_GzipStream_ShouldLeaveStreamOpenAndDecompressToNdjson() throws Exception
+    {
+        returnRows(
+                row(1L, "Java", LocalDateTime.of(2020, 9, 1, 0, 0), LocalDate.of(2020, 8, 31), new Long[]{}),
+                row(2L, "Kotlin", LocalDateTime.of(2020, 9, 2, 0, 0), LocalDate.of(2020, 9, 1), new Long[]{3L})
+        );
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        GZIPOutputStream compressed = new GZIPOutputStream(body);
+        exporter.write(ForumExporter.Table.TOPICS, compressed);
+
+        //The controller finishes the gzip trailer itself, so the exporter must not close the stream
+        compressed.finish();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray())))
+        {
+            assertEquals("{\"id\":1,\"name\":\"Java\",\"placed_at\":\"2020-09-01T00:00\"," +
+                            "\"registration_date\":\"2020-08-31\",\"tag_ids\":[]}\n" +
+                    "{\"id\":2,\"name\":\"Kotlin\",\"placed_at\":\"2020-09-02T00:00\"," +
+                            "\"registration_date\":\"2020-09-01\",\"tag_ids\":[3]}\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void write_ShouldStreamThroughReadOnlyTransactionWithFetchSize() throws Exception
+    {
+        returnRows();
+
+        exporter.write(ForumExporter.Table.COMMENTS, new ByteArrayOutputStream());
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).query(creator.capture(), ArgumentMatchers.any(RowCallbackHandler.class));
+
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(ResultSet.TYPE_FORWARD_ONLY), ArgumentMatchers.eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+
+        creator.getValue().createPreparedStatement(connection);
+
+        verify(statement).setFetchSize(500);
+    }
+
+    //Feeds each row to the callback the way JdbcTemplate does, moving one ResultSet along
+    private void returnRows(Object[]... rows) throws SQLException
+    {
+        ResultSetMetaData meta = mock(ResultSetMetaData.class);
+        when(meta.getColumnCount()).thenReturn(LABELS.length);
+        for (int i = 0; i < LABELS.length; i++)
+        {
+            when(meta.getColumnLabel(i + 1)).thenReturn(LABELS[i]);
+            when(meta.getColumnType(i + 1)).thenReturn(TYPES[i]);
+        }
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(meta);
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows)
+            {
+                Array tagIds = sqlArray((Object[]) row[4]);
+                when(rs.getObject(1)).thenReturn(row[0]);
+                when(rs.getObject(2)).thenReturn(row[1]);
+                when(rs.getObject(3, LocalDateTime.class)).thenReturn((LocalDateTime) row[2]);
+                when(rs.getObject(4, LocalDate.class)).thenReturn((LocalDate) row[3]);
+                when(rs.getArray(5)).thenReturn(tagIds);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(ArgumentMatchers.any(PreparedStatementCreator.class), ArgumentMatchers.any(RowCallbackHandler.class));
+    }
+
+    private static Object[] row(Long id, String name, LocalDateTime placedAt, LocalDate registered, Object[] tagIds)
+    {
+        return new Object[]{id, name, placedAt, registered, tagIds};
+    }
+
+    private static Array sqlArray(Object[] elements) throws SQLException
+    {
+        if (elements == null)
+            return null;
+
+        Array array = mock(Array.class);
+        when(array.getArray()).thenReturn((Object) elements);
+        return array;
+    }
+}
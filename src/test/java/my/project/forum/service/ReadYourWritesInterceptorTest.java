@@ -0,0 +1,116 @@
+package my.project.forum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadYourWritesInterceptorTest {
+
+    private static final long WINDOW = 300;
+
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(WINDOW);
+
+    @AfterEach
+    public void tearDown()
+    {
+        ReplicaRoutingDataSource.setPrimaryOnly(false);
+    }
+
+    @Test
+    public void preHandle_Write_ShouldUsePrimaryUntilCompletion()
+    {
+        for (String method : new String[] {"POST", "PUT", "PATCH", "DELETE"})
+        {
+            MockHttpServletRequest request = request(method, "alice", "10.0.0.1");
+
+            assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+            assertTrue(ReplicaRoutingDataSource.isPrimaryOnly(), method);
+
+            interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+            assertFalse(ReplicaRoutingDataSource.isPrimaryOnly(), method);
+        }
+    }
+
+    @Test
+    public void preHandle_ReadWithoutWrites_ShouldAllowReplicas()
+    {
+        for (String method : new String[] {"GET", "HEAD", "OPTIONS"})
+        {
+            assertFalse(handle(request(method, "alice", "10.0.0.1")), method);
+            assertFalse(handle(request(method, null, "10.0.0.1")), method);
+        }
+    }
+
+    @Test
+    public void preHandle_ReadAfterWrite_ShouldUsePrimaryForWindow() throws InterruptedException
+    {
+        handle(request("POST", "alice", "10.0.0.1"));
+
+        //Reads of the writer stay on the primary whatever address they come from
+        assertTrue(handle(request("GET", "alice", "10.0.0.2")));
+        assertFalse(handle(request("GET", "bob", "10.0.0.1")));
+        assertFalse(handle(request("GET", null, "10.0.0.1")));
+
+        Thread.sleep(WINDOW + 200);
+
+        assertFalse(handle(request("GET", "alice", "10.0.0.1")));
+    }
+
+    @Test
+    public void preHandle_AnonymousReadAfterWrite_ShouldBeToldApartByAddress() throws InterruptedException
+    {
+        handle(request("POST", null, "10.0.0.1"));
+
+        assertTrue(handle(request("GET", null, "10.0.0.1")));
+        assertFalse(handle(request("GET", null, "10.0.0.2")));
+
+        Thread.sleep(WINDOW + 200);
+
+        assertFalse(handle(request("GET", null, "10.0.0.1")));
+    }
+
+    @Test
+    public void preHandle_WriteDuringWindow_ShouldRestartIt() throws InterruptedException
+    {
+        handle(request("POST", "alice", "10.0.0.1"));
+        Thread.sleep(WINDOW / 2 + 50);
+        handle(request("DELETE", "alice", "10.0.0.1"));
+        Thread.sleep(WINDOW / 2 + 50);
+
+        assertTrue(handle(request("GET", "alice", "10.0.0.1")));
+    }
+
+    @Test
+    public void afterConcurrentHandlingStarted_ShouldResetThread()
+    {
+        MockHttpServletRequest request = request("POST", "alice", "10.0.0.1");
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+
+        //The request goes on in another thread, this one serves other requests meanwhile
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), null);
+
+        assertFalse(ReplicaRoutingDataSource.isPrimaryOnly());
+    }
+
+    //Runs the request through the interceptor and tells whether its reads used the primary
+    private boolean handle(MockHttpServletRequest request)
+    {
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        boolean primaryOnly = ReplicaRoutingDataSource.isPrimaryOnly();
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+        return primaryOnly;
+    }
+
+    private static MockHttpServletRequest request(String method, String username, String address)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/topics");
+        request.setRemoteAddr(address);
+        if (username != null)
+            request.setUserPrincipal(new UsernamePasswordAuthenticationToken(username, null));
+        return request;
+    }
+}
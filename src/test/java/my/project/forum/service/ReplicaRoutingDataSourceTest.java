@@ -0,0 +1,252 @@
+package my.project.forum.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG = 1000;
+
+    private SimpleMeterRegistry registry;
+    private HikariDataSource primary;
+    private Connection primaryConnection;
+
+    @BeforeEach
+    public void setUp() throws SQLException
+    {
+        registry = new SimpleMeterRegistry();
+        primary = mock(HikariDataSource.class);
+        primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.setPrimaryOnly(false);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void getConnection_ReadWriteTransaction_ShouldUsePrimary() throws SQLException
+    {
+        HikariDataSource replica = replica("replica1", true, true, 0);
+        ReplicaRoutingDataSource dataSource = dataSource(replica);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(replica, times(1)).getConnection();
+        //Only read-only transactions are counted
+        assertEquals(0, reads("primary"));
+        assertEquals(0, reads("replica"));
+    }
+
+    @Test
+    public void getConnection_ReadOnlyTransaction_ShouldRoundRobinReplicas() throws SQLException
+    {
+        HikariDataSource replica1 = replica("replica1", true, true, 0);
+        HikariDataSource replica2 = replica("replica2", true, true, 0);
+        ReplicaRoutingDataSource dataSource = dataSource(replica1, replica2);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            connections.add(dataSource.getConnection());
+
+        Connection connection1 = replica1.getConnection();
+        Connection connection2 = replica2.getConnection();
+        assertEquals(List.of(connection1, connection2, connection1, connection2), connections);
+        verify(primary, never()).getConnection();
+        assertEquals(4, reads("replica"));
+        assertEquals(0, reads("primary"));
+    }
+
+    @Test
+    public void getConnection_ShouldSkipUnhealthyReplicas() throws SQLException
+    {
+        HikariDataSource lagging = replica("replica1", true, true, MAX_LAG + 1);
+        HikariDataSource healthy = replica("replica2", true, true, MAX_LAG);
+        HikariDataSource promoted = replica("replica3", false, false, 0);
+        HikariDataSource disconnected = replica("replica4", true, false, 0);
+        ReplicaRoutingDataSource dataSource = dataSource(lagging, healthy, promoted, disconnected);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Connection connection = healthy.getConnection();
+        for (int i = 0; i < 4; i++)
+            assertSame(connection, dataSource.getConnection());
+
+        assertEquals(0, healthy("replica1"));
+        assertEquals(1, healthy("replica2"));
+        assertEquals(0, healthy("replica3"));
+        assertEquals(0, healthy("replica4"));
+        assertEquals(MAX_LAG + 1, registry.get("forum.datasource.replica.lag").tag("replica", "replica1")
+                .timeGauge().value(TimeUnit.MILLISECONDS), 0.001);
+        //Only the checks took connections of the unhealthy replicas
+        verify(lagging, times(1)).getConnection();
+        verify(promoted, times(1)).getConnection();
+        verify(disconnected, times(1)).getConnection();
+    }
+
+    @Test
+    public void getConnection_NoHealthyReplica_ShouldUsePrimary() throws SQLException
+    {
+        ReplicaRoutingDataSource dataSource = dataSource(replica("replica1", false, false, 0));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(1, reads("primary"));
+        assertEquals(0, reads("replica"));
+
+        //Replicas aren't used before their first check
+        HikariDataSource unchecked = replica("replica2", true, true, 0);
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(unchecked), MAX_LAG, new SimpleMeterRegistry());
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(unchecked, never()).getConnection();
+    }
+
+    @Test
+    public void getConnection_ReplicaFails_ShouldFallBackToPrimaryUntilNextCheck() throws SQLException
+    {
+        HikariDataSource failing = replica("replica1", true, true, 0);
+        HikariDataSource healthy = replica("replica2", true, true, 0);
+        ReplicaRoutingDataSource dataSource = dataSource(failing, healthy);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection checkConnection = failing.getConnection();
+        Connection healthyConnection = healthy.getConnection();
+        when(failing.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(0, healthy("replica1"));
+        assertEquals(1, reads("primary"));
+
+        //The failed replica is skipped without being asked again
+        assertSame(healthyConnection, dataSource.getConnection());
+        assertSame(healthyConnection, dataSource.getConnection());
+        verify(failing, times(3)).getConnection();
+
+        //A failed check keeps it out of use, a successful one brings it back
+        dataSource.checkReplicas();
+        assertEquals(0, healthy("replica1"));
+        assertTrue(Double.isNaN(registry.get("forum.datasource.replica.lag").tag("replica", "replica1")
+                .timeGauge().value(TimeUnit.MILLISECONDS)));
+
+        doReturn(checkConnection).when(failing).getConnection();
+        dataSource.checkReplicas();
+        assertEquals(1, healthy("replica1"));
+        List<Connection> connections = List.of(dataSource.getConnection(), dataSource.getConnection());
+        assertTrue(connections.contains(checkConnection));
+        assertTrue(connections.contains(healthyConnection));
+    }
+
+    @Test
+    public void getConnection_PrimaryOnlyAttribute_ShouldUsePrimary() throws SQLException
+    {
+        HikariDataSource replica = replica("replica1", true, true, 0);
+        ReplicaRoutingDataSource dataSource = dataSource(replica);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/topics");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertSame(replica.getConnection(), dataSource.getConnection());
+
+        request.setAttribute(ReplicaRoutingDataSource.PRIMARY_ONLY_ATTRIBUTE, Boolean.TRUE);
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(1, reads("primary"));
+        assertEquals(1, reads("replica"));
+    }
+
+    @Test
+    public void getConnection_PrimaryOnlyThread_ShouldUsePrimaryUntilReset() throws SQLException
+    {
+        HikariDataSource replica = replica("replica1", true, true, 0);
+        ReplicaRoutingDataSource dataSource = dataSource(replica);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReplicaRoutingDataSource.setPrimaryOnly(true);
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        ReplicaRoutingDataSource.setPrimaryOnly(false);
+        assertSame(replica.getConnection(), dataSource.getConnection());
+    }
+
+    @Test
+    public void getConnectionWithCredentials_ShouldUsePrimary() throws SQLException
+    {
+        HikariDataSource replica = replica("replica1", true, true, 0);
+        ReplicaRoutingDataSource dataSource = dataSource(replica);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(primary.getConnection("user", "password")).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection("user", "password"));
+        verify(replica, never()).getConnection(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+    }
+
+    @Test
+    public void close_ShouldClosePools()
+    {
+        HikariDataSource replica = mock(HikariDataSource.class);
+        when(replica.getPoolName()).thenReturn("replica1");
+
+        new ReplicaRoutingDataSource(primary, List.of(replica), MAX_LAG, registry).close();
+
+        verify(replica).close();
+        verify(primary).close();
+    }
+
+    //Checked replicas, healthy ones are in use once this returns
+    private ReplicaRoutingDataSource dataSource(HikariDataSource... replicas)
+    {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replicas), MAX_LAG, registry);
+        dataSource.checkReplicas();
+        return dataSource;
+    }
+
+    //A pool giving the same connection to the health check and to reads
+    private static HikariDataSource replica(String name, boolean standby, boolean streaming, double lag) throws SQLException
+    {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true);
+        when(rs.getBoolean(1)).thenReturn(standby);
+        when(rs.getBoolean(2)).thenReturn(streaming);
+        when(rs.getDouble(3)).thenReturn(lag);
+
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(ArgumentMatchers.anyString())).thenReturn(rs);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+
+        HikariDataSource pool = mock(HikariDataSource.class);
+        when(pool.getPoolName()).thenReturn(name);
+        when(pool.getConnection()).thenReturn(connection);
+        return pool;
+    }
+
+    private double reads(String target)
+    {
+        return registry.get("forum.datasource.reads").tag("target", target).counter().count();
+    }
+
+    private double healthy(String replica)
+    {
+        return registry.get("forum.datasource.replica.healthy").tag("replica", replica).gauge().value();
+    }
+}
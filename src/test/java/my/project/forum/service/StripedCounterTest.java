@@ -0,0 +1,137 @@
+package my.project.forum.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedCounterTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 30_000;
+
+    @Test
+    public void add_ShouldSumDeltasPerId()
+    {
+        StripedCounter counter = new StripedCounter(4);
+
+        counter.add(1L, 1);
+        counter.add(1L, 2);
+        counter.add(2L, 5);
+
+        assertEquals(3, counter.pending(1L));
+        assertEquals(5, counter.pending(2L));
+        assertEquals(0, counter.pending(3L));
+        assertEquals(8, counter.pendingTotal());
+        assertEquals(2, counter.pendingIds());
+    }
+
+    @Test
+    public void drain_ShouldReturnDeltasAndEmptyCounter()
+    {
+        StripedCounter counter = new StripedCounter(4);
+        counter.add(1L, 3);
+        counter.add(2L, 1);
+        counter.add(2L, -1);
+
+        //Deltas which cancel out aren't written
+        assertEquals(Map.of(1L, 3L), counter.drain());
+        assertEquals(0, counter.pendingTotal());
+        assertEquals(0, counter.pendingIds());
+        assertEquals(Map.of(), counter.drain());
+    }
+
+    @Test
+    public void restore_ShouldMergeWithNewDeltas()
+    {
+        StripedCounter counter = new StripedCounter(4);
+        counter.add(1L, 3);
+        counter.add(2L, 1);
+
+        Map<Long, Long> drained = counter.drain();
+        counter.add(1L, 2);
+        counter.restore(drained);
+
+        assertEquals(5, counter.pending(1L));
+        assertEquals(1, counter.pending(2L));
+        assertEquals(Map.of(1L, 5L, 2L, 1L), counter.drain());
+    }
+
+    @Test
+    public void add_ConcurrentThreads_ShouldCountEveryIncrement() throws Exception
+    {
+        StripedCounter counter = new StripedCounter(4);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < INCREMENTS; i++)
+                counter.add((long) (i % 3), 1);
+        });
+
+        long total = (long) THREADS * INCREMENTS;
+        assertEquals(total, counter.pendingTotal());
+        assertEquals(total, counter.pending(0L) + counter.pending(1L) + counter.pending(2L));
+        assertEquals(3, counter.drain().size());
+    }
+
+    @Test
+    public void drain_DuringConcurrentIncrements_ShouldNeitherLoseNorRepeatDeltas() throws Exception
+    {
+        StripedCounter counter = new StripedCounter(4);
+        Map<Long, Long> written = new HashMap<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        ExecutorService flusher = Executors.newSingleThreadExecutor();
+        Future<?> flushes = flusher.submit(() -> {
+            while (done.getCount() > 0)
+                counter.drain().forEach((id, delta) -> written.merge(id, delta, Long::sum));
+            return null;
+        });
+
+        try
+        {
+            runConcurrently(() -> {
+                for (int i = 0; i < INCREMENTS; i++)
+                    counter.add((long) (i % 3), 1);
+            });
+        }
+        finally
+        {
+            done.countDown();
+            flusher.shutdown();
+        }
+        flushes.get(10, TimeUnit.SECONDS);
+        counter.drain().forEach((id, delta) -> written.merge(id, delta, Long::sum));
+
+        long perId = (long) THREADS * INCREMENTS / 3;
+        assertEquals(Map.of(0L, perId, 1L, perId, 2L, perId), written);
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try
+        {
+            for (int t = 0; t < THREADS; t++)
+                results.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+
+            start.countDown();
+            for (Future<?> result : results)
+                result.get(30, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package my.project.forum.service;
+
+import my.project.forum.error.InvalidTagExpressionException;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TagExpressionTest {
+
+    private static final RoaringBitmap ALL = RoaringBitmap.bitmapOf(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+    private static final Map<String, RoaringBitmap> TAGS = Map.of(
+            "java", RoaringBitmap.bitmapOf(1, 2, 3, 4),
+            "spring", RoaringBitmap.bitmapOf(2, 3, 5),
+            "hibernate", RoaringBitmap.bitmapOf(4, 6),
+            "kotlin", RoaringBitmap.bitmapOf(3, 7),
+            "spring boot", RoaringBitmap.bitmapOf(8),
+            "AND", RoaringBitmap.bitmapOf(9)
+    );
+
+    @Test
+    public void evaluate_SingleTag_ShouldReturnTaggedTopics()
+    {
+        assertArrayEquals(new int[]{1, 2, 3, 4}, evaluate("java"));
+    }
+
+    @Test
+    public void evaluate_AndBindsTighterThanOr()
+    {
+        //java OR (spring AND NOT kotlin), not (java OR spring) AND NOT kotlin
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, evaluate("java OR spring AND NOT kotlin"));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, evaluate("spring AND NOT kotlin OR java"));
+    }
+
+    @Test
+    public void evaluate_NotBindsTighterThanAnd()
+    {
+        //(NOT java) AND spring, not NOT (java AND spring)
+        assertArrayEquals(new int[]{5}, evaluate("NOT java AND spring"));
+        assertArrayEquals(new int[]{5}, evaluate("NOT java spring"));
+    }
+
+    @Test
+    public void evaluate_Parentheses_ShouldOverridePrecedence()
+    {
+        assertArrayEquals(new int[]{2, 4}, evaluate("java AND (spring OR hibernate) NOT kotlin"));
+        assertArrayEquals(new int[]{1, 2, 4, 5}, evaluate("(java OR spring) AND NOT kotlin"));
+        assertArrayEquals(new int[]{1, 4, 5, 6, 7, 8, 9, 10}, evaluate("NOT (java spring)"));
+    }
+
+    @Test
+    public void evaluate_OnlyNegatedTerms_ShouldSubtractFromAllTopics()
+    {
+        assertArrayEquals(new int[]{5, 6, 7, 8, 9, 10}, evaluate("NOT java"));
+        assertArrayEquals(new int[]{5, 6, 8, 9, 10}, evaluate("NOT java NOT kotlin"));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, evaluate("NOT NOT java"));
+    }
+
+    @Test
+    public void evaluate_AdjacencyAndCommas_ShouldMeanAnd()
+    {
+        int[] expected = {2, 3};
+
+        assertArrayEquals(expected, evaluate("java AND spring"));
+        assertArrayEquals(expected, evaluate("java spring"));
+        assertArrayEquals(expected, evaluate("java,spring"));
+        assertArrayEquals(expected, evaluate("java , spring"));
+        assertArrayEquals(new int[]{3}, evaluate("java, spring kotlin"));
+    }
+
+    @Test
+    public void evaluate_KeywordsInAnyCase_ShouldBeOperators()
+    {
+        assertArrayEquals(new int[]{1, 2, 4, 6}, evaluate("java and not kotlin or hibernate"));
+        assertArrayEquals(new int[]{1, 2, 4, 6}, evaluate("java And Not kotlin oR hibernate"));
+    }
+
+    @Test
+    public void parse_QuotedNames_ShouldBeTagsEvenIfKeywords()
+    {
+        TagExpression expression = TagExpression.parse("\"spring boot\" OR \"AND\"");
+
+        assertEquals(List.of("spring boot", "AND"), List.copyOf(expression.getTagNames()));
+        assertArrayEquals(new int[]{8, 9}, expression.evaluate(TAGS::get, ALL).toArray());
+    }
+
+    @Test
+    public void parse_RepeatedTag_ShouldBeNamedOnce()
+    {
+        TagExpression expression = TagExpression.parse("java OR (java AND spring) NOT kotlin");
+
+        assertEquals(List.of("java", "spring", "kotlin"), List.copyOf(expression.getTagNames()));
+    }
+
+    @Test
+    public void evaluate_ShouldNotModifyTagBitmaps()
+    {
+        RoaringBitmap java = TAGS.get("java").clone();
+        RoaringBitmap all = ALL.clone();
+
+        TagExpression.parse("java").evaluate(TAGS::get, ALL).add(100);
+        TagExpression.parse("java OR spring").evaluate(TAGS::get, ALL);
+        TagExpression.parse("java AND spring NOT kotlin").evaluate(TAGS::get, ALL);
+        TagExpression.parse("NOT java").evaluate(TAGS::get, ALL).add(100);
+
+        assertEquals(java, TAGS.get("java"));
+        assertEquals(all, ALL);
+    }
+
+    @Test
+    public void parse_LengthLimit_ShouldRejectLongerExpressions()
+    {
+        assertDoesNotThrow(() -> TagExpression.parse("a".repeat(500)));
+
+        InvalidTagExpressionException e = assertThrows(InvalidTagExpressionException.class,
+                () -> TagExpression.parse("a".repeat(501)));
+        assertEquals("Tag expression is longer than 500 characters", e.getMessage());
+    }
+
+    @Test
+    public void parse_Blank_ShouldThrow()
+    {
+        assertThrows(InvalidTagExpressionException.class, () -> TagExpression.parse(null));
+        assertThrows(InvalidTagExpressionException.class, () -> TagExpression.parse(""));
+        assertThrows(InvalidTagExpressionException.class, () -> TagExpression.parse("   "));
+    }
+
+    @Test
+    public void parse_Malformed_ShouldThrowWithReason()
+    {
+        assertParseError("\"spring boot", "Unclosed quote in tag expression");
+        assertParseError("(java OR spring", "Missing ) in tag expression");
+        assertParseError("java)", "Unexpected ) in tag expression");
+        assertParseError("()", "Unexpected ) in tag expression");
+        assertParseError("java AND", "Unexpected end of tag expression");
+        assertParseError("NOT", "Unexpected end of tag expression");
+        assertParseError("AND java", "Unexpected AND in tag expression");
+        assertParseError("java OR OR spring", "Unexpected OR in tag expression");
+        assertParseError(", java", "Unexpected , in tag expression");
+        assertParseError("java AND , spring", "Unexpected , in tag expression");
+    }
+
+    private static void assertParseError(String text, String message)
+    {
+        InvalidTagExpressionException e = assertThrows(InvalidTagExpressionException.class,
+                () -> TagExpression.parse(text), text);
+        assertEquals(message, e.getMessage(), text);
+    }
+
+    private static int[] evaluate(String text)
+    {
+        return TagExpression.parse(text).evaluate(TAGS::get, ALL).toArray();
+    }
+}
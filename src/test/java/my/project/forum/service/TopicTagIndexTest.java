@@ -0,0 +1,302 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.forum.data.builder.entity.SectionBuilder;
+import my.project.forum.data.builder.entity.TagBuilder;
+import my.project.forum.data.builder.entity.TopicBuilder;
+import my.project.forum.data.postgres.entity.Tag;
+import my.project.forum.data.postgres.entity.Topic;
+import my.project.forum.data.postgres.repository.TagRepository;
+import my.project.forum.error.ItemNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TopicTagIndexTest {
+
+    private static final long JAVA = 100L;
+    private static final long SPRING = 200L;
+    private static final long RUST = 300L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TagRepository tagRepo;
+    private TopicTagIndex index;
+
+    @BeforeEach
+    public void setUp() throws SQLException
+    {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        tagRepo = mock(TagRepository.class);
+
+        //Topics 1 and 2 are in section 10, topic 3 in section 20
+        List<ResultSet> topics = List.of(
+                row(Map.of("id", 1L, "section_id", 10L)),
+                row(Map.of("id", 2L, "section_id", 10L)),
+                row(Map.of("id", 3L, "section_id", 20L)));
+        //java: 1, 2 and spring: 2, 3, rust has no topics
+        List<ResultSet> topicTags = List.of(
+                row(Map.of("topic_id", 1L, "tag_id", JAVA)),
+                row(Map.of("topic_id", 2L, "tag_id", JAVA)),
+                row(Map.of("topic_id", 2L, "tag_id", SPRING)),
+                row(Map.of("topic_id", 3L, "tag_id", SPRING)));
+
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : sql.contains("topic_tag") ? topicTags : topics)
+                handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class));
+
+        when(tagRepo.findByName("java")).thenReturn(Optional.of(tag(JAVA, "java")));
+        when(tagRepo.findByName("spring")).thenReturn(Optional.of(tag(SPRING, "spring")));
+        when(tagRepo.findByName("rust")).thenReturn(Optional.of(tag(RUST, "rust")));
+        when(tagRepo.findByName("go")).thenReturn(Optional.empty());
+
+        index = new TopicTagIndex(jdbcTemplate, tagRepo, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void findTopicIds_ShouldReturnMatchingTopicsNewestFirst()
+    {
+        assertEquals(List.of(2L, 1L), find("java", null, null, 10));
+        assertEquals(List.of(3L, 2L), find("spring", null, null, 10));
+        assertEquals(List.of(3L, 2L, 1L), find("java OR spring", null, null, 10));
+        assertEquals(List.of(1L), find("java NOT spring", null, null, 10));
+        assertEquals(List.of(), find("rust", null, null, 10));
+    }
+
+    @Test
+    public void findTopicIds_SectionCursorAndLimit_ShouldNarrowResult()
+    {
+        assertEquals(List.of(2L), find("spring", 10L, null, 10));
+        assertEquals(List.of(), find("java", 30L, null, 10));
+        assertEquals(List.of(1L), find("java OR spring", null, 2L, 10));
+        assertEquals(List.of(3L, 2L), find("java OR spring", null, null, 2));
+    }
+
+    @Test
+    public void findTopicIds_UnknownTag_ShouldThrowItemNotFound()
+    {
+        assertThrows(ItemNotFoundException.class, () -> find("java OR go", null, null, 10));
+    }
+
+    @Test
+    public void findTopicIds_ShouldLoadOnce()
+    {
+        find("java", null, null, 10);
+        find("spring", null, null, 10);
+        index.put(topic(4L, 20L, JAVA));
+
+        verify(jdbcTemplate, times(2)).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class));
+    }
+
+    @Test
+    public void put_NewTopic_ShouldPublishCopyAndLeaveOldBitmapUntouched()
+    {
+        RoaringBitmap javaBefore = index.topicsOfTag(JAVA);
+        RoaringBitmap springBefore = index.topicsOfTag(SPRING);
+
+        index.put(topic(4L, 20L, JAVA));
+
+        assertArrayEquals(new int[]{1, 2}, javaBefore.toArray());
+        assertArrayEquals(new int[]{1, 2, 4}, index.topicsOfTag(JAVA).toArray());
+        assertNotSame(javaBefore, index.topicsOfTag(JAVA));
+        //Bitmaps the topic isn't in are kept, not copied
+        assertSame(springBefore, index.topicsOfTag(SPRING));
+
+        assertEquals(List.of(4L, 2L, 1L), find("java", null, null, 10));
+        assertEquals(List.of(4L, 3L), find("java OR spring", 20L, null, 10));
+    }
+
+    @Test
+    public void put_NewTopicWithUnindexedTag_ShouldCreateBitmap()
+    {
+        assertNull(index.topicsOfTag(RUST));
+
+        index.put(topic(4L, 20L, RUST, SPRING));
+
+        assertArrayEquals(new int[]{4}, index.topicsOfTag(RUST).toArray());
+        assertEquals(List.of(4L), find("rust spring", null, null, 10));
+    }
+
+    @Test
+    public void put_ExistingTopic_ShouldReplaceSectionAndTags()
+    {
+        RoaringBitmap javaBefore = index.topicsOfTag(JAVA);
+        RoaringBitmap springBefore = index.topicsOfTag(SPRING);
+
+        index.put(topic(2L, 20L, SPRING));
+
+        assertArrayEquals(new int[]{1, 2}, javaBefore.toArray());
+        assertArrayEquals(new int[]{1}, index.topicsOfTag(JAVA).toArray());
+        assertSame(springBefore, index.topicsOfTag(SPRING));
+
+        assertEquals(List.of(), find("spring", 10L, null, 10));
+        assertEquals(List.of(3L, 2L), find("spring", 20L, null, 10));
+    }
+
+    @Test
+    public void remove_ShouldDropTopicFromEveryBitmap()
+    {
+        RoaringBitmap javaBefore = index.topicsOfTag(JAVA);
+
+        index.remove(2L);
+
+        assertArrayEquals(new int[]{1, 2}, javaBefore.toArray());
+        assertEquals(List.of(1L), find("java", null, null, 10));
+        assertEquals(List.of(3L), find("spring", null, null, 10));
+        assertEquals(List.of(3L, 1L), find("NOT rust", null, null, 10));
+        assertEquals(List.of(1L), find("NOT rust", 10L, null, 10));
+    }
+
+    @Test
+    public void removeTag_ShouldLeaveNoTopicsTagged()
+    {
+        index.removeTag(JAVA);
+
+        assertNull(index.topicsOfTag(JAVA));
+        assertEquals(List.of(), find("java", null, null, 10));
+        assertEquals(List.of(3L, 2L, 1L), find("NOT java", null, null, 10));
+    }
+
+    @Test
+    public void removeSection_ShouldDropItsTopics()
+    {
+        RoaringBitmap springBefore = index.topicsOfTag(SPRING);
+
+        index.removeSection(10L);
+
+        assertArrayEquals(new int[]{2, 3}, springBefore.toArray());
+        assertEquals(List.of(), find("java", null, null, 10));
+        assertEquals(List.of(3L), find("spring", null, null, 10));
+        assertEquals(List.of(3L), find("NOT java", null, null, 10));
+    }
+
+    @Test
+    public void put_InsideTransaction_ShouldApplyOnlyAfterCommit()
+    {
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.put(topic(4L, 20L, JAVA));
+        index.remove(1L);
+
+        assertEquals(List.of(2L, 1L), find("java", null, null, 10));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(List.of(4L, 2L), find("java", null, null, 10));
+    }
+
+    @Test
+    public void put_RolledBackTransaction_ShouldNotApply()
+    {
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.put(topic(4L, 20L, JAVA));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(List.of(2L, 1L), find("java", null, null, 10));
+    }
+
+    @Test
+    public void findTopicIds_DuringWrites_ShouldSeeConsistentBitmaps() throws Exception
+    {
+        int writes = 2000;
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int r = 0; r < 4; r++)
+            results.add(readers.submit(() -> {
+                while (done.getCount() > 0)
+                {
+                    //A bitmap a reader got hold of never changes under it
+                    RoaringBitmap snapshot = index.topicsOfTag(JAVA);
+                    int[] before = snapshot.toArray();
+                    List<Long> ids = find("java OR spring", null, null, 100);
+                    assertArrayEquals(before, snapshot.toArray());
+
+                    List<Long> sorted = new ArrayList<>(new TreeSet<>(ids));
+                    Collections.reverse(sorted);
+                    assertEquals(sorted, ids);
+                }
+                return null;
+            }));
+
+        try
+        {
+            for (int i = 0; i < writes; i++)
+                index.put(topic(1000L + i % 50, 10L, i % 2 == 0 ? JAVA : SPRING));
+        }
+        finally
+        {
+            done.countDown();
+            readers.shutdown();
+        }
+
+        for (Future<?> result : results)
+            result.get(30, TimeUnit.SECONDS);
+
+        //The last write of each topic decides its tag: even topics were last written on an even i
+        Set<Long> java = new HashSet<>(find("java", null, null, 100));
+        Set<Long> expected = new HashSet<>(Set.of(1L, 2L));
+        for (long id = 1000; id < 1050; id += 2)
+            expected.add(id);
+        assertEquals(expected, java);
+    }
+
+    private List<Long> find(String tags, Long sectionId, Long beforeId, int limit)
+    {
+        return index.findTopicIds(TagExpression.parse(tags), sectionId, beforeId, limit);
+    }
+
+    private static Topic topic(Long id, Long sectionId, Long... tagIds)
+    {
+        Set<Tag> tags = Arrays.stream(tagIds).map(tagId -> tag(tagId, null)).collect(Collectors.toSet());
+        return new TopicBuilder().id(id)
+                .section(new SectionBuilder().id(sectionId).build())
+                .tags(tags)
+                .build();
+    }
+
+    private static Tag tag(Long id, String name)
+    {
+        return new TagBuilder().id(id).name(name).build();
+    }
+
+    private static ResultSet row(Map<String, Long> columns) throws SQLException
+    {
+        ResultSet rs = mock(ResultSet.class);
+        for (Map.Entry<String, Long> column : columns.entrySet())
+            when(rs.getLong(column.getKey())).thenReturn(column.getValue());
+        return rs;
+    }
+}
@@ -0,0 +1,202 @@
+package my.project.forum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TopicViewCounterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ResourceVersions versions;
+    private SimpleMeterRegistry registry;
+    private TopicViewCounter counter;
+
+    //Views per topic the UPDATE statements have added so far
+    private Map<Long, Long> written;
+    //Runs while the UPDATE is executing, after the views were drained
+    private Runnable duringUpdate;
+    //Thrown by the UPDATE when set
+    private RuntimeException updateFailure;
+
+    @BeforeEach
+    public void setUp()
+    {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        versions = mock(ResourceVersions.class);
+        registry = new SimpleMeterRegistry();
+        written = new ConcurrentHashMap<>();
+        duringUpdate = () -> {};
+
+        doAnswer(invocation -> {
+            Map<Long, Long> deltas = execute(invocation.getArgument(0));
+            duringUpdate.run();
+            if (updateFailure != null)
+                throw updateFailure;
+            deltas.forEach((id, delta) -> written.merge(id, delta, Long::sum));
+
+            //Topics 1 and 2 are in section 10, all others in section 20
+            List<Long> sectionIds = new ArrayList<>();
+            deltas.keySet().forEach(id -> sectionIds.add(id <= 2 ? 10L : 20L));
+            return sectionIds;
+        }).when(jdbcTemplate).query(ArgumentMatchers.any(PreparedStatementCreator.class), ArgumentMatchers.<RowMapper<Long>>any());
+
+        counter = new TopicViewCounter(jdbcTemplate, versions, registry);
+    }
+
+    @Test
+    public void increment_ShouldReturnUnflushedViews()
+    {
+        assertEquals(1, counter.increment(1L));
+        assertEquals(2, counter.increment(1L));
+        assertEquals(1, counter.increment(2L));
+
+        assertEquals(3, registry.get("forum.topic.views.pending").gauge().value());
+        assertEquals(2, registry.get("forum.topic.views.pending.topics").gauge().value());
+    }
+
+    @Test
+    public void flush_ShouldWriteDeltasAndBumpSections()
+    {
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.increment(2L);
+        counter.increment(3L);
+
+        counter.flush();
+
+        assertEquals(Map.of(1L, 2L, 2L, 1L, 3L, 1L), written);
+        assertEquals(4, registry.get("forum.topic.views.flushed").counter().count());
+        assertEquals(0, registry.get("forum.topic.views.pending").gauge().value());
+        verify(versions, times(1)).bump(ResourceVersions.Resource.SECTION_TOPICS, 10L);
+        verify(versions, times(1)).bump(ResourceVersions.Resource.SECTION_TOPICS, 20L);
+        assertEquals(1, counter.increment(1L));
+    }
+
+    @Test
+    public void flush_NothingPending_ShouldNotQuery()
+    {
+        counter.flush();
+
+        verifyNoInteractions(jdbcTemplate, versions);
+    }
+
+    @Test
+    public void flush_IncrementsDuringUpdate_ShouldBeWrittenByNextFlush()
+    {
+        counter.increment(1L);
+        duringUpdate = () -> {
+            counter.increment(1L);
+            counter.increment(3L);
+        };
+
+        counter.flush();
+
+        assertEquals(Map.of(1L, 1L), written);
+        assertEquals(2, registry.get("forum.topic.views.pending").gauge().value());
+
+        duringUpdate = () -> {};
+        counter.flush();
+
+        assertEquals(Map.of(1L, 2L, 3L, 1L), written);
+        assertEquals(3, registry.get("forum.topic.views.flushed").counter().count());
+    }
+
+    @Test
+    public void flush_UpdateFails_ShouldKeepViewsForNextFlush()
+    {
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.increment(2L);
+        updateFailure = new QueryTimeoutException("Statement timed out");
+        duringUpdate = () -> counter.increment(1L);
+
+        counter.flush();
+
+        assertEquals(Map.of(), written);
+        assertEquals(0, registry.get("forum.topic.views.flushed").counter().count());
+        verifyNoInteractions(versions);
+        //Views which failed to be written are put back next to the ones counted meanwhile
+        assertEquals(4, registry.get("forum.topic.views.pending").gauge().value());
+        assertEquals(4, counter.increment(1L));
+
+        updateFailure = null;
+        duringUpdate = () -> {};
+        counter.flush();
+
+        assertEquals(Map.of(1L, 4L, 2L, 1L), written);
+        assertEquals(5, registry.get("forum.topic.views.flushed").counter().count());
+        assertEquals(0, registry.get("forum.topic.views.pending").gauge().value());
+    }
+
+    @Test
+    public void flush_ConcurrentIncrements_ShouldWriteEveryView() throws Exception
+    {
+        int threads = 8;
+        int views = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        try
+        {
+            for (int t = 0; t < threads; t++)
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < views; i++)
+                        counter.increment((long) (i % 4 + 1));
+                    return null;
+                }));
+
+            start.countDown();
+            while (!results.stream().allMatch(Future::isDone))
+                counter.flush();
+            for (Future<?> result : results)
+                result.get(30, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        counter.flushOnShutdown();
+
+        long perTopic = (long) threads * views / 4;
+        assertEquals(Map.of(1L, perTopic, 2L, perTopic, 3L, perTopic, 4L, perTopic), written);
+        assertEquals(threads * views, registry.get("forum.topic.views.flushed").counter().count());
+    }
+
+    //Runs the statement creator against a mocked connection and returns the id and delta arrays it binds
+    private static Map<Long, Long> execute(PreparedStatementCreator creator) throws Exception
+    {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(ArgumentMatchers.anyString())).thenReturn(mock(PreparedStatement.class));
+
+        List<Object[]> arrays = new ArrayList<>();
+        when(connection.createArrayOf(ArgumentMatchers.eq("bigint"), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            arrays.add(invocation.getArgument(1));
+            return mock(Array.class);
+        });
+
+        creator.createPreparedStatement(connection);
+
+        Object[] ids = arrays.get(0);
+        Object[] deltas = arrays.get(1);
+        Map<Long, Long> result = new HashMap<>();
+        for (int i = 0; i < ids.length; i++)
+            result.put((Long) ids[i], (Long) deltas[i]);
+        return result;
+    }
+}
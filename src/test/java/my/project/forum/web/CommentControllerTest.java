@@ -4,12 +4,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import my.project.forum.data.builder.dto.CommentDtoBuilder;
 import my.project.forum.data.builder.dto.TopicDtoBuilder;
 import my.project.forum.data.builder.entity.*;
+import my.project.forum.data.builder.projection.CommentSummaryBuilder;
 import my.project.forum.data.postgres.dto.CommentDto;
 import my.project.forum.data.postgres.entity.*;
 import my.project.forum.error.CustomGlobalExceptionHandler;
 import my.project.forum.data.postgres.patch.CommentPatch;
+import my.project.forum.data.postgres.projection.CommentSummary;
 import my.project.forum.data.postgres.repository.CommentRepository;
 import my.project.forum.data.postgres.repository.LikeRepository;
+import my.project.forum.data.postgres.repository.TopicRepository;
+import my.project.forum.service.CommentLikeCounter;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.ResourceVersions;
 import my.project.forum.service.Properties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,6 +56,12 @@ public class CommentControllerTest {
     @MockBean
     private LikeRepository likeRepo;
 
+    @MockBean
+    private TopicRepository topicRepo;
+
+    @MockBean
+    private CommentLikeCounter likeCounter;
+
     @MockBean
     private Properties props;
 
@@ -59,7 +71,7 @@ public class CommentControllerTest {
         Mockito.when(props.getCommentsPageSize()).thenReturn(5);
 
         mockMvc = MockMvcBuilders
-                .standaloneSetup(new CommentController(commentRepo, likeRepo, props))
+                .standaloneSetup(new CommentController(commentRepo, likeRepo, topicRepo, likeCounter, props, new DtoMapper(), new ResourceVersions()))
                 .setControllerAdvice(new CustomGlobalExceptionHandler())
                 .setCustomArgumentResolvers(putAuthenticationPrincipal)
                 .build();
@@ -69,10 +81,11 @@ public class CommentControllerTest {
     @Test
     public void findAll_CommentsFound_ShouldReturnFoundComments() throws Exception
     {
-        Comment comment1 = new CommentBuilder().id(0L).text("Hello").build();
-        Comment comment2 = new CommentBuilder().id(1L).text("Welcome").build();
+        CommentSummary comment1 = new CommentSummaryBuilder().id(0L).text("Hello").build();
+        CommentSummary comment2 = new CommentSummaryBuilder().id(1L).text("Welcome").parentId(0L)
+                .likeCount(3).likedByMe(true).build();
 
-        Mockito.when(commentRepo.findAll(ArgumentMatchers.any(Pageable.class)))
+        Mockito.when(commentRepo.findSummaries(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Pageable.class)))
                 .thenReturn(new PageImpl<>(Arrays.asList(comment1, comment2)));
 
         mockMvc.perform(get("/comments")
@@ -84,18 +97,62 @@ public class CommentControllerTest {
                 .andExpect(jsonPath("$.content[0].id", is(0)))
                 .andExpect(jsonPath("$.content[0].text", is("Hello")))
                 .andExpect(jsonPath("$.content[1].id", is(1)))
-                .andExpect(jsonPath("$.content[1].text", is("Welcome")));
+                .andExpect(jsonPath("$.content[1].text", is("Welcome")))
+                .andExpect(jsonPath("$.content[1].parentId", is(0)))
+                .andExpect(jsonPath("$.content[1].author.username", is("test user")))
+                .andExpect(jsonPath("$.content[0].likeCount", is(0)))
+                .andExpect(jsonPath("$.content[0].likedByMe", is(false)))
+                .andExpect(jsonPath("$.content[1].likeCount", is(3)))
+                .andExpect(jsonPath("$.content[1].likedByMe", is(true)))
+                .andExpect(jsonPath("$.content[1].user").doesNotExist())
+                .andExpect(jsonPath("$.content[1].topic").doesNotExist());
+
+        verify(commentRepo, times(1)).findSummaries(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Pageable.class));
+        verifyNoMoreInteractions(commentRepo);
+
+        verify(likeCounter, times(1)).applyPending(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void findAllByCursor_CommentsFound_ShouldReturnFoundComments() throws Exception
+    {
+        CommentSummary comment1 = new CommentSummaryBuilder().id(0L).text("Hello").build();
+        CommentSummary comment2 = new CommentSummaryBuilder().id(1L).text("Welcome").build();
+
+        Mockito.when(commentRepo.findOldest(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(Arrays.asList(comment1, comment2));
 
-        verify(commentRepo, times(1)).findAll(ArgumentMatchers.any(Pageable.class));
+        mockMvc.perform(get("/comments")
+                .param("cursor", "")
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].text", is("Hello")))
+                .andExpect(jsonPath("$.content[1].text", is("Welcome")))
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        verify(commentRepo, times(1)).findOldest(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Pageable.class));
         verifyNoMoreInteractions(commentRepo);
     }
 
+    @Test
+    public void findAllByCursor_MalformedCursor_ShouldReturnHttpStatusCode400() throws Exception
+    {
+        mockMvc.perform(get("/comments")
+                .param("cursor", "not a cursor")
+        )
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(commentRepo);
+    }
+
     @Test
     public void findById_CommentNotFound_ShouldReturnHttpStatusCode404() throws Exception {
         mockMvc.perform(get("/comments/{id}", 1L))
                 .andExpect(status().isNotFound());
 
-        verify(commentRepo, times(1)).findById(1L);
+        verify(commentRepo, times(1)).findDetailedById(1L);
         verifyNoMoreInteractions(commentRepo);
     }
 
@@ -103,7 +160,7 @@ public class CommentControllerTest {
     public void findById_CommentFound_ShouldReturnFoundComment() throws Exception {
         Comment found = new CommentBuilder().id(1L).text("Welcome").build();
 
-        when(commentRepo.findById(1L)).thenReturn(Optional.ofNullable(found));
+        when(commentRepo.findDetailedById(1L)).thenReturn(Optional.ofNullable(found));
 
         mockMvc.perform(get("/comments/{id}", 1L))
                 .andExpect(status().isOk())
@@ -111,7 +168,7 @@ public class CommentControllerTest {
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.text", is("Welcome")));
 
-        verify(commentRepo, times(1)).findById(1L);
+        verify(commentRepo, times(1)).findDetailedById(1L);
         verifyNoMoreInteractions(commentRepo);
     }
 
@@ -185,6 +242,10 @@ public class CommentControllerTest {
 
         verify(commentRepo, times(1)).save(ArgumentMatchers.any(Comment.class));
         verifyNoMoreInteractions(commentRepo);
+
+        verify(topicRepo, times(1)).registerComment(0L, added.getPlacedAt());
+        verify(topicRepo, times(1)).findSectionIdById(0L);
+        verifyNoMoreInteractions(topicRepo);
     }
 
     //PATCH
@@ -201,7 +262,7 @@ public class CommentControllerTest {
         )
                 .andExpect(status().isNotFound());
 
-        verify(commentRepo, times(1)).findById(1L);
+        verify(commentRepo, times(1)).findDetailedById(1L);
         verifyNoMoreInteractions(commentRepo);
     }
 
@@ -215,7 +276,7 @@ public class CommentControllerTest {
                 .user(new UserBuilder().id(2L).build())
                 .build();
 
-        when(commentRepo.findById(1L)).thenReturn(Optional.ofNullable(patchedComment));
+        when(commentRepo.findDetailedById(1L)).thenReturn(Optional.ofNullable(patchedComment));
 
         mockMvc.perform(patch("/comments/{id}", 1L)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -223,7 +284,7 @@ public class CommentControllerTest {
         )
                 .andExpect(status().isForbidden());
 
-        verify(commentRepo, times(1)).findById(1L);
+        verify(commentRepo, times(1)).findDetailedById(1L);
         verifyNoMoreInteractions(commentRepo);
     }
 
@@ -237,7 +298,7 @@ public class CommentControllerTest {
                 .user(new UserBuilder().id(1L).build())
                 .build();
 
-        when(commentRepo.findById(1L)).thenReturn(Optional.ofNullable(patchedComment));
+        when(commentRepo.findDetailedById(1L)).thenReturn(Optional.ofNullable(patchedComment));
 
         mockMvc.perform(patch("/comments/{id}", 1L)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -245,7 +306,7 @@ public class CommentControllerTest {
         )
                 .andExpect(status().isForbidden());
 
-        verify(commentRepo, times(1)).findById(1L);
+        verify(commentRepo, times(1)).findDetailedById(1L);
         verifyNoMoreInteractions(commentRepo);
     }
 
@@ -264,7 +325,7 @@ public class CommentControllerTest {
                 .user(new UserBuilder().id(1L).build())
                 .build();
 
-        when(commentRepo.findById(1L)).thenReturn(Optional.ofNullable(patchedComment));
+        when(commentRepo.findDetailedById(1L)).thenReturn(Optional.ofNullable(patchedComment));
         when(commentRepo.save(ArgumentMatchers.any(Comment.class))).thenReturn(returnedComment);
 
         mockMvc.perform(patch("/comments/{id}", 1L)
@@ -276,7 +337,7 @@ public class CommentControllerTest {
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.text", is("Hello")));
 
-        verify(commentRepo, times(1)).findById(1L);
+        verify(commentRepo, times(1)).findDetailedById(1L);
         verify(commentRepo, times(1)).save(ArgumentMatchers.any(Comment.class));
         verifyNoMoreInteractions(commentRepo);
     }
@@ -313,6 +374,9 @@ public class CommentControllerTest {
         verify(commentRepo, times(1)).findById(1L);
         verify(commentRepo, times(1)).deleteById(1L);
         verifyNoMoreInteractions(commentRepo);
+
+        verify(topicRepo, times(1)).recountComments(0L);
+        verifyNoMoreInteractions(topicRepo);
     }
 
     //GET LIKES
@@ -366,11 +430,25 @@ public class CommentControllerTest {
     @Test
     public void deleteLikeByUserAndCommentId_Comment_ShouldReturnNoContent() throws Exception {
 
+        when(likeRepo.deleteByCommentIdAndUserId(1L, 1L)).thenReturn(1L);
+
         mockMvc.perform(delete("/comments/{id}/likes", 1L))
                 .andExpect(status().isNoContent());
 
         verify(likeRepo, times(1)).deleteByCommentIdAndUserId(1L, 1L);
         verifyNoMoreInteractions(likeRepo);
+
+        verify(likeCounter, times(1)).add(1L, -1L);
+    }
+
+    @Test
+    public void deleteLikeByUserAndCommentId_NotLiked_ShouldNotChangeLikeCount() throws Exception {
+
+        mockMvc.perform(delete("/comments/{id}/likes", 1L))
+                .andExpect(status().isNoContent());
+
+        verify(likeRepo, times(1)).deleteByCommentIdAndUserId(1L, 1L);
+        verifyNoInteractions(likeCounter);
     }
 
     private HandlerMethodArgumentResolver putAuthenticationPrincipal = new HandlerMethodArgumentResolver() {
@@ -383,7 +461,7 @@ public class CommentControllerTest {
         public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
                                       NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
             return new UserBuilder().id(1L).username("user").information("info")
-                    .email("mail@mail.ru").password("tT1#1111").avatar(null)
+                    .email("mail@mail.ru").password("tT1#1111").avatarHash(null)
                     .role(new Role(1L, "ROLE_USER", 0xFF00FF)).build();
         }
     };
@@ -0,0 +1,93 @@
+package my.project.forum.web;
+
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.ForumExporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+public class ExportControllerTest {
+
+    private static final String ROWS = "{\"id\":1,\"name\":\"Java\"}\n{\"id\":2,\"name\":\"Kotlin\"}\n";
+
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ForumExporter exporter;
+
+    @BeforeEach
+    public void setUp()
+    {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ExportController(exporter))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .build();
+    }
+
+    //GET
+    @Test
+    public void export_Table_ShouldStreamNdjson() throws Exception
+    {
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(ROWS.getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(exporter).write(ArgumentMatchers.eq(ForumExporter.Table.SECTIONS), ArgumentMatchers.any());
+
+        mockMvc.perform(get("/export/{table}", "sections"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("application/x-ndjson")))
+                .andExpect(header().string("Content-Disposition", containsString("sections.ndjson")))
+                .andExpect(content().string(ROWS));
+
+        verify(exporter, times(1)).write(ArgumentMatchers.eq(ForumExporter.Table.SECTIONS), ArgumentMatchers.any());
+        verifyNoMoreInteractions(exporter);
+    }
+
+    @Test
+    public void export_TableWithGzip_ShouldStreamCompressedNdjson() throws Exception
+    {
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(ROWS.getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(exporter).write(ArgumentMatchers.eq(ForumExporter.Table.COMMENTS), ArgumentMatchers.any());
+
+        byte[] body = mockMvc.perform(get("/export/{table}", "comments")
+                .param("gzip", "true")
+        )
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", containsString("comments.ndjson.gz")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body)))
+        {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(ROWS);
+        }
+    }
+
+    @Test
+    public void export_UnknownTable_ShouldReturnHttpStatusCode404() throws Exception
+    {
+        mockMvc.perform(get("/export/{table}", "passwords"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(exporter);
+    }
+}
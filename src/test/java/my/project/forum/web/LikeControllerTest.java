@@ -6,21 +6,33 @@ import my.project.forum.data.builder.dto.LikeDtoBuilder;
 import my.project.forum.data.builder.entity.*;
 import my.project.forum.data.postgres.dto.LikeDto;
 import my.project.forum.data.postgres.entity.Like;
+import my.project.forum.data.postgres.entity.User;
+import my.project.forum.data.postgres.repository.CommentRepository;
 import my.project.forum.data.postgres.repository.LikeRepository;
-import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.CommentLikeCounter;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.ResourceVersions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,22 +44,27 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = LikeController.class)
 public class LikeControllerTest {
 
-    @Autowired
     private MockMvc mockMvc;
 
     @MockBean
-    private UserRepositoryUserDetailsService userRepoService;
+    private LikeRepository likeRepo;
 
     @MockBean
-    private LikeRepository likeRepo;
+    private CommentRepository commentRepo;
+
+    @MockBean
+    private CommentLikeCounter likeCounter;
 
     @BeforeEach
     public void setUp()
     {
-
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new LikeController(likeRepo, commentRepo, likeCounter, new DtoMapper(), new ResourceVersions()))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .setCustomArgumentResolvers(putAuthenticationPrincipal)
+                .build();
     }
 
     //GET
@@ -131,5 +148,44 @@ public class LikeControllerTest {
 
         verify(likeRepo, times(1)).save(ArgumentMatchers.any(Like.class));
         verifyNoMoreInteractions(likeRepo);
+
+        verify(likeCounter, times(1)).add(1L, 1L);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void add_LikeTwice_ShouldReturnHttpStatusCode409() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        LikeDto likeDto = new LikeDtoBuilder()
+                .comment(new CommentDtoBuilder().id(1L).build())
+                .build();
+
+        ConstraintViolationException duplicate = new ConstraintViolationException("duplicate key",
+                new SQLException(), "uq_userid_commentid");
+
+        when(likeRepo.save(ArgumentMatchers.any(Like.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key", duplicate));
+
+        mockMvc.perform(post("/likes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(likeDto))
+        )
+                .andExpect(status().isConflict());
+
+        verifyNoInteractions(likeCounter);
     }
+
+    private HandlerMethodArgumentResolver putAuthenticationPrincipal = new HandlerMethodArgumentResolver() {
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return parameter.getParameterType().isAssignableFrom(User.class);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+            return new UserBuilder().id(1L).username("user").build();
+        }
+    };
 }
@@ -3,15 +3,13 @@ package my.project.forum.web;
 import my.project.forum.data.builder.entity.LogBuilder;
 import my.project.forum.data.mongodb.entity.Log;
 import my.project.forum.data.mongodb.repository.LogRepository;
-import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.error.CustomGlobalExceptionHandler;
 import my.project.forum.service.Properties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -19,6 +17,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -32,15 +31,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = LogController.class)
 public class LogControllerTest {
 
-    @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
-    private UserRepositoryUserDetailsService userRepoService;
-
     @MockBean
     private LogRepository logRepo;
 
@@ -51,6 +45,11 @@ public class LogControllerTest {
     public void setUp()
     {
         Mockito.when(props.getLogPageSize()).thenReturn(5);
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new LogController(logRepo, props))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .build();
     }
 
     //GET
@@ -0,0 +1,182 @@
+package my.project.forum.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.forum.data.builder.dto.CommentDtoBuilder;
+import my.project.forum.data.builder.entity.CommentBuilder;
+import my.project.forum.data.builder.entity.UserBuilder;
+import my.project.forum.data.postgres.entity.Comment;
+import my.project.forum.data.postgres.entity.User;
+import my.project.forum.data.postgres.repository.CommentRepository;
+import my.project.forum.data.postgres.repository.LikeRepository;
+import my.project.forum.data.postgres.repository.TopicRepository;
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.CommentLikeCounter;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.Properties;
+import my.project.forum.service.RateLimitInterceptor;
+import my.project.forum.service.ResourceVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+public class RateLimitInterceptorTest {
+
+    //Two comments a minute: a bucket refills one request every 30 s
+    private static final int LIMIT = 2;
+    private static final long PERIOD = 60_000;
+
+    private MockMvc mockMvc;
+    private SimpleMeterRegistry registry;
+
+    @MockBean
+    private CommentRepository commentRepo;
+
+    @MockBean
+    private LikeRepository likeRepo;
+
+    @MockBean
+    private TopicRepository topicRepo;
+
+    @MockBean
+    private CommentLikeCounter likeCounter;
+
+    @MockBean
+    private Properties props;
+
+    @BeforeEach
+    public void setUp()
+    {
+        registry = new SimpleMeterRegistry();
+
+        when(commentRepo.save(ArgumentMatchers.any(Comment.class)))
+                .thenReturn(new CommentBuilder().id(1L).text("Welcome").build());
+        when(commentRepo.findDetailedById(1L))
+                .thenReturn(Optional.of(new CommentBuilder().id(1L).text("Welcome").build()));
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new CommentController(commentRepo, likeRepo, topicRepo, likeCounter, props, new DtoMapper(), new ResourceVersions()))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .setCustomArgumentResolvers(putAuthenticationPrincipal)
+                .addInterceptors(new RateLimitInterceptor(Map.of("comments", LIMIT), PERIOD, 100, registry))
+                .build();
+    }
+
+    @Test
+    public void post_OverLimit_ShouldReturnTooManyRequestsWithRetryAfter() throws Exception {
+
+        for (int i = 0; i < LIMIT; i++)
+            mockMvc.perform(newComment("/comments", 1L))
+                    .andExpect(status().isCreated());
+
+        //The next request is allowed once the bucket refills, 30 s rounded up to whole seconds
+        mockMvc.perform(newComment("/comments", 1L))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, is("30")));
+
+        verify(commentRepo, times(LIMIT)).save(ArgumentMatchers.any(Comment.class));
+
+        assertEquals(LIMIT, registry.get("forum.ratelimit.requests")
+                .tags("endpoint", "comments", "decision", "allowed").counter().count());
+        assertEquals(1, registry.get("forum.ratelimit.requests")
+                .tags("endpoint", "comments", "decision", "rejected").counter().count());
+    }
+
+    @Test
+    public void post_TrailingSlash_ShouldShareBucket() throws Exception {
+
+        for (int i = 0; i < LIMIT; i++)
+            mockMvc.perform(newComment("/comments", 1L))
+                    .andExpect(status().isCreated());
+
+        mockMvc.perform(newComment("/comments/", 1L))
+                .andExpect(status().isTooManyRequests());
+
+        verify(commentRepo, times(LIMIT)).save(ArgumentMatchers.any(Comment.class));
+    }
+
+    @Test
+    public void get_ShouldNeverBeLimited() throws Exception {
+
+        for (int i = 0; i < LIMIT; i++)
+            mockMvc.perform(newComment("/comments", 1L))
+                    .andExpect(status().isCreated());
+
+        for (int i = 0; i < LIMIT * 3; i++)
+            mockMvc.perform(get("/comments/{id}", 1L)
+                    .principal(authenticationOf(1L))
+            )
+                    .andExpect(status().isOk());
+
+        verify(commentRepo, times(LIMIT * 3)).findDetailedById(1L);
+    }
+
+    @Test
+    public void post_TwoUsers_ShouldHaveSeparateBuckets() throws Exception {
+
+        for (int i = 0; i < LIMIT; i++)
+            mockMvc.perform(newComment("/comments", 1L))
+                    .andExpect(status().isCreated());
+
+        mockMvc.perform(newComment("/comments", 1L))
+                .andExpect(status().isTooManyRequests());
+
+        for (int i = 0; i < LIMIT; i++)
+            mockMvc.perform(newComment("/comments", 2L))
+                    .andExpect(status().isCreated());
+
+        verify(commentRepo, times(LIMIT * 2)).save(ArgumentMatchers.any(Comment.class));
+    }
+
+    private MockHttpServletRequestBuilder newComment(String path, Long userId) throws Exception
+    {
+        return post(path)
+                .principal(authenticationOf(userId))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsBytes(new CommentDtoBuilder().text("Welcome").build()));
+    }
+
+    private static UsernamePasswordAuthenticationToken authenticationOf(Long userId)
+    {
+        User user = new UserBuilder().id(userId).username("user" + userId).build();
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    private HandlerMethodArgumentResolver putAuthenticationPrincipal = new HandlerMethodArgumentResolver() {
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return parameter.getParameterType().isAssignableFrom(User.class);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+            return new UserBuilder().id(1L).username("user").build();
+        }
+    };
+}
@@ -0,0 +1,160 @@
+package my.project.forum.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import my.project.forum.data.builder.dto.UserDtoBuilder;
+import my.project.forum.data.builder.entity.UserBuilder;
+import my.project.forum.data.postgres.dto.ReputationDto;
+import my.project.forum.data.postgres.entity.*;
+import my.project.forum.data.postgres.repository.ReputationRepository;
+import my.project.forum.data.postgres.repository.UserRepository;
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.ResourceVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+public class ReputationControllerTest {
+
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReputationRepository repRepo;
+
+    @MockBean
+    private UserRepository userRepo;
+
+    @BeforeEach
+    public void setUp()
+    {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ReputationController(repRepo, userRepo, new DtoMapper(), new ResourceVersions()))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .setCustomArgumentResolvers(putAuthenticationPrincipal)
+                .build();
+    }
+
+    //POST
+    @Test
+    public void add_Reputation_ShouldIncreaseTargetScoreAndReturnLocationHeader() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        ReputationDto repDto = new ReputationDto(null, "Thanks!", new UserDtoBuilder().id(2L).build());
+        Reputation added = Reputation.builder().id(5L).msg("Thanks!")
+                .target(new UserBuilder().id(2L).build())
+                .build();
+
+        when(userRepo.addReputation(2L, 1)).thenReturn(1);
+        when(repRepo.save(ArgumentMatchers.any(Reputation.class))).thenReturn(added);
+
+        mockMvc.perform(post("/reputations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(repDto))
+        )
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", containsString("/reputations/5")))
+                .andExpect(jsonPath("$.msg", is("Thanks!")));
+
+        verify(userRepo, times(1)).addReputation(2L, 1);
+        verifyNoMoreInteractions(userRepo);
+
+        verify(repRepo, times(1)).save(ArgumentMatchers.any(Reputation.class));
+        verifyNoMoreInteractions(repRepo);
+    }
+
+    @Test
+    public void add_ReputationToMissingUser_ShouldReturnHttpStatusCode404() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        ReputationDto repDto = new ReputationDto(null, "Thanks!", new UserDtoBuilder().id(2L).build());
+
+        mockMvc.perform(post("/reputations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(repDto))
+        )
+                .andExpect(status().isNotFound());
+
+        verify(userRepo, times(1)).addReputation(2L, 1);
+        verifyNoInteractions(repRepo);
+    }
+
+    @Test
+    public void add_ReputationToSelf_ShouldReturnForbidden() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        ReputationDto repDto = new ReputationDto(null, "Thanks!", new UserDtoBuilder().id(1L).build());
+
+        mockMvc.perform(post("/reputations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(repDto))
+        )
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userRepo);
+        verifyNoInteractions(repRepo);
+    }
+
+    //DELETE
+    @Test
+    public void delete_Reputation_ShouldDecreaseTargetScore() throws Exception {
+
+        Reputation found = Reputation.builder().id(5L)
+                .target(new UserBuilder().id(2L).build())
+                .build();
+
+        when(repRepo.findById(5L)).thenReturn(Optional.of(found));
+
+        mockMvc.perform(delete("/reputations/{id}", 5L))
+                .andExpect(status().isNoContent());
+
+        verify(repRepo, times(1)).findById(5L);
+        verify(repRepo, times(1)).delete(found);
+        verifyNoMoreInteractions(repRepo);
+
+        verify(userRepo, times(1)).addReputation(2L, -1);
+        verifyNoMoreInteractions(userRepo);
+    }
+
+    @Test
+    public void delete_ReputationNotFound_ShouldReturnHttpStatusCode404() throws Exception {
+
+        mockMvc.perform(delete("/reputations/{id}", 5L))
+                .andExpect(status().isNotFound());
+
+        verify(repRepo, times(1)).findById(5L);
+        verifyNoMoreInteractions(repRepo);
+        verifyNoInteractions(userRepo);
+    }
+
+    private HandlerMethodArgumentResolver putAuthenticationPrincipal = new HandlerMethodArgumentResolver() {
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return parameter.getParameterType().isAssignableFrom(User.class);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+            return new UserBuilder().id(1L).username("user").build();
+        }
+    };
+}
@@ -4,20 +4,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import my.project.forum.data.builder.entity.RoleBuilder;
 import my.project.forum.data.postgres.entity.Role;
 import my.project.forum.data.postgres.repository.RoleRepository;
+import my.project.forum.error.CustomGlobalExceptionHandler;
 import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.service.ResourceVersions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -28,10 +29,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = RoleController.class)
 public class RoleControllerTest {
 
-    @Autowired
     private MockMvc mockMvc;
 
     @MockBean
@@ -43,7 +42,10 @@ public class RoleControllerTest {
     @BeforeEach
     public void setUp()
     {
-
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new RoleController(roleRepo, userRepoService, new ResourceVersions()))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .build();
     }
 
     //GET
@@ -224,6 +226,7 @@ public class RoleControllerTest {
                 .andExpect(jsonPath("$.color", is(0x00FF00)));
 
         verify(roleRepo, times(1)).save(ArgumentMatchers.any(Role.class));
+        verify(userRepoService, times(1)).evictAll();
     }
 
     //DELETE
@@ -267,5 +270,7 @@ public class RoleControllerTest {
         verify(roleRepo, times(1)).findById(1L);
         verify(roleRepo, times(1)).deleteById(1L);
         verifyNoMoreInteractions(roleRepo);
+
+        verify(userRepoService, times(1)).evictAll();
     }
 }
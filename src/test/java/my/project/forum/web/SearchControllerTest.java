@@ -0,0 +1,121 @@
+package my.project.forum.web;
+
+import my.project.forum.data.builder.projection.SearchHitBuilder;
+import my.project.forum.data.cursor.Cursor;
+import my.project.forum.data.postgres.projection.SearchHit;
+import my.project.forum.data.postgres.repository.SearchRepository;
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.Properties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+public class SearchControllerTest {
+
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SearchRepository searchRepo;
+
+    @MockBean
+    private Properties props;
+
+    @BeforeEach
+    public void setUp()
+    {
+        Mockito.when(props.getSearchPageSize()).thenReturn(2);
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new SearchController(searchRepo, props))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .build();
+    }
+
+    //GET
+    @Test
+    public void search_MoreHitsThanPageSize_ShouldReturnPageWithNextCursor() throws Exception
+    {
+        SearchHit hit1 = new SearchHitBuilder().id(5L).rank(0.6f).snippet("**Spring** Framework").build();
+        SearchHit hit2 = new SearchHitBuilder().type(SearchHit.COMMENT).id(7L).topicId(5L).rank(0.2f).build();
+        SearchHit hit3 = new SearchHitBuilder().id(3L).rank(0.1f).build();
+
+        when(searchRepo.search("spring", 1L, null, null, null, null, null, 3))
+                .thenReturn(Arrays.asList(hit1, hit2, hit3));
+
+        mockMvc.perform(get("/search")
+                .param("q", "spring")
+                .param("section", "1")
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].type", is("topic")))
+                .andExpect(jsonPath("$.content[0].snippet", is("**Spring** Framework")))
+                .andExpect(jsonPath("$.content[1].type", is("comment")))
+                .andExpect(jsonPath("$.content[1].topicId", is(5)))
+                .andExpect(jsonPath("$.next", is(Cursor.of(0.2f, "comment", 7L).encode())));
+
+        verify(searchRepo, times(1)).search("spring", 1L, null, null, null, null, null, 3);
+        verifyNoMoreInteractions(searchRepo);
+    }
+
+    @Test
+    public void search_WithCursor_ShouldContinueAfterCursor() throws Exception
+    {
+        when(searchRepo.search("spring", null, 2L, 4L, 0.2f, "comment", 7L, 3))
+                .thenReturn(Arrays.asList(new SearchHitBuilder().id(3L).build()));
+
+        mockMvc.perform(get("/search")
+                .param("q", "spring")
+                .param("tag", "2")
+                .param("author", "4")
+                .param("cursor", Cursor.of(0.2f, "comment", 7L).encode())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        verify(searchRepo, times(1)).search("spring", null, 2L, 4L, 0.2f, "comment", 7L, 3);
+        verifyNoMoreInteractions(searchRepo);
+    }
+
+    @Test
+    public void search_BlankQuery_ShouldReturnForbidden() throws Exception
+    {
+        mockMvc.perform(get("/search")
+                .param("q", " ")
+        )
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(searchRepo);
+    }
+
+    @Test
+    public void search_MalformedCursor_ShouldReturnHttpStatusCode400() throws Exception
+    {
+        mockMvc.perform(get("/search")
+                .param("q", "spring")
+                .param("cursor", Cursor.of("high", "topic", 1L).encode())
+        )
+                .andExpect(status().isBadRequest());
+
+        verify(searchRepo, never()).search(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.anyInt());
+    }
+}
@@ -3,22 +3,23 @@ package my.project.forum.web;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import my.project.forum.data.builder.dto.SectionDtoBuilder;
 import my.project.forum.data.builder.entity.SectionBuilder;
-import my.project.forum.data.builder.entity.TopicBuilder;
+import my.project.forum.data.builder.projection.TopicSummaryBuilder;
 import my.project.forum.data.postgres.dto.SectionDto;
 import my.project.forum.data.postgres.entity.Section;
-import my.project.forum.data.postgres.entity.Topic;
 import my.project.forum.data.postgres.patch.SectionPatch;
+import my.project.forum.data.postgres.projection.TopicSummary;
 import my.project.forum.data.postgres.repository.SectionRepository;
 import my.project.forum.data.postgres.repository.TopicRepository;
-import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.DtoMapper;
 import my.project.forum.service.Properties;
+import my.project.forum.service.ResourceVersions;
+import my.project.forum.service.TopicTagIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -26,6 +27,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -37,15 +39,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = SectionController.class)
 public class SectionControllerTest {
 
-    @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
-    private UserRepositoryUserDetailsService userRepoService;
-
     @MockBean
     private SectionRepository sectionRepo;
 
@@ -55,10 +52,18 @@ public class SectionControllerTest {
     @MockBean
     private Properties props;
 
+    @MockBean
+    private TopicTagIndex tagIndex;
+
     @BeforeEach
     public void setUp()
     {
         Mockito.when(props.getSectionsPageSize()).thenReturn(2);
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new SectionController(sectionRepo, topicRepo, props, new DtoMapper(), new ResourceVersions(), tagIndex))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .build();
     }
 
     //GET
@@ -230,6 +235,30 @@ public class SectionControllerTest {
         verifyNoMoreInteractions(sectionRepo);
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void delete_Section_ShouldChangeSectionsETag() throws Exception {
+
+        Mockito.when(sectionRepo.findAll(ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(new SectionBuilder().id(1L).build())));
+
+        String etag = mockMvc.perform(get("/sections"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(delete("/sections/{id}", 1L))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/sections")
+                .header("If-None-Match", etag)
+        )
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.content", hasSize(1)));
+
+        verify(sectionRepo, times(2)).findAll(ArgumentMatchers.any(Pageable.class));
+    }
+
     //GET TOPICS
     @Test
     public void findTopicsBySectionId_SectionNotFound_ShouldReturnHttpStatusCode404() throws Exception {
@@ -245,8 +274,8 @@ public class SectionControllerTest {
 
         Section found = new SectionBuilder().id(1L).build();
 
-        Topic topic1 = new TopicBuilder().id(0L).name("Spring Framework").build();
-        Topic topic2 = new TopicBuilder().id(1L).name("Hibernate").build();
+        TopicSummary topic1 = new TopicSummaryBuilder().id(0L).name("Spring Framework").build();
+        TopicSummary topic2 = new TopicSummaryBuilder().id(1L).name("Hibernate").build();
 
         when(sectionRepo.findById(1L)).thenReturn(Optional.ofNullable(found));
         Mockito.when(topicRepo.findAllBySection_Id(eq(1L), any()))
@@ -271,4 +300,28 @@ public class SectionControllerTest {
         verifyNoMoreInteractions(topicRepo);
     }
 
+    @Test
+    public void findTopicsBySectionId_MatchingETag_ShouldReturnNotModifiedWithoutQuerying() throws Exception {
+
+        when(sectionRepo.findById(1L)).thenReturn(Optional.ofNullable(new SectionBuilder().id(1L).build()));
+        Mockito.when(topicRepo.findAllBySection_Id(eq(1L), any()))
+                .thenReturn(new PageImpl<>(Arrays.asList(new TopicSummaryBuilder().id(0L).build())));
+        Mockito.when(props.getTopicsPageSize()).thenReturn(2);
+
+        String etag = mockMvc.perform(get("/sections/{id}/topics", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/sections/{id}/topics", 1L)
+                .header("If-None-Match", etag)
+        )
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        verify(sectionRepo, times(1)).findById(1L);
+        verify(topicRepo, times(1)).findAllBySection_Id(eq(1L), any());
+    }
+
 }
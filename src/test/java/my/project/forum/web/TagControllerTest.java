@@ -4,19 +4,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import my.project.forum.data.builder.entity.TagBuilder;
 import my.project.forum.data.postgres.entity.Tag;
 import my.project.forum.data.postgres.repository.TagRepository;
-import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.ResourceVersions;
+import my.project.forum.service.TopicTagIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -30,22 +31,23 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = TagController.class)
 public class TagControllerTest {
 
-    @Autowired
     private MockMvc mockMvc;
 
     @MockBean
-    private UserRepositoryUserDetailsService userRepoService;
+    private TagRepository tagRepo;
 
     @MockBean
-    private TagRepository tagRepo;
+    private TopicTagIndex tagIndex;
 
     @BeforeEach
     public void setUp()
     {
-
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new TagController(tagRepo, new ResourceVersions(), tagIndex))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .build();
     }
 
     //GET
@@ -70,6 +72,24 @@ public class TagControllerTest {
         verifyNoMoreInteractions(tagRepo);
     }
 
+    @Test
+    public void findAll_MatchingETag_ShouldReturnNotModifiedWithoutQuerying() throws Exception
+    {
+        Mockito.when(tagRepo.findAll()).thenReturn(Arrays.asList(new TagBuilder().id(0L).name("Java").build()));
+
+        String etag = mockMvc.perform(get("/tag"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/tag")
+                .header("If-None-Match", etag)
+        )
+                .andExpect(status().isNotModified());
+
+        verify(tagRepo, times(1)).findAll();
+        verifyNoMoreInteractions(tagRepo);
+    }
+
     @Test
     public void findById_TagNotFound_ShouldReturnHttpStatusCode404() throws Exception {
         mockMvc.perform(get("/tag/{id}", 1L))
@@ -5,31 +5,55 @@ import my.project.forum.data.builder.dto.TopicDtoBuilder;
 import my.project.forum.data.builder.entity.CommentBuilder;
 import my.project.forum.data.builder.entity.TagBuilder;
 import my.project.forum.data.builder.entity.TopicBuilder;
+import my.project.forum.data.builder.entity.UserBuilder;
+import my.project.forum.data.builder.projection.CommentNodeBuilder;
+import my.project.forum.data.builder.projection.CommentSummaryBuilder;
+import my.project.forum.data.builder.projection.TopicSummaryBuilder;
+import my.project.forum.data.cursor.Cursor;
 import my.project.forum.data.postgres.dto.TopicDto;
 import my.project.forum.data.postgres.entity.Comment;
 import my.project.forum.data.postgres.entity.Topic;
+import my.project.forum.data.postgres.entity.User;
 import my.project.forum.data.postgres.patch.TopicPatch;
+import my.project.forum.data.postgres.projection.CommentNode;
+import my.project.forum.data.postgres.projection.CommentSummary;
+import my.project.forum.data.postgres.projection.TopicSummary;
 import my.project.forum.data.postgres.repository.CommentRepository;
+import my.project.forum.data.postgres.repository.CommentThreadRepository;
 import my.project.forum.data.postgres.repository.TopicRepository;
-import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.error.CustomGlobalExceptionHandler;
+import my.project.forum.service.CommentLikeCounter;
+import my.project.forum.service.DtoMapper;
 import my.project.forum.service.Properties;
+import my.project.forum.service.ResourceVersions;
+import my.project.forum.service.TagExpression;
+import my.project.forum.service.TopicTagIndex;
+import my.project.forum.service.TopicViewCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.MethodParameter;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -43,38 +67,51 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.assertj.core.api.Assertions.*;
 
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = TopicController.class)
 public class TopicControllerTest {
 
-    @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
-    private UserRepositoryUserDetailsService userRepoService;
-
     @MockBean
     private TopicRepository topicRepo;
 
     @MockBean
     private CommentRepository commentRepo;
 
+    @MockBean
+    private TopicViewCounter viewCounter;
+
+    @MockBean
+    private CommentLikeCounter likeCounter;
+
     @MockBean
     private Properties props;
 
+    @MockBean
+    private TopicTagIndex tagIndex;
+
+    @MockBean
+    private CommentThreadRepository threadRepo;
+
     @BeforeEach
     public void setUp()
     {
         Mockito.when(props.getTopicsPageSize()).thenReturn(2);
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new TopicController(topicRepo, commentRepo, viewCounter, likeCounter, props, new DtoMapper(), new ResourceVersions(), tagIndex, threadRepo))
+                .setControllerAdvice(new CustomGlobalExceptionHandler())
+                .setCustomArgumentResolvers(putAuthenticationPrincipal)
+                .build();
     }
 
     //GET
     @Test
     public void findAll_TopicsFound_ShouldReturnFoundTopics() throws Exception
     {
-        Topic topic1 = new TopicBuilder().id(0L).name("Spring Framework").build();
-        Topic topic2 = new TopicBuilder().id(1L).name("Hibernate").build();
+        TopicSummary topic1 = new TopicSummaryBuilder().id(0L).name("Spring Framework").build();
+        TopicSummary topic2 = new TopicSummaryBuilder().id(1L).name("Hibernate").build();
 
-        Mockito.when(topicRepo.findAll(ArgumentMatchers.any(Pageable.class)))
+        Mockito.when(topicRepo.findSummaries(ArgumentMatchers.any(Pageable.class)))
                 .thenReturn(new PageImpl<>(Arrays.asList(topic1, topic2)));
 
         mockMvc.perform(get("/topics")
@@ -88,16 +125,123 @@ public class TopicControllerTest {
                 .andExpect(jsonPath("$.content[1].id", is(1)))
                 .andExpect(jsonPath("$.content[1].name", is("Hibernate")));
 
-        verify(topicRepo, times(1)).findAll(ArgumentMatchers.any(Pageable.class));
+        verify(topicRepo, times(1)).findSummaries(ArgumentMatchers.any(Pageable.class));
+        verifyNoMoreInteractions(topicRepo);
+    }
+
+    @Test
+    public void findAllByCursor_MoreTopicsLeft_ShouldReturnPageWithNextCursor() throws Exception
+    {
+        TopicSummary topic1 = new TopicSummaryBuilder().id(2L).name("Spring Framework").build();
+        TopicSummary topic2 = new TopicSummaryBuilder().id(1L).name("Hibernate").build();
+        TopicSummary topic3 = new TopicSummaryBuilder().id(0L).name("Maven").build();
+
+        Mockito.when(topicRepo.findLatest(ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(Arrays.asList(topic1, topic2, topic3));
+
+        mockMvc.perform(get("/topics")
+                .param("cursor", "")
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.content[1].id", is(1)))
+                .andExpect(jsonPath("$.next", is(Cursor.of(topic2.getPlacedAt(), 1L).encode())));
+
+        verify(topicRepo, times(1)).findLatest(ArgumentMatchers.any(Pageable.class));
         verifyNoMoreInteractions(topicRepo);
     }
 
+    @Test
+    public void findAllByCursor_LastPage_ShouldReturnPageWithoutNextCursor() throws Exception
+    {
+        TopicSummary topic = new TopicSummaryBuilder().id(0L).name("Maven").build();
+        LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+
+        Mockito.when(topicRepo.findLatestBefore(ArgumentMatchers.eq(placedAt), ArgumentMatchers.eq(1L), ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(Arrays.asList(topic));
+
+        mockMvc.perform(get("/topics")
+                .param("cursor", Cursor.of(placedAt, 1L).encode())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(0)))
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        verify(topicRepo, times(1)).findLatestBefore(ArgumentMatchers.eq(placedAt), ArgumentMatchers.eq(1L), ArgumentMatchers.any(Pageable.class));
+        verifyNoMoreInteractions(topicRepo);
+    }
+
+    @Test
+    public void findAllByTags_MoreTopicsThanPageSize_ShouldReturnPageWithNextCursor() throws Exception
+    {
+        TopicSummary topic1 = new TopicSummaryBuilder().id(9L).name("Spring Data").build();
+        TopicSummary topic2 = new TopicSummaryBuilder().id(7L).name("Spring MVC").build();
+        TopicSummary topic3 = new TopicSummaryBuilder().id(4L).name("Spring Boot").build();
+
+        Mockito.when(tagIndex.findTopicIds(ArgumentMatchers.any(TagExpression.class), ArgumentMatchers.eq(2L),
+                ArgumentMatchers.isNull(), ArgumentMatchers.eq(3)))
+                .thenReturn(Arrays.asList(9L, 7L, 4L));
+        Mockito.when(topicRepo.findSummariesByIds(Arrays.asList(9L, 7L, 4L)))
+                .thenReturn(Arrays.asList(topic1, topic2, topic3));
+
+        mockMvc.perform(get("/topics")
+                .param("tags", "spring AND (data OR mvc) NOT \"old news\"")
+                .param("section", "2")
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(9)))
+                .andExpect(jsonPath("$.content[1].id", is(7)))
+                .andExpect(jsonPath("$.next", is(Cursor.of(7L).encode())));
+
+        ArgumentCaptor<TagExpression> expression = ArgumentCaptor.forClass(TagExpression.class);
+        verify(tagIndex, times(1)).findTopicIds(expression.capture(), ArgumentMatchers.eq(2L),
+                ArgumentMatchers.isNull(), ArgumentMatchers.eq(3));
+        assertThat(expression.getValue().getTagNames()).containsExactly("spring", "data", "mvc", "old news");
+
+        verify(topicRepo, times(1)).findSummariesByIds(Arrays.asList(9L, 7L, 4L));
+        verifyNoMoreInteractions(topicRepo);
+    }
+
+    @Test
+    public void findAllByTags_WithCursorAndNoMatches_ShouldReturnEmptyPageWithoutQuerying() throws Exception
+    {
+        Mockito.when(tagIndex.findTopicIds(ArgumentMatchers.any(TagExpression.class), ArgumentMatchers.isNull(),
+                ArgumentMatchers.eq(7L), ArgumentMatchers.eq(3)))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/topics")
+                .param("tags", "spring")
+                .param("cursor", Cursor.of(7L).encode())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)))
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        verifyNoInteractions(topicRepo);
+    }
+
+    @Test
+    public void findAllByTags_MalformedExpression_ShouldReturnHttpStatusCode400() throws Exception
+    {
+        mockMvc.perform(get("/topics")
+                .param("tags", "spring AND (data OR")
+        )
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(tagIndex);
+        verifyNoInteractions(topicRepo);
+    }
+
     @Test
     public void findById_TopicNotFound_ShouldReturnHttpStatusCode404() throws Exception {
         mockMvc.perform(get("/topics/{id}", 1L))
                 .andExpect(status().isNotFound());
 
-        verify(topicRepo, times(1)).findById(1L);
+        verify(topicRepo, times(1)).findDetailedById(1L);
         verifyNoMoreInteractions(topicRepo);
     }
 
@@ -105,21 +249,18 @@ public class TopicControllerTest {
     public void findById_TopicFound_ShouldReturnFoundTopic() throws Exception {
         Topic found = new TopicBuilder().id(1L).name("Spring Framework").views(1L).build();
 
-        when(topicRepo.findById(1L)).thenReturn(Optional.ofNullable(found));
+        when(topicRepo.findDetailedById(1L)).thenReturn(Optional.ofNullable(found));
+        when(viewCounter.increment(1L)).thenReturn(1L);
 
         mockMvc.perform(get("/topics/{id}", 1L))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id", is(1)))
-                .andExpect(jsonPath("$.name", is("Spring Framework")));
-
-        verify(topicRepo, times(1)).findById(1L);
-
-        ArgumentCaptor<Topic> dtoCaptor = ArgumentCaptor.forClass(Topic.class);
-        verify(topicRepo, times(1)).save(dtoCaptor.capture());
+                .andExpect(jsonPath("$.name", is("Spring Framework")))
+                .andExpect(jsonPath("$.views", is(2)));
 
-        Topic updated = dtoCaptor.getValue();
-        assertThat(updated.getViews()).isEqualTo(2L);
+        verify(topicRepo, times(1)).findDetailedById(1L);
+        verify(viewCounter, times(1)).increment(1L);
 
         verifyNoMoreInteractions(topicRepo);
     }
@@ -183,7 +324,7 @@ public class TopicControllerTest {
         )
                 .andExpect(status().isNotFound());
 
-        verify(topicRepo, times(1)).findById(1L);
+        verify(topicRepo, times(1)).findDetailedById(1L);
         verifyNoMoreInteractions(topicRepo);
     }
 
@@ -196,7 +337,7 @@ public class TopicControllerTest {
         TopicPatch patch = new TopicPatch(" ", null);
         Topic patchedTopic = new TopicBuilder().build();
 
-        when(topicRepo.findById(1L)).thenReturn(Optional.ofNullable(patchedTopic));
+        when(topicRepo.findDetailedById(1L)).thenReturn(Optional.ofNullable(patchedTopic));
 
         mockMvc.perform(patch("/topics/{id}", 1L)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -204,7 +345,7 @@ public class TopicControllerTest {
         )
                 .andExpect(status().isForbidden());
 
-        verify(topicRepo, times(1)).findById(1L);
+        verify(topicRepo, times(1)).findDetailedById(1L);
     }
 
     @Test
@@ -218,7 +359,7 @@ public class TopicControllerTest {
         Topic returnedTopic = new TopicBuilder().id(1L).name("Spring Framework")
                 .tags(Set.of(new TagBuilder().name("Java").build())).build();
 
-        when(topicRepo.findById(1L)).thenReturn(Optional.ofNullable(patchedTopic));
+        when(topicRepo.findDetailedById(1L)).thenReturn(Optional.ofNullable(patchedTopic), Optional.ofNullable(returnedTopic));
         when(topicRepo.save(ArgumentMatchers.any(Topic.class))).thenReturn(returnedTopic);
 
         mockMvc.perform(patch("/topics/{id}", 1L)
@@ -239,9 +380,12 @@ public class TopicControllerTest {
     @WithMockUser(roles = "ADMIN")
     public void delete_Topic_ShouldReturnNoContent() throws Exception {
 
+        when(topicRepo.findSectionIdById(1L)).thenReturn(Optional.of(2L));
+
         mockMvc.perform(delete("/topics/{id}", 1L))
                 .andExpect(status().isNoContent());
 
+        verify(topicRepo, times(1)).findSectionIdById(1L);
         verify(topicRepo, times(1)).deleteById(1L);
         verifyNoMoreInteractions(topicRepo);
     }
@@ -261,11 +405,11 @@ public class TopicControllerTest {
 
         Topic found = new TopicBuilder().id(1L).build();
 
-        Comment comment1 = new CommentBuilder().id(0L).text("Hello!").build();
-        Comment comment2 = new CommentBuilder().id(1L).text("Welcome!").build();
+        CommentSummary comment1 = new CommentSummaryBuilder().id(0L).text("Hello!").build();
+        CommentSummary comment2 = new CommentSummaryBuilder().id(1L).text("Welcome!").likeCount(2).build();
 
         when(topicRepo.findById(1L)).thenReturn(Optional.ofNullable(found));
-        Mockito.when(commentRepo.findAllByTopic_Id(eq(1L), any()))
+        Mockito.when(commentRepo.findAllByTopic_Id(eq(1L), isNull(), any()))
                 .thenReturn(new PageImpl<>(Arrays.asList(comment1, comment2)));
         Mockito.when(props.getCommentsPageSize()).thenReturn(5);
 
@@ -278,12 +422,169 @@ public class TopicControllerTest {
                 .andExpect(jsonPath("$.content[0].id", is(0)))
                 .andExpect(jsonPath("$.content[0].text", is("Hello!")))
                 .andExpect(jsonPath("$.content[1].id", is(1)))
-                .andExpect(jsonPath("$.content[1].text", is("Welcome!")));
+                .andExpect(jsonPath("$.content[1].text", is("Welcome!")))
+                .andExpect(jsonPath("$.content[1].likeCount", is(2)))
+                .andExpect(jsonPath("$.content[1].likedByMe", is(false)));
 
         verify(topicRepo, times(1)).findById(1L);
         verifyNoMoreInteractions(topicRepo);
 
-        verify(commentRepo, times(1)).findAllByTopic_Id(eq(1L), any());
+        verify(commentRepo, times(1)).findAllByTopic_Id(eq(1L), isNull(), any());
         verifyNoMoreInteractions(commentRepo);
+
+        verify(likeCounter, times(1)).applyPending(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void findCommentsByTopicId_MatchingETag_ShouldReturnNotModifiedWithoutQuerying() throws Exception {
+
+        when(topicRepo.findById(1L)).thenReturn(Optional.ofNullable(new TopicBuilder().id(1L).build()));
+        Mockito.when(commentRepo.findAllByTopic_Id(eq(1L), isNull(), any()))
+                .thenReturn(new PageImpl<>(Arrays.asList(new CommentSummaryBuilder().id(0L).build())));
+        Mockito.when(props.getCommentsPageSize()).thenReturn(5);
+
+        String etag = mockMvc.perform(get("/topics/{id}/comments", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("no-cache")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/topics/{id}/comments", 1L)
+                .header("If-None-Match", etag)
+        )
+                .andExpect(status().isNotModified());
+
+        //Another page has another tag
+        mockMvc.perform(get("/topics/{id}/comments", 1L)
+                .param("page", "1")
+                .header("If-None-Match", etag)
+        )
+                .andExpect(status().isOk());
+
+        verify(topicRepo, times(2)).findById(1L);
+        verify(commentRepo, times(2)).findAllByTopic_Id(eq(1L), isNull(), any());
     }
+
+    //GET THREAD
+    @Test
+    public void findThreadByTopicId_Topic_ShouldReturnReplyTree() throws Exception {
+
+        CommentNode reply = new CommentNodeBuilder()
+                .comment(new CommentSummaryBuilder().id(2L).parentId(1L).text("Welcome!").build())
+                .replyCount(3)
+                .build();
+        CommentNode root = new CommentNodeBuilder()
+                .comment(new CommentSummaryBuilder().id(1L).text("Hello!").likeCount(2).build())
+                .replyCount(1)
+                .replies(reply)
+                .build();
+
+        Mockito.when(props.getThreadMaxDepth()).thenReturn(10);
+        Mockito.when(props.getThreadMaxSize()).thenReturn(500);
+        Mockito.when(threadRepo.findThread(1L, null, 10, null, 500)).thenReturn(List.of(root));
+
+        mockMvc.perform(get("/topics/{id}/thread", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].text", is("Hello!")))
+                .andExpect(jsonPath("$[0].likeCount", is(2)))
+                .andExpect(jsonPath("$[0].replyCount", is(1)))
+                .andExpect(jsonPath("$[0].replies", hasSize(1)))
+                .andExpect(jsonPath("$[0].replies[0].id", is(2)))
+                .andExpect(jsonPath("$[0].replies[0].parentId", is(1)))
+                .andExpect(jsonPath("$[0].replies[0].replyCount", is(3)))
+                .andExpect(jsonPath("$[0].replies[0].replies", hasSize(0)));
+
+        verify(threadRepo, times(1)).findThread(1L, null, 10, null, 500);
+        verifyNoMoreInteractions(threadRepo);
+        verifyNoInteractions(topicRepo);
+
+        verify(likeCounter, times(1)).applyPendingToThread(List.of(root));
+    }
+
+    @Test
+    public void findThreadByTopicId_SignedIn_ShouldMarkLikesOfUser() throws Exception {
+
+        User user = new UserBuilder().id(7L).username("user").build();
+        CommentNode root = new CommentNodeBuilder()
+                .comment(new CommentSummaryBuilder().id(1L).likeCount(1).likedByMe(true).build())
+                .build();
+
+        Mockito.when(props.getThreadMaxDepth()).thenReturn(10);
+        Mockito.when(props.getThreadMaxSize()).thenReturn(500);
+        Mockito.when(threadRepo.findThread(1L, null, 10, 7L, 500)).thenReturn(List.of(root));
+
+        mockMvc.perform(get("/topics/{id}/thread", 1L)
+                .principal(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()))
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].likedByMe", is(true)));
+
+        verify(threadRepo, times(1)).findThread(1L, null, 10, 7L, 500);
+        verifyNoMoreInteractions(threadRepo);
+    }
+
+    @Test
+    public void findThreadByTopicId_SubtreeDeeperThanAllowed_ShouldLimitDepth() throws Exception {
+
+        Mockito.when(props.getThreadMaxDepth()).thenReturn(10);
+        Mockito.when(props.getThreadMaxSize()).thenReturn(500);
+        Mockito.when(threadRepo.findThread(1L, 5L, 10, null, 500))
+                .thenReturn(List.of(new CommentNodeBuilder().comment(new CommentSummaryBuilder().id(5L).build()).build()));
+
+        mockMvc.perform(get("/topics/{id}/thread", 1L)
+                .param("comment", "5")
+                .param("depth", "50")
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(5)));
+
+        verify(threadRepo, times(1)).findThread(1L, 5L, 10, null, 500);
+        verifyNoMoreInteractions(threadRepo);
+    }
+
+    @Test
+    public void findThreadByTopicId_CommentNotInTopic_ShouldReturnHttpStatusCode404() throws Exception {
+
+        Mockito.when(props.getThreadMaxDepth()).thenReturn(10);
+        Mockito.when(threadRepo.findThread(eq(1L), eq(5L), eq(2), isNull(), anyInt())).thenReturn(List.of());
+
+        mockMvc.perform(get("/topics/{id}/thread", 1L)
+                .param("comment", "5")
+                .param("depth", "2")
+        )
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(topicRepo);
+    }
+
+    @Test
+    public void findThreadByTopicId_TopicNotFound_ShouldReturnHttpStatusCode404() throws Exception {
+
+        Mockito.when(threadRepo.findThread(eq(1L), isNull(), anyInt(), isNull(), anyInt())).thenReturn(List.of());
+        Mockito.when(topicRepo.existsById(1L)).thenReturn(false);
+
+        mockMvc.perform(get("/topics/{id}/thread", 1L))
+                .andExpect(status().isNotFound());
+
+        verify(topicRepo, times(1)).existsById(1L);
+        verifyNoMoreInteractions(topicRepo);
+    }
+
+    //The user of the request, null for anonymous requests like @AuthenticationPrincipal
+    private HandlerMethodArgumentResolver putAuthenticationPrincipal = new HandlerMethodArgumentResolver() {
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return parameter.getParameterType().isAssignableFrom(User.class);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+            Authentication authentication = (Authentication) webRequest.getUserPrincipal();
+            return authentication == null ? null : authentication.getPrincipal();
+        }
+    };
 }
@@ -6,22 +6,34 @@ import my.project.forum.data.builder.entity.RoleBuilder;
 import my.project.forum.data.builder.entity.SectionBuilder;
 import my.project.forum.data.builder.entity.TopicBuilder;
 import my.project.forum.data.builder.entity.UserBuilder;
+import my.project.forum.data.builder.projection.ReputationSummaryBuilder;
+import my.project.forum.data.cursor.Cursor;
 import my.project.forum.data.postgres.dto.UserDto;
 import my.project.forum.data.postgres.entity.*;
+import my.project.forum.data.postgres.projection.AuthorSummary;
+import my.project.forum.data.postgres.projection.ReputationSummary;
 import my.project.forum.data.postgres.repository.ReputationRepository;
 import my.project.forum.error.CustomGlobalExceptionHandler;
 import my.project.forum.data.postgres.patch.UserProfilePatch;
 import my.project.forum.data.postgres.repository.RoleRepository;
 import my.project.forum.data.postgres.repository.UserRepository;
+import my.project.forum.security.UserRepositoryUserDetailsService;
+import my.project.forum.service.AvatarStore;
+import my.project.forum.service.DtoMapper;
+import my.project.forum.service.Properties;
+import my.project.forum.service.ResourceVersions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.core.MethodParameter;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -31,6 +43,10 @@ import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -58,11 +74,20 @@ public class UserControllerTest {
     @MockBean
     private PasswordEncoder encoder;
 
+    @MockBean
+    private AvatarStore avatarStore;
+
+    @MockBean
+    private UserRepositoryUserDetailsService userDetailsService;
+
+    @MockBean
+    private Properties props;
+
     @BeforeEach
     public void setUp()
     {
         mockMvc = MockMvcBuilders
-                .standaloneSetup(new UserController(userRepo, roleRepo, repRepo, encoder))
+                .standaloneSetup(new UserController(userRepo, roleRepo, repRepo, encoder, avatarStore, userDetailsService, new DtoMapper(), props, new ResourceVersions()))
                 .setControllerAdvice(new CustomGlobalExceptionHandler())
                 .setCustomArgumentResolvers(putAuthenticationPrincipal)
                 .build();
@@ -205,7 +230,7 @@ public class UserControllerTest {
         ObjectMapper mapper = new ObjectMapper();
 
         UserProfilePatch patch = new UserProfilePatch("new user", "new info", "newmail@mail.ru",
-                "tT#12111", "tT1#1111", null,
+                "tT#12111", "tT1#1111",
                 new RoleBuilder().name("ROLE_MODERATOR").build());
 
         mockMvc.perform(patch("/user/{id}", 2L)
@@ -223,7 +248,7 @@ public class UserControllerTest {
         ObjectMapper mapper = new ObjectMapper();
 
         UserProfilePatch patch = new UserProfilePatch("u", "new info", "mail",
-                "p", "tT1#1111", null,
+                "p", "tT1#1111",
                 new RoleBuilder().name("ROLE_MODERATOR").build());
 
         mockMvc.perform(patch("/user/{id}", 1L)
@@ -249,11 +274,11 @@ public class UserControllerTest {
         ObjectMapper mapper = new ObjectMapper();
 
         UserProfilePatch patch = new UserProfilePatch("new user", "new info", "newmail@mail.ru",
-                "tT#12111", "tT1#1111", null,
+                "tT#12111", "tT1#1111",
                 new RoleBuilder().name("ROLE_MODERATOR").build());
 
         User patchedUser = new UserBuilder().id(1L).username("user").information("info")
-                .email("mail@mail.ru").password("tT3#1111").avatar(null)
+                .email("mail@mail.ru").password("tT3#1111").avatarHash(null)
                 .role(new RoleBuilder().id(1L).name("ROLE_USER").build()).build();
 
         when(userRepo.findById(1L)).thenReturn(Optional.ofNullable(patchedUser));
@@ -274,15 +299,15 @@ public class UserControllerTest {
         ObjectMapper mapper = new ObjectMapper();
 
         UserProfilePatch patch = new UserProfilePatch("new user", "new info", "newmail@mail.ru",
-                "tT#12111", "tT1#1111", null,
+                "tT#12111", "tT1#1111",
                 new RoleBuilder().name("ROLE_MODERATOR").build());
 
         User patchedUser = new UserBuilder().id(1L).username("user").information("info")
-                .email("mail@mail.ru").password("tT1#1111").avatar(null)
+                .email("mail@mail.ru").password("tT1#1111").avatarHash(null)
                 .role(new Role(1L, "ROLE_USER", 0xFF00FF)).build();
 
         User returnedUser = new UserBuilder().id(1L).username("user").information("new info")
-                .email("newmail@mail.ru").password("tT2#1111").avatar(null)
+                .email("newmail@mail.ru").password("tT2#1111").avatarHash(null)
                 .role(new Role(1L, "ROLE_USER", 0xFF00FF)).build();
 
         when(userRepo.findById(1L)).thenReturn(Optional.ofNullable(patchedUser));
@@ -302,6 +327,7 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.role.name", is("ROLE_USER")));
 
         verify(userRepo, times(1)).save(ArgumentMatchers.any(User.class));
+        verify(userDetailsService, times(1)).evict(1L);
     }
 
     //DELETE
@@ -312,6 +338,7 @@ public class UserControllerTest {
                 .andExpect(status().isForbidden());
 
         verifyNoInteractions(userRepo);
+        verifyNoInteractions(userDetailsService);
     }
 
     @Test
@@ -322,6 +349,8 @@ public class UserControllerTest {
 
         verify(userRepo, times(1)).deleteById(1L);
         verifyNoMoreInteractions(userRepo);
+
+        verify(userDetailsService, times(1)).evict(1L);
     }
 
     //POST LOCK
@@ -352,6 +381,8 @@ public class UserControllerTest {
         verify(userRepo, times(1)).findById(1L);
         verify(userRepo, times(1)).save(ArgumentMatchers.any(User.class));
         verifyNoMoreInteractions(userRepo);
+
+        verify(userDetailsService, times(1)).evict(1L);
     }
 
     //GET REPUTATIONS
@@ -360,36 +391,158 @@ public class UserControllerTest {
         mockMvc.perform(get("/user/{id}/reputation", 1L))
                 .andExpect(status().isNotFound());
 
-        verify(userRepo, times(1)).findById(1L);
+        verify(userRepo, times(1)).existsById(1L);
         verifyNoMoreInteractions(userRepo);
+        verifyNoInteractions(repRepo);
     }
 
     @Test
     public void findReputationsByTargetUserId_User_ShouldReturnFoundReputations() throws Exception {
 
-        User found = new UserBuilder().id(1L).build();
-
-        Reputation rep1 = Reputation.builder().id(0L).msg("thanks1").target(found).build();
-        Reputation rep2 = Reputation.builder().id(1L).msg("thanks2").target(found).build();
+        ReputationSummary rep1 = new ReputationSummaryBuilder().id(1L).msg("thanks1").build();
+        ReputationSummary rep2 = new ReputationSummaryBuilder().id(0L).msg("thanks2")
+                .author(new AuthorSummary(2L, "giver", 0xFFFFFF, 7L)).build();
 
-        when(userRepo.findById(1L)).thenReturn(Optional.ofNullable(found));
-        Mockito.when(repRepo.findAllByTargetId(eq(1L)))
+        when(userRepo.existsById(1L)).thenReturn(true);
+        when(props.getReputationPageSize()).thenReturn(5);
+        Mockito.when(repRepo.findLatestByTarget(eq(1L), ArgumentMatchers.any(Pageable.class)))
                 .thenReturn(Arrays.asList(rep1, rep2));
 
         mockMvc.perform(get("/user/{id}/reputation", 1L))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(0)))
-                .andExpect(jsonPath("$[0].msg", is("thanks1")))
-                .andExpect(jsonPath("$[1].id", is(1)))
-                .andExpect(jsonPath("$[1].msg", is("thanks2")));
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(1)))
+                .andExpect(jsonPath("$.content[0].msg", is("thanks1")))
+                .andExpect(jsonPath("$.content[1].id", is(0)))
+                .andExpect(jsonPath("$.content[1].msg", is("thanks2")))
+                .andExpect(jsonPath("$.content[1].author.username", is("giver")))
+                .andExpect(jsonPath("$.content[1].author.reputation", is(7)))
+                .andExpect(jsonPath("$.content[1].target").doesNotExist())
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        verify(userRepo, times(1)).existsById(1L);
+        verifyNoMoreInteractions(userRepo);
+
+        verify(repRepo, times(1)).findLatestByTarget(eq(1L), ArgumentMatchers.any(Pageable.class));
+        verifyNoMoreInteractions(repRepo);
+    }
+
+    @Test
+    public void findReputationsByTargetUserId_MoreThanPage_ShouldReturnNextCursor() throws Exception {
 
+        LocalDateTime placedAt = LocalDateTime.of(2020, 8, 28, 12, 0);
+
+        ReputationSummary rep1 = new ReputationSummaryBuilder().id(5L).placedAt(placedAt).build();
+        ReputationSummary rep2 = new ReputationSummaryBuilder().id(4L).placedAt(placedAt).build();
+
+        when(userRepo.existsById(1L)).thenReturn(true);
+        when(props.getReputationPageSize()).thenReturn(1);
+        Mockito.when(repRepo.findLatestByTargetBefore(eq(1L), eq(placedAt), eq(6L), ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(Arrays.asList(rep1, rep2));
+
+        mockMvc.perform(get("/user/{id}/reputation", 1L)
+                .param("cursor", Cursor.of(placedAt, 6L).encode())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(5)))
+                .andExpect(jsonPath("$.next", is(Cursor.of(placedAt, 5L).encode())));
+
+        verify(repRepo, times(1)).findLatestByTargetBefore(eq(1L), eq(placedAt), eq(6L), ArgumentMatchers.any(Pageable.class));
+        verifyNoMoreInteractions(repRepo);
+    }
+
+    //AVATAR
+    @Test
+    public void uploadAvatar_SameUser_ShouldStoreAvatar() throws Exception {
+
+        User found = new UserBuilder().id(1L).username("user").avatarHash(null).build();
+        MockMultipartFile file = new MockMultipartFile("file", "avatar.png", "image/png", new byte[]{1, 2, 3});
+
+        when(userRepo.findById(1L)).thenReturn(Optional.of(found));
+        when(avatarStore.store(ArgumentMatchers.any(InputStream.class))).thenReturn("ab12");
+
+        mockMvc.perform(multipart("/user/{id}/avatar", 1L).file(file))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", containsString("/user/1/avatar")));
+
+        verify(avatarStore, times(1)).store(ArgumentMatchers.any(InputStream.class));
         verify(userRepo, times(1)).findById(1L);
+        verify(userRepo, times(1)).save(ArgumentMatchers.argThat(u -> "ab12".equals(u.getAvatarHash())));
         verifyNoMoreInteractions(userRepo);
+    }
 
-        verify(repRepo, times(1)).findAllByTargetId(eq(1L));
-        verifyNoMoreInteractions(repRepo);
+    @Test
+    public void uploadAvatar_AnotherUser_ShouldReturnForbidden() throws Exception {
+
+        MockMultipartFile file = new MockMultipartFile("file", "avatar.png", "image/png", new byte[]{1, 2, 3});
+
+        mockMvc.perform(multipart("/user/{id}/avatar", 2L).file(file))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userRepo);
+        verifyNoInteractions(avatarStore);
+    }
+
+    @Test
+    public void getAvatar_AvatarFound_ShouldStreamFile(@TempDir Path dir) throws Exception {
+
+        Path file = Files.write(dir.resolve("ab12_64.png"), new byte[]{1, 2, 3, 4, 5});
+
+        when(userRepo.findAvatarHashById(1L)).thenReturn(Optional.of("ab12"));
+        when(avatarStore.resolve("ab12", 64)).thenReturn(file);
+
+        mockMvc.perform(get("/user/{id}/avatar", 1L)
+                .param("size", "64")
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().string("ETag", "\"ab12_64.png\""))
+                .andExpect(content().bytes(new byte[]{1, 2, 3, 4, 5}));
+
+        verify(userRepo, times(1)).findAvatarHashById(1L);
+        verifyNoMoreInteractions(userRepo);
+    }
+
+    @Test
+    public void getAvatar_MatchingETag_ShouldReturnNotModified(@TempDir Path dir) throws Exception {
+
+        Path file = Files.write(dir.resolve("ab12.png"), new byte[]{1, 2, 3, 4, 5});
+
+        when(userRepo.findAvatarHashById(1L)).thenReturn(Optional.of("ab12"));
+        when(avatarStore.resolve("ab12", null)).thenReturn(file);
+
+        mockMvc.perform(get("/user/{id}/avatar", 1L)
+                .header("If-None-Match", "\"ab12.png\"")
+        )
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getAvatar_Range_ShouldReturnPartialContent(@TempDir Path dir) throws Exception {
+
+        Path file = Files.write(dir.resolve("ab12.png"), new byte[]{1, 2, 3, 4, 5});
+
+        when(userRepo.findAvatarHashById(1L)).thenReturn(Optional.of("ab12"));
+        when(avatarStore.resolve("ab12", null)).thenReturn(file);
+
+        mockMvc.perform(get("/user/{id}/avatar", 1L)
+                .header("Range", "bytes=1-2")
+        )
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(new byte[]{2, 3}));
+    }
+
+    @Test
+    public void getAvatar_NoAvatar_ShouldReturnNotFound() throws Exception {
+
+        when(userRepo.findAvatarHashById(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/user/{id}/avatar", 1L))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(avatarStore);
     }
 
     private HandlerMethodArgumentResolver putAuthenticationPrincipal = new HandlerMethodArgumentResolver() {
@@ -402,7 +555,7 @@ public class UserControllerTest {
         public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
                                       NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
             return new UserBuilder().id(1L).username("user").information("info")
-                    .email("mail@mail.ru").password("tT1#1111").avatar(null)
+                    .email("mail@mail.ru").password("tT1#1111").avatarHash(null)
                     .role(new Role(1L, "ROLE_USER", 0xFF00FF)).build();
         }
     };